@@ -0,0 +1,148 @@
+package com.example.asl;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.utils.Converters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The primitive-array overloads of {@link Converters}: they agree with the List variants, fill
+ * only the first {@code count} values, and reuse the caller's Mat while its size stays the same.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConvertersTest {
+
+    @BeforeClass
+    public static void initOpenCv() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void floatColumnRoundTripsAndKeepsItsData() {
+        Mat column = new Mat();
+        Converters.vector_float_to_Mat(new float[]{1.5f, -2.5f, 3.25f, 99f}, 3, column);
+        assertEquals(3, column.rows());
+        assertEquals(1, column.cols());
+        assertEquals(CvType.CV_32FC1, column.type());
+        long data = column.dataAddr();
+
+        Converters.vector_float_to_Mat(new float[]{4f, 5f, 6f}, 3, column);
+        assertEquals(data, column.dataAddr());
+
+        float[] values = {-1f, -1f, -1f, -1f, -1f};
+        assertEquals(3, Converters.Mat_to_vector_float(column, values));
+        assertArrayEquals(new float[]{4f, 5f, 6f, -1f, -1f}, values, 0f);
+
+        List<Float> boxed = new ArrayList<>();
+        Converters.Mat_to_vector_float(column, boxed);
+        assertEquals(Arrays.asList(4f, 5f, 6f), boxed);
+        column.close();
+    }
+
+    @Test
+    public void intDoubleAndUcharColumnsRoundTrip() {
+        Mat ints = Converters.vector_int_to_Mat(new int[]{7, -8, Integer.MAX_VALUE}, 3, new Mat());
+        int[] is = new int[3];
+        assertEquals(3, Converters.Mat_to_vector_int(ints, is));
+        assertArrayEquals(new int[]{7, -8, Integer.MAX_VALUE}, is);
+
+        Mat doubles = Converters.vector_double_to_Mat(new double[]{0.1, 1e300}, 2, new Mat());
+        double[] ds = new double[2];
+        assertEquals(2, Converters.Mat_to_vector_double(doubles, ds));
+        assertArrayEquals(new double[]{0.1, 1e300}, ds, 0.0);
+
+        Mat uchars = Converters.vector_uchar_to_Mat(new byte[]{0, 127, (byte) 200}, 3, new Mat());
+        assertEquals(CvType.CV_8UC1, uchars.type());
+        byte[] bs = new byte[3];
+        assertEquals(3, Converters.Mat_to_vector_uchar(uchars, bs));
+        assertArrayEquals(new byte[]{0, 127, (byte) 200}, bs);
+        assertEquals(200.0, uchars.get(2, 0)[0], 0.0);
+
+        ints.close();
+        doubles.close();
+        uchars.close();
+    }
+
+    @Test
+    public void interleavedPointsMatchTheListVariants() {
+        Mat points = Converters.vector_Point_to_Mat(new int[]{1, 2, 3, 4, 5, 6}, 2, new Mat());
+        assertEquals(CvType.CV_32SC2, points.type());
+        List<Point> list = new ArrayList<>();
+        Converters.Mat_to_vector_Point(points, list);
+        assertEquals(Arrays.asList(new Point(1, 2), new Point(3, 4)), list);
+
+        Mat fromList = Converters.vector_Point2f_to_Mat(Arrays.asList(new Point(0.5, 1.5), new Point(2.5, 3.5)));
+        float[] xy = new float[6];
+        assertEquals(2, Converters.Mat_to_vector_Point2f(fromList, xy));
+        assertArrayEquals(new float[]{0.5f, 1.5f, 2.5f, 3.5f, 0f, 0f}, xy, 0f);
+
+        Mat doubles = Converters.vector_Point2d_to_Mat(new double[]{0.25, 0.75}, 1, new Mat());
+        assertEquals(CvType.CV_64FC2, doubles.type());
+        assertArrayEquals(new double[]{0.25, 0.75}, doubles.get(0, 0), 0.0);
+
+        points.close();
+        fromList.close();
+        doubles.close();
+    }
+
+    @Test
+    public void keyPointsCopyAsSevenValuesEach() {
+        // The Converters layout is CV_64FC(7), not the CV_32FC(7) of MatOfKeyPoint
+        Mat keyPoints = Converters.vector_KeyPoint_to_Mat(Arrays.asList(
+                new KeyPoint(1f, 2f, 3f, 45f, 0.5f, 1, 7),
+                new KeyPoint(10f, 20f, 4f, 90f, 0.25f, 2, -1)));
+        double[] values = new double[21];
+
+        assertEquals(2, Converters.Mat_to_vector_KeyPoint(keyPoints, values));
+        assertArrayEquals(new double[]{
+                1, 2, 3, 45, 0.5, 1, 7,
+                10, 20, 4, 90, 0.25, 2, -1,
+                0, 0, 0, 0, 0, 0, 0}, values, 0.0);
+        keyPoints.close();
+    }
+
+    @Test
+    public void emptyInputGivesAnEmptyColumn() {
+        Mat column = Converters.vector_int_to_Mat(new int[4], 0, new Mat());
+        assertEquals(0, column.rows());
+        assertEquals(0, Converters.Mat_to_vector_int(column, new int[0]));
+        column.close();
+    }
+
+    @Test
+    public void rejectsArraysThatCannotHoldTheValues() {
+        Mat column = Converters.vector_float_to_Mat(new float[3], 3, new Mat());
+        Mat points = Converters.vector_Point_to_Mat(new int[4], 2, new Mat());
+        Mat keyPoint = Converters.vector_KeyPoint_to_Mat(Arrays.asList(new KeyPoint(1f, 2f, 3f)));
+        assertRejected(() -> Converters.vector_float_to_Mat(new float[2], 3, new Mat()));
+        assertRejected(() -> Converters.Mat_to_vector_float(column, new float[2]));
+        assertRejected(() -> Converters.Mat_to_vector_int(column, new int[3]));
+        assertRejected(() -> Converters.vector_Point_to_Mat(new int[5], 2, new Mat()));
+        assertRejected(() -> Converters.Mat_to_vector_Point(points, new int[5]));
+        assertRejected(() -> Converters.Mat_to_vector_KeyPoint(keyPoint, new double[8]));
+        column.close();
+        points.close();
+        keyPoint.close();
+    }
+
+    private static void assertRejected(Runnable call) {
+        try {
+            call.run();
+            fail("Accepted an array that cannot hold the values");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.asl;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.KeyPointCursor;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.MatOfRect;
+import org.opencv.core.Point;
+import org.opencv.core.PointCursor;
+import org.opencv.core.Rect;
+import org.opencv.core.RectCursor;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The flyweight cursors visit the same elements, in the same order, as {@code toArray()} and
+ * {@code toList()}, and one cursor can be reset over Mats of different sizes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MatCursorTest {
+
+    @BeforeClass
+    public static void initOpenCv() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void pointCursorMatchesToArray() {
+        MatOfPoint contour = new MatOfPoint(new Point(1, 2), new Point(3, 4), new Point(-5, 6));
+        MatOfPoint corner = new MatOfPoint(new Point(7, 8));
+        MatOfPoint2f outline = new MatOfPoint2f(new Point(0.5, 1.5), new Point(2.25, -3.75));
+        PointCursor cursor = new PointCursor();
+
+        assertVisits(contour.toArray(), cursor.reset(contour));
+        // A smaller Mat into the grown buffer, then the float variant in between
+        assertVisits(corner.toArray(), cursor.reset(corner));
+        assertVisits(outline.toArray(), cursor.reset(outline));
+        assertVisits(contour.toArray(), cursor.reset(contour));
+
+        Point[] expected = contour.toArray();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].x, cursor.x(i), 0.0);
+            assertEquals(expected[i].y, cursor.y(i), 0.0);
+        }
+        contour.close();
+        corner.close();
+        outline.close();
+    }
+
+    @Test
+    public void pointCursorReusesOnePoint() {
+        MatOfPoint contour = new MatOfPoint(new Point(1, 2), new Point(3, 4));
+        PointCursor cursor = new PointCursor().reset(contour);
+
+        assertTrue(cursor.next());
+        Point first = cursor.point();
+        assertTrue(cursor.next());
+        assertSame(first, cursor.point());
+        assertEquals(new Point(3, 4), first);
+        assertFalse(cursor.next());
+        contour.close();
+    }
+
+    @Test
+    public void emptyMatsHaveNothingToVisit() {
+        MatOfPoint empty = new MatOfPoint();
+        PointCursor cursor = new PointCursor().reset(empty);
+        assertEquals(0, cursor.size());
+        assertFalse(cursor.next());
+
+        MatOfRect noRects = new MatOfRect();
+        assertFalse(new RectCursor().reset(noRects).next());
+        empty.close();
+        noRects.close();
+    }
+
+    @Test
+    public void keyPointCursorMatchesToList() {
+        MatOfKeyPoint small = new MatOfKeyPoint(new KeyPoint(1f, 2f, 3f, 45f, 0.5f, 1, 7));
+        MatOfKeyPoint large = new MatOfKeyPoint(
+                new KeyPoint(10f, 20f, 4f, 90f, 0.25f, 2, -1),
+                new KeyPoint(11f, 21f, 5f, 180f, 0.75f, 0, 3),
+                new KeyPoint(12f, 22f, 6f, 270f, 1f, 3, 4));
+        KeyPointCursor cursor = new KeyPointCursor();
+
+        for (MatOfKeyPoint m : new MatOfKeyPoint[]{small, large, small}) {
+            List<KeyPoint> expected = m.toList();
+            cursor.reset(m);
+            assertEquals(expected.size(), cursor.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertTrue(cursor.next());
+                KeyPoint want = expected.get(i);
+                KeyPoint got = cursor.keyPoint();
+                assertEquals(want.pt, got.pt);
+                assertEquals(want.size, got.size, 0f);
+                assertEquals(want.angle, got.angle, 0f);
+                assertEquals(want.response, got.response, 0f);
+                assertEquals(want.octave, got.octave);
+                assertEquals(want.class_id, got.class_id);
+                assertEquals(want.pt.x, cursor.x(i), 0.0);
+                assertEquals(want.pt.y, cursor.y(i), 0.0);
+                assertEquals(want.response, cursor.response(i), 0f);
+            }
+            assertFalse(cursor.next());
+        }
+        small.close();
+        large.close();
+    }
+
+    @Test
+    public void rectCursorMatchesToArray() {
+        MatOfRect faces = new MatOfRect(new Rect(0, 0, 10, 20), new Rect(5, 6, 7, 8));
+        RectCursor cursor = new RectCursor().reset(faces);
+
+        Rect[] expected = faces.toArray();
+        assertEquals(expected.length, cursor.size());
+        for (Rect want : expected) {
+            assertTrue(cursor.next());
+            assertEquals(want, cursor.rect());
+        }
+        assertFalse(cursor.next());
+        faces.close();
+    }
+
+    private static void assertVisits(Point[] expected, PointCursor cursor) {
+        assertEquals(expected.length, cursor.size());
+        for (Point want : expected) {
+            assertTrue(cursor.next());
+            assertEquals(want, cursor.point());
+        }
+        assertFalse(cursor.next());
+    }
+}
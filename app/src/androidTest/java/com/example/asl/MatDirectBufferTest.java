@@ -0,0 +1,126 @@
+package com.example.asl;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatRegistry;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trips Mats through direct buffers with {@link Mat#get(ByteBuffer)} and
+ * {@link Mat#put(ByteBuffer)}, including regions that are not contiguous in the Mat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MatDirectBufferTest {
+
+    @BeforeClass
+    public static void initOpenCv() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void wholeMatRoundTripsFromTheBufferPosition() {
+        byte[] pixels = new byte[3 * 4 * 3];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) (i * 7 + 1);
+        }
+        Mat source = new Mat(3, 4, CvType.CV_8UC3);
+        source.put(0, 0, pixels);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(5 + pixels.length + 3);
+        buffer.position(5);
+        assertEquals(pixels.length, source.get(buffer));
+        assertEquals(5 + pixels.length, buffer.position());
+        for (int i = 0; i < pixels.length; i++) {
+            assertEquals(pixels[i], buffer.get(5 + i));
+        }
+
+        Mat copy = new Mat(3, 4, CvType.CV_8UC3);
+        buffer.position(5);
+        assertEquals(pixels.length, copy.put(buffer));
+        assertEquals(5 + pixels.length, buffer.position());
+        byte[] copied = new byte[pixels.length];
+        copy.get(0, 0, copied);
+        assertArrayEquals(pixels, copied);
+
+        source.close();
+        copy.close();
+    }
+
+    @Test
+    public void regionRoundTripsPackedRowByRow() {
+        int rows = 6;
+        int cols = 8;
+        float[] values = new float[rows * cols];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 0.5f;
+        }
+        Mat source = new Mat(rows, cols, CvType.CV_32FC1);
+        source.put(0, 0, values);
+        Rect roi = new Rect(2, 1, 3, 4);
+        int regionBytes = roi.width * roi.height * 4;
+
+        ByteBuffer bytes = ByteBuffer.allocateDirect(regionBytes).order(ByteOrder.nativeOrder());
+        assertEquals(regionBytes, source.get(roi, bytes));
+        assertFalse(bytes.hasRemaining());
+        FloatBuffer packed = bytes.asFloatBuffer();
+        for (int y = 0; y < roi.height; y++) {
+            for (int x = 0; x < roi.width; x++) {
+                assertEquals(values[(roi.y + y) * cols + roi.x + x], packed.get(y * roi.width + x), 0f);
+            }
+        }
+
+        Mat target = Mat.zeros(rows, cols, CvType.CV_32FC1);
+        bytes.rewind();
+        assertEquals(regionBytes, target.put(roi, bytes));
+        float[] result = new float[rows * cols];
+        target.get(0, 0, result);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                boolean inside = roi.contains(new Point(x, y));
+                assertEquals(inside ? values[y * cols + x] : 0f, result[y * cols + x], 0f);
+            }
+        }
+
+        source.close();
+        target.close();
+    }
+
+    @Test
+    public void copiesCreateNoTrackedMats() {
+        Mat mat = Mat.allocateDirect(4, 4, CvType.CV_8UC1);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+        long created = MatRegistry.getCreatedCount();
+
+        mat.get(buffer);
+        buffer.rewind();
+        mat.put(buffer);
+        buffer.rewind();
+        mat.get(new Rect(1, 1, 2, 2), buffer);
+
+        assertEquals(created, MatRegistry.getCreatedCount());
+        mat.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAHeapBuffer() {
+        Mat mat = new Mat(2, 2, CvType.CV_8UC1);
+        try {
+            mat.get(ByteBuffer.allocate(4));
+        } finally {
+            mat.close();
+        }
+    }
+}
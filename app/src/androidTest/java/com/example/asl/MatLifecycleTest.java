@@ -0,0 +1,185 @@
+package com.example.asl;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatArena;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Closing Mats explicitly and through {@link MatArena} scopes: a Mat is deleted once however it
+ * is closed, and the finalizer leaves closed Mats alone.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MatLifecycleTest {
+
+    @BeforeClass
+    public static void initOpenCv() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @After
+    public void removeLeakReporter() {
+        MatArena.setLeakReporter(null);
+    }
+
+    @Test
+    public void closingTwiceDeletesOnce() {
+        Mat mat = new Mat(4, 4, CvType.CV_8UC1);
+        long closed = MatRegistry.getClosedCount();
+
+        mat.close();
+        mat.close();
+
+        assertTrue(mat.isClosed());
+        assertEquals(closed + 1, MatRegistry.getClosedCount());
+    }
+
+    @Test
+    public void subclassesCloseWithTryWithResources() {
+        MatOfPoint points;
+        try (MatOfPoint scoped = new MatOfPoint()) {
+            points = scoped;
+            assertFalse(points.isClosed());
+        }
+        assertTrue(points.isClosed());
+    }
+
+    @Test
+    public void finalizerSkipsClosedMats() throws Throwable {
+        AtomicInteger leaks = countLeaksFrom("finalizerSkipsClosedMats");
+        FinalizableMat mat = new FinalizableMat();
+
+        mat.close();
+        // A second delete of the native object would crash the process here
+        mat.runFinalizer();
+
+        assertEquals(0, leaks.get());
+    }
+
+    @Test
+    public void finalizerReportsMatsThatWereNeverClosed() throws InterruptedException {
+        AtomicInteger leaks = countLeaksFrom("leakMat");
+        long finalized = MatRegistry.getFinalizedCount();
+
+        leakMat();
+        for (int i = 0; i < 50 && leaks.get() == 0; i++) {
+            System.gc();
+            System.runFinalization();
+            Thread.sleep(20);
+        }
+
+        assertTrue(leaks.get() > 0);
+        assertTrue(MatRegistry.getFinalizedCount() > finalized);
+    }
+
+    @Test
+    public void nestedArenasCloseOnlyTheirOwnMats() {
+        MatArena outer = new MatArena();
+        MatArena inner = new MatArena();
+        Mat outerMat;
+        Mat innerMat;
+        try (MatArena scope = outer.open()) {
+            outerMat = new Mat(2, 2, CvType.CV_8UC1);
+            try (MatArena nested = inner.open()) {
+                innerMat = new Mat(2, 2, CvType.CV_8UC1);
+                assertEquals(1, nested.size());
+            }
+            assertTrue(innerMat.isClosed());
+            assertFalse(outerMat.isClosed());
+            assertEquals(1, scope.size());
+        }
+        assertTrue(outerMat.isClosed());
+    }
+
+    @Test
+    public void keptMatsOutliveTheArena() {
+        MatArena arena = new MatArena();
+        Mat kept;
+        try (MatArena scope = arena.open()) {
+            kept = scope.keep(new Mat(2, 2, CvType.CV_8UC1));
+            assertEquals(0, scope.size());
+        }
+        assertFalse(kept.isClosed());
+        kept.close();
+    }
+
+    @Test
+    public void arenaSkipsMatsClosedInsideIt() {
+        MatArena arena = new MatArena();
+        Mat early;
+        long closed;
+        try (MatArena scope = arena.open()) {
+            early = new Mat(2, 2, CvType.CV_8UC1);
+            new Mat(2, 2, CvType.CV_8UC1);
+            early.close();
+            closed = MatRegistry.getClosedCount();
+        }
+        assertTrue(early.isClosed());
+        assertEquals(closed + 1, MatRegistry.getClosedCount());
+    }
+
+    @Test
+    public void arenaCanBeReopened() {
+        MatArena arena = new MatArena();
+        for (int frame = 0; frame < 3; frame++) {
+            Mat mat;
+            try (MatArena scope = arena.open()) {
+                mat = new Mat(2, 2, CvType.CV_8UC1);
+                assertEquals(1, scope.size());
+            }
+            assertTrue(mat.isClosed());
+        }
+    }
+
+    @Test
+    public void onlyTheInnermostArenaCanBeClosed() {
+        MatArena outer = new MatArena().open();
+        MatArena inner = new MatArena().open();
+        try {
+            outer.close();
+            fail("Closed an arena with a nested one still open");
+        } catch (IllegalStateException expected) {
+        } finally {
+            inner.close();
+            outer.close();
+        }
+    }
+
+    // Other tests' garbage may be finalized at any time, so only Mats created in
+    // {@code method} are counted
+    private static AtomicInteger countLeaksFrom(String method) {
+        AtomicInteger leaks = new AtomicInteger();
+        MatArena.setLeakReporter(site -> {
+            for (StackTraceElement frame : site.getStackTrace()) {
+                if (frame.getMethodName().equals(method)) {
+                    leaks.incrementAndGet();
+                    return;
+                }
+            }
+        });
+        return leaks;
+    }
+
+    private static void leakMat() {
+        new Mat(8, 8, CvType.CV_8UC1);
+    }
+
+    // Lets the test run the finalizer of a Mat it still holds
+    private static final class FinalizableMat extends Mat {
+        void runFinalizer() throws Throwable {
+            finalize();
+        }
+    }
+}
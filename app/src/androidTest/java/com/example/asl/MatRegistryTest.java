@@ -0,0 +1,138 @@
+package com.example.asl;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Counting and tracking live Mats with {@link MatRegistry}. The finalizer thread may free other
+ * tests' garbage at any time, so counts are compared through the created and closed totals,
+ * which only change on the thread creating and closing Mats.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MatRegistryTest {
+
+    private Mat[] frames;
+
+    @BeforeClass
+    public static void initOpenCv() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @After
+    public void stopTracking() {
+        MatRegistry.setTracking(false);
+        if (frames != null) {
+            for (Mat mat : frames) {
+                mat.close();
+            }
+        }
+    }
+
+    @Test
+    public void countsCreatedAndClosedMats() {
+        long created = MatRegistry.getCreatedCount();
+        long closed = MatRegistry.getClosedCount();
+
+        allocateFrames();
+        assertEquals(created + 3, MatRegistry.getCreatedCount());
+        assertEquals(closed, MatRegistry.getClosedCount());
+        assertTrue(MatRegistry.getLiveCount() >= 3);
+
+        frames[0].close();
+        assertEquals(closed + 1, MatRegistry.getClosedCount());
+    }
+
+    @Test
+    public void snapshotGroupsTrackedMatsByTypeAndSite() {
+        Mat untracked = new Mat(10, 10, CvType.CV_8UC3);
+        MatRegistry.setTracking(true);
+        allocateFrames();
+
+        MatRegistry.Snapshot snapshot = MatRegistry.snapshot();
+        assertEquals(3, snapshot.trackedCount);
+        assertEquals(2 * 300 + 100, snapshot.trackedBytes);
+        assertArrayEquals(new long[]{2, 600}, snapshot.byType.get("CV_8UC3"));
+        assertArrayEquals(new long[]{1, 100}, snapshot.byType.get("CV_32FC1"));
+        assertEquals(3, countFromSite(snapshot.bySite, "allocateFrames"));
+
+        frames[1].close();
+        snapshot = MatRegistry.snapshot();
+        assertEquals(2, snapshot.trackedCount);
+        assertArrayEquals(new long[]{1, 300}, snapshot.byType.get("CV_8UC3"));
+        untracked.close();
+    }
+
+    @Test
+    public void stoppingTrackingForgetsTrackedMats() {
+        MatRegistry.setTracking(true);
+        allocateFrames();
+        MatRegistry.setTracking(false);
+
+        assertFalse(MatRegistry.isTracking());
+        assertEquals(0, MatRegistry.snapshot().trackedCount);
+    }
+
+    @Test
+    public void dumpWritesTheSnapshot() throws IOException {
+        MatRegistry.setTracking(true);
+        allocateFrames();
+        File file = new File(InstrumentationRegistry.getInstrumentation().getTargetContext().getCacheDir(), "mat_registry_test.txt");
+
+        MatRegistry.dump(file);
+
+        String text = read(file);
+        assertTrue(text, text.startsWith("Live Mats: "));
+        assertTrue(text, text.contains("tracked: 3 holding 700 bytes"));
+        assertTrue(text, text.contains("CV_8UC3: 2 Mats, 600 bytes"));
+        assertTrue(text, text.contains("allocateFrames"));
+        assertTrue(file.delete());
+    }
+
+    private static String read(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] chunk = new byte[4096];
+            for (int n; (n = in.read(chunk)) > 0; ) {
+                bytes.write(chunk, 0, n);
+            }
+        }
+        return new String(bytes.toByteArray(), Charset.forName("UTF-8"));
+    }
+
+    private void allocateFrames() {
+        frames = new Mat[]{
+                new Mat(10, 10, CvType.CV_8UC3),
+                new Mat(10, 10, CvType.CV_8UC3),
+                new Mat(5, 5, CvType.CV_32FC1),
+        };
+    }
+
+    private static long countFromSite(Map<String, long[]> bySite, String method) {
+        long count = 0;
+        for (Map.Entry<String, long[]> site : bySite.entrySet()) {
+            if (site.getKey().contains(method)) {
+                count += site.getValue()[0];
+            }
+        }
+        return count;
+    }
+}
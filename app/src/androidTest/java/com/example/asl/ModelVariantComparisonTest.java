@@ -0,0 +1,105 @@
+package com.example.asl;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.asl.core.ModelVariant;
+import com.example.asl.core.TensorPreprocessor;
+import com.example.asl.core.VariantComparison;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs the float and quantized classifiers side by side and logs a latency and accuracy report.
+ *
+ * <p>Labeled images are read from the test APK's {@code asl_eval/<label>/} asset folders, with
+ * the same folder names as the class labels; without them the test is skipped. Both model
+ * files must be packaged with the app.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ModelVariantComparisonTest {
+
+    private static final String TAG = "ModelVariantComparison";
+    private static final String EVAL_DIR = "asl_eval";
+    private static final List<String> CLASS_LABELS = Arrays.asList(
+            "A", "B", "C", "D", "E", "F", "G", "H", "I", "J",
+            "K", "L", "M", "N", "O", "P", "Q", "R", "S", "T",
+            "U", "V", "W", "X", "Y", "Z", "del", "nothing", "space"
+    );
+
+    @Test
+    public void compareFloatAndQuantizedModels() throws IOException {
+        Context appContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        AssetManager testAssets = InstrumentationRegistry.getInstrumentation().getContext().getAssets();
+        String[] labels = testAssets.list(EVAL_DIR);
+        assumeTrue("no labeled images under assets/" + EVAL_DIR, labels != null && labels.length > 0);
+
+        VariantComparison comparison = new VariantComparison("float32", "uint8", CLASS_LABELS);
+        TensorPreprocessor preprocessor = new TensorPreprocessor(64, 64);
+        try (AslInferenceEngine reference = new AslInferenceEngine(appContext, ModelVariant.FLOAT32, 2);
+             AslInferenceEngine candidate = new AslInferenceEngine(appContext, ModelVariant.UINT8, 2)) {
+            assertTrue(candidate.isQuantizedInput());
+
+            for (String label : labels) {
+                int expected = CLASS_LABELS.indexOf(label);
+                String[] images = testAssets.list(EVAL_DIR + "/" + label);
+                for (String image : images != null ? images : new String[0]) {
+                    loadPixels(testAssets, EVAL_DIR + "/" + label + "/" + image, preprocessor);
+
+                    preprocessor.normalizeInto(reference.getInputFloatBuffer());
+                    long start = SystemClock.elapsedRealtimeNanos();
+                    int referencePrediction = argMax(reference.run());
+                    long referenceNs = SystemClock.elapsedRealtimeNanos() - start;
+
+                    preprocessor.packInto(candidate.getInputBuffer(), candidate.isSignedInput());
+                    start = SystemClock.elapsedRealtimeNanos();
+                    int candidatePrediction = argMax(candidate.run());
+                    long candidateNs = SystemClock.elapsedRealtimeNanos() - start;
+
+                    comparison.add(expected, referencePrediction, referenceNs, candidatePrediction, candidateNs);
+                }
+            }
+        }
+
+        Log.i(TAG, comparison.report());
+        assertTrue(comparison.getSamples() > 0);
+    }
+
+    private static void loadPixels(AssetManager assets, String path, TensorPreprocessor preprocessor) throws IOException {
+        try (InputStream in = assets.open(path)) {
+            Bitmap decoded = BitmapFactory.decodeStream(in);
+            Bitmap scaled = Bitmap.createScaledBitmap(decoded, 64, 64, true);
+            scaled.getPixels(preprocessor.getPixels(), 0, 64, 0, 0, 64, 64);
+            if (scaled != decoded) {
+                scaled.recycle();
+            }
+            decoded.recycle();
+        }
+    }
+
+    private static int argMax(float[] scores) {
+        int best = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
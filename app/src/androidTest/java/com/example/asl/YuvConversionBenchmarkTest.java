@@ -0,0 +1,129 @@
+package com.example.asl;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageFormat;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.asl.core.TensorPreprocessor;
+import com.example.asl.core.YuvFrame;
+import com.example.asl.core.YuvTensorConverter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.opencv.android.OpenCVLoader;
+import org.opencv.android.Utils;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the fused YUV converter with the previous JPEG, Bitmap and OpenCV chain on a
+ * synthetic 640x480 NV21 frame. The JPEG is encoded once up front, so the old chain is only
+ * charged for decoding it, which understates its real cost.
+ */
+@RunWith(AndroidJUnit4.class)
+public class YuvConversionBenchmarkTest {
+
+    private static final String TAG = "YuvConversionBenchmark";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int ROTATION = 90;
+    private static final int ITERATIONS = 50;
+
+    @BeforeClass
+    public static void initOpenCv() {
+        assertTrue(OpenCVLoader.initDebug());
+    }
+
+    @Test
+    public void fusedConverterIsFasterThanBitmapChain() {
+        byte[] nv21 = new byte[WIDTH * HEIGHT * 3 / 2];
+        for (int i = 0; i < nv21.length; i++) {
+            nv21[i] = (byte) (i * 31);
+        }
+
+        ByteArrayOutputStream jpegOut = new ByteArrayOutputStream();
+        new YuvImage(nv21, ImageFormat.NV21, WIDTH, HEIGHT, null)
+                .compressToJpeg(new Rect(0, 0, WIDTH, HEIGHT), 95, jpegOut);
+        byte[] jpeg = jpegOut.toByteArray();
+
+        ByteBuffer planes = ByteBuffer.allocateDirect(nv21.length);
+        planes.put(nv21);
+        planes.position(0);
+        ByteBuffer y = planes.slice();
+        planes.position(WIDTH * HEIGHT);
+        ByteBuffer v = planes.slice();
+        planes.position(WIDTH * HEIGHT + 1);
+        ByteBuffer u = planes.slice();
+        YuvFrame frame = new YuvFrame().set(WIDTH, HEIGHT, ROTATION, 0L, y, WIDTH, 1, u, v, WIDTH, 2);
+
+        FloatBuffer input = ByteBuffer.allocateDirect(64 * 64 * 3 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        YuvTensorConverter converter = new YuvTensorConverter(64, 64);
+        TensorPreprocessor preprocessor = new TensorPreprocessor(64, 64);
+
+        long legacyNs = medianNs(() -> {
+            input.rewind();
+            bitmapChain(jpeg, preprocessor, input);
+        });
+        long fusedNs = medianNs(() -> {
+            input.rewind();
+            converter.toFloat(frame, input);
+        });
+
+        Log.i(TAG, String.format("JPEG/Bitmap/OpenCV chain: %.3f ms, fused YUV converter: %.3f ms (%.1fx)",
+                legacyNs / 1e6, fusedNs / 1e6, (double) legacyNs / fusedNs));
+        assertTrue(fusedNs < legacyNs);
+    }
+
+    /** The path MainActivity used before: decode, rotate, OpenCV resize, getPixels, normalize. */
+    private static void bitmapChain(byte[] jpeg, TensorPreprocessor preprocessor, FloatBuffer input) {
+        Bitmap decoded = BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length);
+        Matrix matrix = new Matrix();
+        matrix.postRotate(ROTATION);
+        Bitmap rotated = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), matrix, true);
+
+        Mat mat = new Mat();
+        Utils.bitmapToMat(rotated, mat);
+        Imgproc.resize(mat, mat, new Size(64, 64));
+        Bitmap resized = Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888);
+        Utils.matToBitmap(mat, resized);
+
+        resized.getPixels(preprocessor.getPixels(), 0, 64, 0, 0, 64, 64);
+        preprocessor.normalizeInto(input);
+
+        mat.release();
+        decoded.recycle();
+        rotated.recycle();
+        resized.recycle();
+    }
+
+    private static long medianNs(Runnable task) {
+        for (int i = 0; i < 5; i++) {
+            task.run();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            task.run();
+            samples[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2];
+    }
+}
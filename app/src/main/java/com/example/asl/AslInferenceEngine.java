@@ -0,0 +1,285 @@
+package com.example.asl;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.example.asl.core.InferenceBackend;
+import com.example.asl.core.ModelVariant;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+import org.tensorflow.lite.support.common.FileUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Locale;
+
+/**
+ * Long-lived TensorFlow Lite interpreter for the ASL classifier.
+ *
+ * <p>The model is mapped and warmed up once, and the input and output buffers are allocated
+ * once and reused for every frame. The owner creates the engine when it starts and closes it
+ * when it is destroyed; the engine itself is not thread-safe and must be driven from a single
+ * thread.
+ *
+ * <p>The interpreter can be resized to classify a micro-batch of up to {@code maxBatchSize}
+ * frames in one invocation. Storage for the largest batch is allocated up front and each batch
+ * size gets its own views of it, created the first time that size is used.
+ *
+ * <p>Both the float model and a full-integer quantized build are supported. A quantized input
+ * takes raw RGB bytes straight from the converter (its scale must be 1/255, so a byte is the
+ * pixel value), and only the 29 output scores are dequantized.
+ */
+final class AslInferenceEngine implements InferenceBackend {
+
+    private final ModelVariant variant;
+    private final Interpreter interpreter;
+    private final int[] inputShape;
+    private final int maxBatchSize;
+    private int batchSize = 1;
+
+    private final int frameInputBytes;
+    private final ByteBuffer inputStorage;
+    private final ByteBuffer[] inputViews;
+    private final FloatBuffer[] inputFloatViews;
+    private final boolean quantizedInput;
+    private final boolean signedInput;
+
+    private final int numClasses;
+    private final int frameOutputBytes;
+    private final ByteBuffer outputStorage;
+    private final ByteBuffer[] outputViews;
+    private final FloatBuffer[] outputFloatViews;
+    private final DataType outputType;
+    private final float outputScale;
+    private final int outputZeroPoint;
+    private final byte[][] quantizedOutputs;
+    private final float[][] probabilities;
+
+    private final long coldLoadNs;
+    private volatile long lastInferenceNs;
+    private volatile long totalInferenceNs;
+    private volatile long inferenceCount;
+
+    AslInferenceEngine(Context context, ModelVariant variant, int numThreads) throws IOException {
+        this(context, variant, numThreads, 1);
+    }
+
+    AslInferenceEngine(Context context, ModelVariant variant, int numThreads, int maxBatchSize) throws IOException {
+        long start = SystemClock.elapsedRealtimeNanos();
+        this.variant = variant;
+        this.maxBatchSize = maxBatchSize;
+
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(numThreads);
+        interpreter = new Interpreter(FileUtil.loadMappedFile(context, variant.assetPath), options);
+
+        Tensor input = interpreter.getInputTensor(0);
+        inputShape = input.shape();
+        frameInputBytes = input.numBytes();
+        inputStorage = ByteBuffer.allocateDirect(frameInputBytes * maxBatchSize).order(ByteOrder.nativeOrder());
+        inputViews = new ByteBuffer[maxBatchSize + 1];
+        inputFloatViews = new FloatBuffer[maxBatchSize + 1];
+        quantizedInput = input.dataType() == DataType.UINT8 || input.dataType() == DataType.INT8;
+        signedInput = input.dataType() == DataType.INT8;
+        if (quantizedInput) {
+            checkPixelQuantization(input);
+        }
+
+        Tensor output = interpreter.getOutputTensor(0);
+        numClasses = output.numElements();
+        frameOutputBytes = output.numBytes();
+        outputStorage = ByteBuffer.allocateDirect(frameOutputBytes * maxBatchSize).order(ByteOrder.nativeOrder());
+        outputViews = new ByteBuffer[maxBatchSize + 1];
+        outputFloatViews = new FloatBuffer[maxBatchSize + 1];
+        outputType = output.dataType();
+        outputScale = output.quantizationParams().getScale();
+        outputZeroPoint = output.quantizationParams().getZeroPoint();
+        quantizedOutputs = new byte[maxBatchSize + 1][];
+        probabilities = new float[maxBatchSize + 1][];
+        createViews(1);
+
+        // The first invocation allocates the interpreter's arenas; keep it out of the steady state
+        interpreter.run(inputViews[1], outputViews[1]);
+        coldLoadNs = SystemClock.elapsedRealtimeNanos() - start;
+    }
+
+    /**
+     * The converter writes pixel bytes into a quantized input unchanged, so the input must map
+     * byte values back to [0, 1] the same way the float model's normalization does.
+     */
+    private static void checkPixelQuantization(Tensor input) throws IOException {
+        float scale = input.quantizationParams().getScale();
+        int zeroPoint = input.quantizationParams().getZeroPoint();
+        int expectedZeroPoint = input.dataType() == DataType.INT8 ? -128 : 0;
+        if (Math.abs(scale * 255f - 1f) > 1e-3f || zeroPoint != expectedZeroPoint) {
+            throw new IOException("Unsupported input quantization: scale " + scale + ", zero point " + zeroPoint);
+        }
+    }
+
+    private void createViews(int size) {
+        if (inputViews[size] != null) {
+            return;
+        }
+        inputViews[size] = slice(inputStorage, frameInputBytes * size);
+        inputFloatViews[size] = inputViews[size].asFloatBuffer();
+        outputViews[size] = slice(outputStorage, frameOutputBytes * size);
+        outputFloatViews[size] = outputViews[size].asFloatBuffer();
+        if (outputType != DataType.FLOAT32) {
+            quantizedOutputs[size] = new byte[numClasses * size];
+        }
+        probabilities[size] = new float[numClasses * size];
+    }
+
+    private static ByteBuffer slice(ByteBuffer storage, int bytes) {
+        ByteBuffer view = storage.duplicate();
+        view.position(0);
+        view.limit(bytes);
+        return view.slice().order(ByteOrder.nativeOrder());
+    }
+
+    ModelVariant getVariant() {
+        return variant;
+    }
+
+    @Override
+    public boolean isQuantizedInput() {
+        return quantizedInput;
+    }
+
+    @Override
+    public boolean isSignedInput() {
+        return signedInput;
+    }
+
+    @Override
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public int getFrameInputBytes() {
+        return frameInputBytes;
+    }
+
+    /**
+     * Resizes the interpreter to classify {@code size} frames per {@link #run()}. Resizing
+     * reallocates the interpreter's tensors, so callers should change the size rarely.
+     */
+    @Override
+    public void setBatchSize(int size) {
+        if (size < 1 || size > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size " + size + " outside 1.." + maxBatchSize);
+        }
+        if (size == batchSize) {
+            return;
+        }
+        int[] shape = inputShape.clone();
+        shape[0] = size;
+        interpreter.resizeInput(0, shape);
+        interpreter.allocateTensors();
+        createViews(size);
+        batchSize = size;
+    }
+
+    /**
+     * Returns the reusable input buffer for the current batch, rewound and ready to be filled
+     * with {@link #getBatchSize()} [64, 64, 3] frames back to back before calling {@link #run()}.
+     */
+    @Override
+    public ByteBuffer getInputBuffer() {
+        ByteBuffer input = inputViews[batchSize];
+        input.rewind();
+        return input;
+    }
+
+    /** Float view of {@link #getInputBuffer()}, rewound; the same view is returned every time. */
+    @Override
+    public FloatBuffer getInputFloatBuffer() {
+        FloatBuffer input = inputFloatViews[batchSize];
+        input.rewind();
+        return input;
+    }
+
+    /**
+     * Runs the classifier on the current contents of the input buffer. The returned array holds
+     * {@link #getNumClasses()} scores per frame of the batch; it is owned by the engine and
+     * overwritten by the next call.
+     */
+    @Override
+    public float[] run() {
+        long start = SystemClock.elapsedRealtimeNanos();
+
+        ByteBuffer input = inputViews[batchSize];
+        ByteBuffer output = outputViews[batchSize];
+        float[] scores = probabilities[batchSize];
+        input.rewind();
+        output.rewind();
+        interpreter.run(input, output);
+        if (outputType == DataType.FLOAT32) {
+            FloatBuffer outputFloats = outputFloatViews[batchSize];
+            outputFloats.rewind();
+            outputFloats.get(scores);
+        } else {
+            byte[] quantized = quantizedOutputs[batchSize];
+            output.rewind();
+            output.get(quantized);
+            boolean unsigned = outputType == DataType.UINT8;
+            for (int i = 0; i < scores.length; i++) {
+                int q = unsigned ? quantized[i] & 0xFF : quantized[i];
+                scores[i] = (q - outputZeroPoint) * outputScale;
+            }
+        }
+
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+        lastInferenceNs = elapsed;
+        totalInferenceNs += elapsed;
+        inferenceCount++;
+        return scores;
+    }
+
+    /** Model mapping, interpreter creation and the warm-up invocation, in milliseconds. */
+    float getColdLoadMs() {
+        return coldLoadNs / 1e6f;
+    }
+
+    /** Duration of the last {@link #run()}, for the whole batch, in milliseconds. */
+    @Override
+    public float getLastInferenceMs() {
+        return lastInferenceNs / 1e6f;
+    }
+
+    /** Mean duration of {@link #run()} since the engine was created, in milliseconds. */
+    float getAverageInferenceMs() {
+        long count = inferenceCount;
+        return count == 0 ? 0f : totalInferenceNs / 1e6f / count;
+    }
+
+    long getInferenceCount() {
+        return inferenceCount;
+    }
+
+    @Override
+    public String summary() {
+        return String.format(Locale.US, "%s: cold load %.1f ms, %.2f ms/inference over %d batches",
+                variant.configName, getColdLoadMs(), getAverageInferenceMs(), getInferenceCount());
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+    }
+}
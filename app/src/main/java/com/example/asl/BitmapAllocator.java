@@ -0,0 +1,45 @@
+package com.example.asl;
+
+import android.graphics.Bitmap;
+
+import com.example.asl.core.BufferPool;
+
+/** Mutable Bitmaps for a {@link BufferPool}, keyed by their config's ordinal. */
+final class BitmapAllocator implements BufferPool.Allocator<Bitmap> {
+
+    static final BitmapAllocator INSTANCE = new BitmapAllocator();
+
+    private static final Bitmap.Config[] CONFIGS = Bitmap.Config.values();
+
+    private BitmapAllocator() {
+    }
+
+    static int format(Bitmap.Config config) {
+        return config.ordinal();
+    }
+
+    @Override
+    public Bitmap allocate(int width, int height, int format) {
+        return Bitmap.createBitmap(width, height, CONFIGS[format]);
+    }
+
+    @Override
+    public int width(Bitmap buffer) {
+        return buffer.getWidth();
+    }
+
+    @Override
+    public int height(Bitmap buffer) {
+        return buffer.getHeight();
+    }
+
+    @Override
+    public int format(Bitmap buffer) {
+        return buffer.getConfig().ordinal();
+    }
+
+    @Override
+    public void free(Bitmap buffer) {
+        buffer.recycle();
+    }
+}
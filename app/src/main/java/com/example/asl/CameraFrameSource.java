@@ -0,0 +1,40 @@
+package com.example.asl;
+
+import androidx.camera.core.ImageAnalysis;
+
+import com.example.asl.core.FrameSource;
+import com.example.asl.core.YuvFrame;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Feeds CameraX analysis images to a {@link FrameSource.Listener} on {@code executor}, closing
+ * each image as soon as the listener returns so the analyzer receives the next one.
+ */
+final class CameraFrameSource implements FrameSource {
+
+    private final ImageAnalysis imageAnalysis;
+    private final Executor executor;
+    private final YuvFrame frame = new YuvFrame();
+
+    CameraFrameSource(ImageAnalysis imageAnalysis, Executor executor) {
+        this.imageAnalysis = imageAnalysis;
+        this.executor = executor;
+    }
+
+    @Override
+    public void start(Listener listener) {
+        imageAnalysis.setAnalyzer(executor, image -> {
+            try {
+                listener.onFrame(CameraFrames.wrap(image, frame));
+            } finally {
+                image.close();
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        imageAnalysis.clearAnalyzer();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.asl;
+
+import androidx.camera.core.ImageProxy;
+
+import com.example.asl.core.YuvFrame;
+
+/**
+ * Adapters from CameraX analysis images to the platform-independent frame types.
+ */
+final class CameraFrames {
+
+    private CameraFrames() {
+    }
+
+    /** Points {@code frame} at the planes of a YUV_420_888 image; nothing is copied. */
+    static YuvFrame wrap(ImageProxy image, YuvFrame frame) {
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        return frame.set(image.getWidth(), image.getHeight(),
+                image.getImageInfo().getRotationDegrees(), image.getImageInfo().getTimestamp(),
+                planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(), planes[1].getRowStride(), planes[1].getPixelStride());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.asl;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+
+import com.example.asl.core.AutoTuner;
+import com.example.asl.core.ModelVariant;
+import com.example.asl.core.TuningProfile;
+
+import org.opencv.core.Core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds and remembers the fastest runtime configuration for this device.
+ *
+ * <p>The first run (and any run after {@link #invalidate}) times synthetic frames through every
+ * engine and thread count, at the default analysis resolution. The resolution itself is not
+ * tuned: conversion to the 64x64 model input and inference cost the same at any camera size.
+ * The result is stored in shared preferences under the device model and app version, so an app
+ * update or a different phone tunes again while ordinary starts just read it back.
+ */
+final class DeviceTuner {
+
+    private static final String TAG = "DeviceTuner";
+    private static final String PREFS = "auto_tuner";
+    private static final int WARMUP_FRAMES = 5;
+    private static final int TIMED_FRAMES = 30;
+
+    private static final String[] BACKENDS = {"tflite", "opencv_dnn"};
+    private static final int[] THREAD_COUNTS = {1, 2, 4};
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final String key;
+
+    DeviceTuner(Context context) {
+        this.context = context.getApplicationContext();
+        prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        key = Build.MANUFACTURER + " " + Build.MODEL + "@" + appVersion(context);
+    }
+
+    /** Returns the stored profile for this device and version, tuning first if there is none. */
+    TuningProfile load(ModelVariant variant, String dnnTarget) {
+        TuningProfile stored = TuningProfile.decode(prefs.getString(key, null));
+        if (stored != null) {
+            Log.i(TAG, "Using tuned profile for " + key + ": " + stored);
+            return stored;
+        }
+        TuningProfile tuned = tune(variant, dnnTarget);
+        if (tuned != null) {
+            prefs.edit().putString(key, tuned.encode()).apply();
+        }
+        return tuned;
+    }
+
+    /** Forgets the stored profile so the next {@link #load} tunes again. */
+    void invalidate() {
+        prefs.edit().remove(key).apply();
+    }
+
+    private TuningProfile tune(ModelVariant variant, String dnnTarget) {
+        long start = System.nanoTime();
+        AutoTuner tuner = new AutoTuner(WARMUP_FRAMES, TIMED_FRAMES);
+        AutoTuner.BackendFactory factory = profile -> {
+            Core.setNumThreads(profile.cvThreads);
+            return InferenceBackends.create(context, profile.backend, variant, profile.inferenceThreads, 1, dnnTarget);
+        };
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<TuningProfile> candidates = new ArrayList<>();
+        for (String backend : BACKENDS) {
+            for (int threads : THREAD_COUNTS) {
+                if (threads > cores) {
+                    break;
+                }
+                // TFLite leaves the remaining cores to OpenCV; the DNN engine is OpenCV's pool itself
+                int cvThreads = backend.equals("opencv_dnn") ? threads : Math.max(1, cores - threads);
+                candidates.add(new TuningProfile(backend, threads, cvThreads, 0f));
+            }
+        }
+        TuningProfile best = tuner.tune(candidates, factory);
+        if (best == null) {
+            Log.w(TAG, "No configuration could be tuned:\n" + tuner.report());
+            return null;
+        }
+
+        Log.i(TAG, String.format("Tuned %s in %.1f s, keeping %s:\n%s",
+                key, (System.nanoTime() - start) / 1e9, best, tuner.report()));
+        return best;
+    }
+
+    private static String appVersion(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+}
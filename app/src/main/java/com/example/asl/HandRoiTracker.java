@@ -0,0 +1,328 @@
+package com.example.asl;
+
+import com.example.asl.core.BufferPool;
+import com.example.asl.core.HandLocator;
+import com.example.asl.core.YuvFrame;
+import com.example.asl.core.YuvTensorConverter;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatArena;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.video.KalmanFilter;
+import org.opencv.video.Tracker;
+import org.opencv.video.TrackerMIL;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the signing hand and follows it from frame to frame so the classifier only sees a
+ * tight crop.
+ *
+ * <p>All work happens on a small RGB copy of the frame in unrotated sensor coordinates, so the
+ * resulting box can be handed straight to {@link YuvTensorConverter#setCrop} and the cost does
+ * not depend on the camera resolution. Every {@code detectInterval} frames (or whenever the
+ * hand is lost) the largest skin-coloured blob is detected in YCrCb space; in between, a
+ * {@link TrackerMIL} follows it. A constant-velocity {@link KalmanFilter} smooths the box
+ * centre and size so the crop does not jitter.
+ *
+ * <p>The work image for each width the scheduler asks for is kept in a small pool, so switching
+ * between scales does not allocate, and every Mat is released in {@link #close()} rather than
+ * left to the finalizer. The temporaries OpenCV hands back during an update, such as the
+ * contours and the Kalman results, are closed by a per-frame {@link MatArena}.
+ */
+final class HandRoiTracker implements HandLocator, AutoCloseable {
+
+    private static final int WORK_WIDTH = 160;
+    private static final double MIN_HAND_AREA = 0.03;
+    private static final double CROP_MARGIN = 1.3;
+
+    // Skin range in YCrCb, channel order Y, Cr, Cb
+    private static final Scalar SKIN_LOWER = new Scalar(0, 133, 77);
+    private static final Scalar SKIN_UPPER = new Scalar(255, 173, 127);
+
+    private final int detectInterval;
+
+    /** An RGB work image: a direct buffer the converter fills and a Mat over it. */
+    private static final class WorkImage {
+        final YuvTensorConverter converter;
+        final ByteBuffer buffer;
+        final Mat mat;
+
+        WorkImage(int width, int height) {
+            converter = new YuvTensorConverter(width, height);
+            mat = Mat.allocateDirect(height, width, CvType.CV_8UC3);
+            buffer = mat.getDirectBuffer();
+        }
+    }
+
+    private static final BufferPool.Allocator<WorkImage> WORK_IMAGES = new BufferPool.Allocator<WorkImage>() {
+        @Override
+        public WorkImage allocate(int width, int height, int format) {
+            return new WorkImage(width, height);
+        }
+
+        @Override
+        public int width(WorkImage buffer) {
+            return buffer.mat.cols();
+        }
+
+        @Override
+        public int height(WorkImage buffer) {
+            return buffer.mat.rows();
+        }
+
+        @Override
+        public int format(WorkImage buffer) {
+            return CvType.CV_8UC3;
+        }
+
+        @Override
+        public void free(WorkImage buffer) {
+            buffer.mat.close();
+        }
+    };
+
+    private final YuvFrame unrotated = new YuvFrame();
+    private final BufferPool<WorkImage> workImages = new BufferPool<>("Hand work image", WORK_IMAGES, 1);
+    private WorkImage workImage;
+    private Mat work;
+    private volatile float workScale = 1f; // Set from any thread while the tracking thread reads it
+    private int workWidth;
+    private int frameWidth;
+    private int frameHeight;
+    private double scale;
+
+    private final Mat ycrcb = new Mat();
+    private final Mat mask = new Mat();
+    private final Mat hierarchy = new Mat();
+    private final Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_ELLIPSE, new Size(5, 5));
+    private final List<MatOfPoint> contours = new ArrayList<>();
+
+    private Tracker tracker;
+    private final Rect tracked = new Rect();
+
+    private final KalmanFilter kalman = new KalmanFilter(6, 4, 0, CvType.CV_32F);
+    private final Mat measurement = new Mat(4, 1, CvType.CV_32F);
+    private final Mat initialState = new Mat(6, 1, CvType.CV_32F);
+    private final Mat initialErrorCov = new Mat(6, 6, CvType.CV_32F);
+    private final float[] measured = new float[4];
+    private final float[] state = new float[6];
+    private boolean kalmanReady;
+
+    private final Rect roi = new Rect();
+    private final MatArena frameArena = new MatArena();
+    private long frameIndex;
+
+    HandRoiTracker(int detectInterval) {
+        this.detectInterval = detectInterval;
+
+        // State (cx, cy, w, h, vx, vy); the centre moves with constant velocity, the size is constant
+        Mat transition = Mat.eye(6, 6, CvType.CV_32F);
+        transition.put(0, 4, 1.0);
+        transition.put(1, 5, 1.0);
+        kalman.set_transitionMatrix(transition);
+        Mat measurementMatrix = Mat.eye(4, 6, CvType.CV_32F);
+        kalman.set_measurementMatrix(measurementMatrix);
+
+        Mat processNoise = new Mat(6, 6, CvType.CV_32F);
+        Core.setIdentity(processNoise, new Scalar(1e-1));
+        kalman.set_processNoiseCov(processNoise);
+
+        Mat measurementNoise = new Mat(4, 4, CvType.CV_32F);
+        Core.setIdentity(measurementNoise, new Scalar(1.0));
+        kalman.set_measurementNoiseCov(measurementNoise);
+
+        // The filter holds its own references to the matrices' data
+        transition.close();
+        measurementMatrix.close();
+        processNoise.close();
+        measurementNoise.close();
+    }
+
+    /**
+     * Updates the hand position from {@code frame}. Returns whether a hand is being followed;
+     * if so, {@link #getRoi()} holds a square crop around it in sensor coordinates.
+     */
+    boolean update(YuvFrame frame) {
+        prepareWorkImage(frame);
+        try (MatArena scope = frameArena.open()) {
+            return track();
+        }
+    }
+
+    private boolean track() {
+        Rect detected = null;
+        if (tracker == null || frameIndex % detectInterval == 0) {
+            detected = detect();
+            if (detected != null) {
+                tracker = TrackerMIL.create();
+                tracker.init(work, detected);
+            }
+        }
+        frameIndex++;
+
+        Rect observed = detected;
+        if (observed == null && tracker != null) {
+            if (tracker.update(work, tracked)) {
+                observed = tracked;
+            } else {
+                tracker = null;
+            }
+        }
+        if (observed == null) {
+            kalmanReady = false;
+            return false;
+        }
+
+        smooth(observed);
+        toSensorRoi();
+        return true;
+    }
+
+    /** The square crop around the hand, in sensor coordinates; reused between calls. */
+    Rect getRoi() {
+        return roi;
+    }
+
+    @Override
+    public boolean locate(YuvFrame frame, int[] roi) {
+        if (!update(frame)) {
+            return false;
+        }
+        roi[0] = this.roi.x;
+        roi[1] = this.roi.y;
+        roi[2] = this.roi.width;
+        roi[3] = this.roi.height;
+        return true;
+    }
+
+    /**
+     * Shrinks the detection and tracking image to {@code scale} of its full width, trading some
+     * precision for less work while the device is under load. Takes effect on the next frame; safe
+     * from any thread.
+     */
+    void setWorkScale(float scale) {
+        workScale = scale;
+    }
+
+    @Override
+    public void reset() {
+        tracker = null;
+        kalmanReady = false;
+        frameIndex = 0;
+    }
+
+    private void prepareWorkImage(YuvFrame frame) {
+        int width = Math.round(WORK_WIDTH * workScale);
+        if (work == null || frame.width != frameWidth || frame.height != frameHeight || width != workWidth) {
+            frameWidth = frame.width;
+            frameHeight = frame.height;
+            workWidth = width;
+            scale = (double) workWidth / frameWidth;
+            int workHeight = (int) Math.round(frameHeight * scale);
+
+            if (workImage != null) {
+                workImages.giveBack(workImage);
+            }
+            workImage = workImages.lease(workWidth, workHeight, CvType.CV_8UC3);
+            workImage.converter.setCrop(0, 0, frameWidth, frameHeight);
+            work = workImage.mat;
+            reset();
+        }
+
+        // Track in sensor orientation so the box maps directly onto the YUV planes
+        unrotated.set(frame.width, frame.height, 0, frame.timestampNs,
+                frame.y, frame.yRowStride, frame.yPixelStride,
+                frame.u, frame.v, frame.uvRowStride, frame.uvPixelStride);
+        workImage.buffer.rewind();
+        workImage.converter.toRgb(unrotated, workImage.buffer);
+    }
+
+    private Rect detect() {
+        Imgproc.cvtColor(work, ycrcb, Imgproc.COLOR_RGB2YCrCb);
+        Core.inRange(ycrcb, SKIN_LOWER, SKIN_UPPER, mask);
+        Imgproc.morphologyEx(mask, mask, Imgproc.MORPH_OPEN, kernel);
+        Imgproc.findContours(mask, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        MatOfPoint largest = null;
+        double largestArea = MIN_HAND_AREA * work.rows() * work.cols();
+        for (MatOfPoint contour : contours) {
+            double area = Imgproc.contourArea(contour);
+            if (area >= largestArea) {
+                largestArea = area;
+                largest = contour;
+            }
+        }
+        Rect box = largest != null ? Imgproc.boundingRect(largest) : null;
+
+        // The contours themselves are closed with the frame's arena
+        contours.clear();
+        return box;
+    }
+
+    private void smooth(Rect observed) {
+        float cx = observed.x + observed.width / 2f;
+        float cy = observed.y + observed.height / 2f;
+        if (!kalmanReady) {
+            state[0] = cx;
+            state[1] = cy;
+            state[2] = observed.width;
+            state[3] = observed.height;
+            state[4] = 0f;
+            state[5] = 0f;
+            // The filter updates these in place, so refill them on every restart
+            initialState.put(0, 0, state);
+            Core.setIdentity(initialErrorCov);
+            kalman.set_statePost(initialState);
+            kalman.set_errorCovPost(initialErrorCov);
+            kalmanReady = true;
+        }
+
+        kalman.predict();
+        measured[0] = cx;
+        measured[1] = cy;
+        measured[2] = observed.width;
+        measured[3] = observed.height;
+        measurement.put(0, 0, measured);
+        kalman.correct(measurement).get(0, 0, state);
+    }
+
+    private void toSensorRoi() {
+        // Square box around the smoothed hand, with some margin, clamped to the frame
+        double side = Math.max(state[2], state[3]) * CROP_MARGIN / scale;
+        side = Math.min(side, Math.min(frameWidth, frameHeight));
+        double left = state[0] / scale - side / 2;
+        double top = state[1] / scale - side / 2;
+
+        roi.width = (int) side;
+        roi.height = (int) side;
+        roi.x = (int) Math.max(0, Math.min(left, frameWidth - side));
+        roi.y = (int) Math.max(0, Math.min(top, frameHeight - side));
+    }
+
+    @Override
+    public void close() {
+        if (workImage != null) {
+            workImages.giveBack(workImage);
+            workImage = null;
+            work = null;
+        }
+        workImages.close();
+        ycrcb.close();
+        mask.close();
+        hierarchy.close();
+        kernel.close();
+        measurement.close();
+        initialState.close();
+        initialErrorCov.close();
+        tracker = null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.asl;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.asl.core.BackendBenchmark;
+import com.example.asl.core.InferenceBackend;
+import com.example.asl.core.ModelVariant;
+import com.example.asl.dnn.OpenCvDnnBackend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Creates the inference backend named in the config: the TensorFlow Lite interpreter, OpenCV's
+ * DNN module running the same .tflite asset, or {@code auto}, which benchmarks both on this
+ * device and keeps the faster one.
+ *
+ * <p>The DNN engine runs on OpenCV's process-wide thread pool, which these factories leave
+ * alone; the caller sizes it with {@code Core.setNumThreads} before creating a backend, so
+ * the hand tracker and the engine share one setting.
+ */
+final class InferenceBackends {
+
+    private static final String TAG = "InferenceBackends";
+    private static final int BENCHMARK_WARMUP = 5;
+    private static final int BENCHMARK_ITERATIONS = 30;
+
+    private InferenceBackends() {
+    }
+
+    static InferenceBackend create(Context context, String kind, ModelVariant variant, int numThreads,
+                                   int maxBatchSize, String dnnTarget) throws IOException {
+        switch (kind) {
+            case "opencv_dnn":
+                return createDnn(context, variant, maxBatchSize, dnnTarget);
+            case "auto":
+                return createFastest(context, variant, numThreads, maxBatchSize, dnnTarget);
+            default:
+                return createTfLite(context, variant, numThreads, maxBatchSize);
+        }
+    }
+
+    private static InferenceBackend createTfLite(Context context, ModelVariant variant, int numThreads, int maxBatchSize) throws IOException {
+        AslInferenceEngine engine = new AslInferenceEngine(context, variant, numThreads, maxBatchSize);
+        Log.i(TAG, "TFLite " + variant.assetPath + " loaded in " + engine.getColdLoadMs() + " ms");
+        return engine;
+    }
+
+    private static InferenceBackend createDnn(Context context, ModelVariant variant, int maxBatchSize, String dnnTarget) throws IOException {
+        long start = System.nanoTime();
+        OpenCvDnnBackend backend = OpenCvDnnBackend.fromBuffer(variant.assetPath, readAsset(context, variant.assetPath),
+                maxBatchSize, OpenCvDnnBackend.targetFromConfig(dnnTarget));
+        Log.i(TAG, "OpenCV DNN " + variant.assetPath + " (" + dnnTarget + ") loaded in " + (System.nanoTime() - start) / 1e6f + " ms");
+        return backend;
+    }
+
+    /** Benchmarks both engines, unbatched and at the largest batch, and closes the slower one. */
+    private static InferenceBackend createFastest(Context context, ModelVariant variant, int numThreads,
+                                                  int maxBatchSize, String dnnTarget) throws IOException {
+        InferenceBackend tfLite = createTfLite(context, variant, numThreads, maxBatchSize);
+        InferenceBackend dnn;
+        try {
+            dnn = createDnn(context, variant, maxBatchSize, dnnTarget);
+        } catch (RuntimeException e) {
+            // OpenCV cannot import every TFLite model; fall back rather than fail
+            Log.w(TAG, "OpenCV DNN could not load " + variant.assetPath + ", using TFLite", e);
+            return tfLite;
+        }
+
+        BackendBenchmark benchmark = new BackendBenchmark(BENCHMARK_WARMUP, BENCHMARK_ITERATIONS);
+        for (int batchSize : new int[]{1, maxBatchSize}) {
+            benchmark.run("tflite", tfLite, batchSize);
+            benchmark.run("opencv_dnn", dnn, batchSize);
+            if (maxBatchSize == 1) {
+                break;
+            }
+        }
+        boolean dnnWins = benchmark.fastest().name.equals("opencv_dnn");
+        Log.i(TAG, "Backend benchmark, keeping " + (dnnWins ? "opencv_dnn" : "tflite") + ":\n" + benchmark.report());
+
+        (dnnWins ? tfLite : dnn).close();
+        return dnnWins ? dnn : tfLite;
+    }
+
+    private static byte[] readAsset(Context context, String path) throws IOException {
+        try (InputStream in = context.getAssets().open(path)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[64 * 1024];
+            for (int read = in.read(chunk); read >= 0; read = in.read(chunk)) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
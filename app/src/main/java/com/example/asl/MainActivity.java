@@ -2,20 +2,10 @@ package com.example.asl;
 
 
 import android.Manifest;
-import android.content.ContentValues;
-import android.content.Context;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Canvas;
-import android.graphics.Matrix;
-import android.graphics.Paint;
-import android.graphics.Rect;
-import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
-import android.os.Environment;
-import android.os.Handler;
-import android.provider.MediaStore;
+import android.os.PowerManager;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -23,43 +13,49 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.camera.core.CameraSelector;
-import androidx.camera.core.ImageCapture;
-import androidx.camera.core.ImageCaptureException;
-import androidx.camera.core.ImageProxy;
+import androidx.camera.core.ImageAnalysis;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 
-import com.example.asl.ml.AslModel;
+import com.example.asl.core.AslClasses;
+import com.example.asl.core.AutoTuner;
+import com.example.asl.core.BatchSizeController;
+import com.example.asl.core.CaptureRecord;
+import com.example.asl.core.EarlyExitCascade;
+import com.example.asl.core.FrameCoordinator;
+import com.example.asl.core.FramePipeline;
+import com.example.asl.core.FrameRateScheduler;
+import com.example.asl.core.FrameSource;
+import com.example.asl.core.InferenceBackend;
+import com.example.asl.core.ModelVariant;
+import com.example.asl.core.MotionGate;
+import com.example.asl.core.PersistenceQueue;
+import com.example.asl.core.RecognitionPipeline;
+import com.example.asl.core.SamplingPolicy;
+import com.example.asl.core.StagedRecognitionPipeline;
+import com.example.asl.core.StageProfiler;
+import com.example.asl.core.TuningProfile;
+import com.example.asl.core.YuvFrame;
 import com.google.common.util.concurrent.ListenableFuture;
 
 
 import org.opencv.android.OpenCVLoader;
-import org.opencv.android.Utils;
-import org.opencv.core.CvType;
-import org.opencv.core.Mat;
-import org.opencv.core.Size;
-import org.opencv.imgproc.Imgproc;
-import org.tensorflow.lite.DataType;
-import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
+import org.opencv.core.Core;
+import org.opencv.core.MatArena;
+import org.opencv.core.MatRegistry;
 
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.text.SimpleDateFormat;
-import java.util.Arrays;
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Locale;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -70,25 +66,43 @@ public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
     private static final int CAMERA_PERMISSION_CODE = 1001;
-    private boolean isCapturing = false;
+    private static final int INFERENCE_THREADS = 2;
+    private volatile boolean isCapturing = false;
     private ExecutorService cameraExecutor;
     private PreviewView previewView;
-    private OverlayView overlayView;
-    private ImageCapture imageCapture;
-
-
-    private Handler handler;
-    private Runnable captureRunnable;
+    private ImageAnalysis imageAnalysis;
+    private FrameSource frameSource;
+
+
+    private InferenceBackend inferenceEngine; // Owned by cameraExecutor
+    private InferenceBackend cascadeEngine; // Owned by cameraExecutor, null when the cascade is off
+    private volatile FramePipeline pipeline; // Owned by cameraExecutor, read by the staged sink thread
+    private MotionGate motionGate;
+    private HandRoiTracker handTracker; // Owned by cameraExecutor
+    private SamplingPolicy samplingPolicy;
+    private PersistenceQueue<CaptureRecord> captureQueue;
+    private MediaStoreCaptureWriter captureWriter;
+    private StageProfiler profiler;
+    private FrameRateScheduler frameScheduler; // Null when disabled
+    private FrameCoordinator frameCoordinator;
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+    private DeviceTuner deviceTuner; // Null when auto-tuning is disabled
+    private volatile AutoTuner.DriftMonitor driftMonitor; // Set on cameraExecutor, cleared once drift is reported
+
+
+    private ModelVariant modelVariant;
+    private String backendKind;
+    private String dnnTarget;
+    private int maxBatchSize;
+    private long latencyBudgetNs;
+    private int voteWindow;
+    private float driftThreshold;
 
 
     private TextView resultTextView; // TextView to display predictions
 
 
-    private final List<String> classLabels = Arrays.asList(
-            "A", "B", "C", "D", "E", "F", "G", "H", "I", "J",
-            "K", "L", "M", "N", "O", "P", "Q", "R", "S", "T",
-            "U", "V", "W", "X", "Y", "Z", "del", "nothing", "space"
-    );
+    private final List<String> classLabels = AslClasses.LABELS;
 
 
     @Override
@@ -103,6 +117,10 @@ public class MainActivity extends AppCompatActivity {
             Toast.makeText(this, "OpenCV initialization failed", Toast.LENGTH_LONG).show();
             return;
         }
+        if (getResources().getBoolean(R.bool.mat_leak_reporting)) {
+            MatArena.setLeakReporter(site -> Log.w(TAG, "Mat freed by the finalizer instead of closed", site));
+        }
+        MatRegistry.setTracking(getResources().getBoolean(R.bool.mat_registry_tracking));
 
 
         // Request necessary permissions
@@ -116,26 +134,76 @@ public class MainActivity extends AppCompatActivity {
         cameraExecutor = Executors.newSingleThreadExecutor();
 
 
-        // Setup Start and Stop buttons
-        Button startButton = findViewById(R.id.startButton);
-        Button stopButton = findViewById(R.id.stopButton);
-        previewView = findViewById(R.id.previewView);
-        resultTextView = findViewById(R.id.resultTextView); // Initialize resultTextView
+        // Gate inference on motion; null when disabled
+        if (getResources().getBoolean(R.bool.motion_gate_enabled)) {
+            motionGate = new MotionGate(32, 24,
+                    getResources().getInteger(R.integer.motion_gate_pixel_threshold),
+                    getResources().getInteger(R.integer.motion_gate_changed_percent) / 100f,
+                    getResources().getInteger(R.integer.motion_gate_max_skipped_frames));
+        }
 
 
-        // Initialize the handler and captureRunnable
-        handler = new Handler();
+        // Follow the hand so the classifier sees a tight crop; null when disabled
+        if (getResources().getBoolean(R.bool.hand_roi_enabled)) {
+            handTracker = new HandRoiTracker(getResources().getInteger(R.integer.hand_roi_detect_interval));
+        }
 
 
-        captureRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (isCapturing) {
-                    capturePhoto();
-                    handler.postDelayed(this, 3000); // Capture every 3 seconds
-                }
+        // Save sampled frames from a background writer so disk I/O never blocks the analyzer
+        samplingPolicy = SamplingPolicy.fromConfig(
+                getString(R.string.capture_sampling_policy),
+                getResources().getInteger(R.integer.capture_sampling_every_nth),
+                getResources().getInteger(R.integer.capture_sampling_confidence_percent) / 100f);
+        captureWriter = new MediaStoreCaptureWriter(this);
+        captureQueue = new PersistenceQueue<>("CaptureWriter",
+                getResources().getInteger(R.integer.capture_queue_capacity),
+                getResources().getInteger(R.integer.capture_batch_size),
+                captureWriter);
+
+
+        // Per-stage latency histograms, toggled by long-pressing the result text
+        profiler = new StageProfiler(Core::getTickCount, Core.getTickFrequency(),
+                getResources().getBoolean(R.bool.profiling_enabled));
+
+
+        // Bound the frames between arrival and prediction, and withhold results once Stop is pressed
+        frameCoordinator = new FrameCoordinator(getResources().getInteger(R.integer.frames_in_flight_max),
+                getResources().getInteger(R.integer.frame_max_age_ms) * 1_000_000L);
+
+
+        // Lower the analysis rate, then the working resolution, under load or heat; null when disabled
+        if (getResources().getBoolean(R.bool.frame_scheduler_enabled)) {
+            frameScheduler = new FrameRateScheduler(getResources().getInteger(R.integer.frame_scheduler_max_fps),
+                    getResources().getInteger(R.integer.frame_scheduler_min_fps), this::onRateChange);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                thermalListener = status -> frameScheduler.setThermalStatus(status, System.nanoTime());
+                getSystemService(PowerManager.class).addThermalStatusListener(cameraExecutor, thermalListener);
             }
-        };
+        }
+
+
+        // Pick engine and threads from the device's tuned profile; null when disabled
+        if (getResources().getBoolean(R.bool.auto_tune_enabled)) {
+            deviceTuner = new DeviceTuner(this);
+            driftThreshold = getResources().getInteger(R.integer.auto_tune_drift_percent) / 100f;
+        }
+
+
+        // Load the model once and build the pipeline around it, on the same thread that will run it
+        modelVariant = ModelVariant.fromConfig(getString(R.string.model_variant));
+        backendKind = getString(R.string.inference_backend);
+        dnnTarget = getString(R.string.dnn_target);
+        maxBatchSize = getResources().getInteger(R.integer.batch_max_size);
+        latencyBudgetNs = getResources().getInteger(R.integer.batch_latency_budget_ms) * 1_000_000L;
+        voteWindow = getResources().getInteger(R.integer.vote_window);
+        cameraExecutor.execute(() -> loadPipeline(false));
+
+
+        // Setup Start and Stop buttons
+        Button startButton = findViewById(R.id.startButton);
+        Button stopButton = findViewById(R.id.stopButton);
+        previewView = findViewById(R.id.previewView);
+        resultTextView = findViewById(R.id.resultTextView); // Initialize resultTextView
 
 
         // Start the camera
@@ -144,9 +212,14 @@ public class MainActivity extends AppCompatActivity {
 
         startButton.setOnClickListener(v -> {
             if (!isCapturing) {
+                profiler.reset();
+                cameraExecutor.execute(() -> {
+                    if (pipeline != null) {
+                        pipeline.reset();
+                    }
+                });
                 isCapturing = true;
-                Toast.makeText(this, "Image capturing started", Toast.LENGTH_LONG).show();
-                handler.post(captureRunnable);
+                Toast.makeText(this, "Recognition started", Toast.LENGTH_LONG).show();
             }
         });
 
@@ -154,8 +227,23 @@ public class MainActivity extends AppCompatActivity {
         stopButton.setOnClickListener(v -> {
             if (isCapturing) {
                 isCapturing = false;
-                handler.removeCallbacks(captureRunnable);
-                Toast.makeText(this, "Image capturing stopped", Toast.LENGTH_LONG).show();
+                frameCoordinator.cancel();
+                cameraExecutor.execute(() -> {
+                    if (pipeline != null) {
+                        Log.i(TAG, "Recognition stopped\n" + pipeline.summary());
+                        Log.i(TAG, "Inference: " + inferenceEngine.summary());
+                        Log.i(TAG, "Mats: " + MatRegistry.getLiveCount() + " live, "
+                                + MatRegistry.getFinalizedCount() + " left to the finalizer");
+                        if (MatRegistry.isTracking()) {
+                            dumpMatRegistry();
+                        }
+                    }
+                });
+                if (profiler.isEnabled()) {
+                    Log.i(TAG, "Stage latency:\n" + profiler.summary());
+                    cameraExecutor.execute(this::dumpProfile);
+                }
+                Toast.makeText(this, "Recognition stopped", Toast.LENGTH_LONG).show();
             }
 
 
@@ -164,322 +252,253 @@ public class MainActivity extends AppCompatActivity {
         });
 
 
-        // Initialize and add the overlay view
-        //overlayView = new OverlayView(this);
-//        addContentView(overlayView, new PreviewView.LayoutParams(
-//                PreviewView.LayoutParams.MATCH_PARENT,
-//                PreviewView.LayoutParams.MATCH_PARENT));
-    }
-
-
-    private void startCamera() {
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
-            ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
-            cameraProviderFuture.addListener(() -> {
-                try {
-                    ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
-                    CameraSelector cameraSelector = new CameraSelector.Builder()
-                            .requireLensFacing(CameraSelector.LENS_FACING_BACK)
-                            .build();
-
-
-                    androidx.camera.core.Preview preview = new androidx.camera.core.Preview.Builder().build();
-                    preview.setSurfaceProvider(previewView.getSurfaceProvider());
-
-
-                    // Initialize ImageCapture for high-quality image capture
-                    imageCapture = new ImageCapture.Builder()
-                            .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
-                            .setTargetRotation(getWindowManager().getDefaultDisplay().getRotation())
-                            .build();
+        startButton.setOnLongClickListener(v -> {
+            if (deviceTuner == null) {
+                return false;
+            }
+            Toast.makeText(this, "Re-tuning for this device", Toast.LENGTH_SHORT).show();
+            cameraExecutor.execute(this::retune);
+            return true;
+        });
 
 
-                    // Bind to lifecycle
-                    cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageCapture);
+        resultTextView.setOnLongClickListener(v -> {
+            profiler.setEnabled(!profiler.isEnabled());
+            Toast.makeText(this, profiler.isEnabled() ? "Profiling on" : "Profiling off", Toast.LENGTH_SHORT).show();
+            return true;
+        });
+    }
 
 
-                } catch (Exception e) {
-                    Log.e(TAG, "Use case binding failed", e);
-                }
-            }, ContextCompat.getMainExecutor(this));
-        } else {
-            Toast.makeText(this, "Camera permission is required to start camera", Toast.LENGTH_LONG).show();
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        isCapturing = false;
+        if (frameSource != null) {
+            frameSource.stop();
+        }
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            getSystemService(PowerManager.class).removeThermalStatusListener(thermalListener);
+        }
+        if (cameraExecutor != null) {
+            cameraExecutor.execute(this::closeInferenceEngine);
+            if (handTracker != null) {
+                cameraExecutor.execute(handTracker::close);
+            }
+            cameraExecutor.shutdown();
+        }
+        if (captureQueue != null) {
+            // The queue thread may still be encoding into a pooled Bitmap, so it frees the pool itself
+            MediaStoreCaptureWriter writer = captureWriter;
+            captureQueue.close(() -> {
+                Log.i(TAG, writer.summary());
+                writer.close();
+            });
         }
     }
 
 
-    private void capturePhoto() {
-        if (imageCapture == null) {
-            return;
+    private void loadPipeline(boolean retune) {
+        TuningProfile profile = null;
+        if (deviceTuner != null) {
+            if (retune) {
+                deviceTuner.invalidate();
+            }
+            profile = deviceTuner.load(modelVariant, dnnTarget);
         }
 
-
-        imageCapture.takePicture(cameraExecutor, new ImageCapture.OnImageCapturedCallback() {
-            @Override
-            public void onCaptureSuccess(@NonNull ImageProxy image) {
-                // Convert ImageProxy to Bitmap
-                Bitmap bitmap = imageProxyToBitmap(image);
-
-
-                // Rotate the bitmap if necessary
-                bitmap = rotateBitmap(bitmap, image.getImageInfo().getRotationDegrees());
-
-
-                // Crop the bitmap to the area of the overlay box
-                //Bitmap croppedBitmap = cropBitmapToOverlay(bitmap);
-
-
-                // Resize the cropped bitmap to 64x64 pixels using OpenCV
-                Bitmap resizedBitmap = resizeBitmapWithOpenCV(bitmap, 64, 64);
-
-
-                // Run prediction on the resized image
-                runModel(resizedBitmap);
-
-
-                // Save the resized bitmap to a file
-                saveBitmap(resizedBitmap);
-                saveBitmapToFile(resizedBitmap);
-
-
-                // Close the image to release resources
-                image.close();
-
-
-                // Clean up the bitmaps
-                if (!bitmap.isRecycled()) {
-                    bitmap.recycle();
-                }
-//                if (!croppedBitmap.isRecycled()) {
-//                    croppedBitmap.recycle();
-//                }
-                if (!resizedBitmap.isRecycled()) {
-                    resizedBitmap.recycle();
+        try {
+            if (profile != null) {
+                Core.setNumThreads(profile.cvThreads);
+                inferenceEngine = InferenceBackends.create(this, profile.backend, modelVariant,
+                        profile.inferenceThreads, maxBatchSize, dnnTarget);
+            } else {
+                // The DNN engine runs on OpenCV's pool, so size it like the interpreter's
+                if (!backendKind.equals("tflite")) {
+                    Core.setNumThreads(INFERENCE_THREADS);
                 }
+                inferenceEngine = InferenceBackends.create(this, backendKind, modelVariant,
+                        INFERENCE_THREADS, maxBatchSize, dnnTarget);
             }
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to load model", e);
+            return;
+        }
 
+        // Either everything on this thread, or capture here and the other stages on their own threads
+        BatchSizeController batchController = new BatchSizeController(maxBatchSize, latencyBudgetNs);
+        FramePipeline newPipeline;
+        if (getResources().getBoolean(R.bool.staged_pipeline_enabled)) {
+            StagedRecognitionPipeline staged = new StagedRecognitionPipeline(inferenceEngine, classLabels, batchController,
+                    voteWindow, profiler, this::showResult, getResources().getInteger(R.integer.staged_pipeline_ring_capacity));
+            // The stage threads have no caller to throw to, so report their failures here
+            staged.setErrorListener((stage, error, failures) ->
+                    Log.e(TAG, stage + " stage failed " + failures + " time(s) since the last report", error));
+            newPipeline = staged;
+        } else {
+            newPipeline = new RecognitionPipeline(inferenceEngine, classLabels, batchController, voteWindow, profiler,
+                    this::showResult);
+        }
+        newPipeline.setMotionGate(motionGate);
+        newPipeline.setHandLocator(handTracker);
+        newPipeline.setCapture(samplingPolicy, captureQueue);
+        newPipeline.setScheduler(frameScheduler);
+        newPipeline.setCoordinator(frameCoordinator);
+        if (getResources().getBoolean(R.bool.cascade_enabled)) {
+            newPipeline.setCascade(loadCascade());
+        }
+        newPipeline.start();
+        pipeline = newPipeline;
 
-            @Override
-            public void onError(@NonNull ImageCaptureException exception) {
-                Log.e(TAG, "Photo capture failed: " + exception.getMessage(), exception);
-            }
-        });
-    }
-
-
-    private Bitmap imageProxyToBitmap(ImageProxy image) {
-        ByteBuffer buffer = image.getPlanes()[0].getBuffer();
-        byte[] bytes = new byte[buffer.remaining()];
-        buffer.get(bytes);
-        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+        // Watch for the device slowing down against the tuned measurement
+        driftMonitor = profile != null ? new AutoTuner.DriftMonitor(profile.msPerFrame, driftThreshold) : null;
     }
 
 
-    private Bitmap rotateBitmap(Bitmap bitmap, int degrees) {
-        if (degrees == 0) {
-            return bitmap;
+    /** The small first-stage model, or null to run every frame through the full one. */
+    private EarlyExitCascade loadCascade() {
+        try {
+            cascadeEngine = new AslInferenceEngine(this, ModelVariant.TINY_GRAY32, 1);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Cascade model unavailable, using the full model only", e);
+            return null;
         }
-        Matrix matrix = new Matrix();
-        matrix.postRotate(degrees);
-        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        return new EarlyExitCascade(cascadeEngine,
+                getResources().getInteger(R.integer.cascade_confidence_percent) / 100f,
+                getResources().getInteger(R.integer.cascade_margin_percent) / 100f,
+                getResources().getInteger(R.integer.cascade_max_accuracy_delta_permille) / 1000f,
+                getResources().getInteger(R.integer.cascade_audit_every));
     }
 
 
-    private Bitmap cropBitmapToOverlay(Bitmap bitmap) {
-        Rect overlayRect = overlayView.getOverlayRect();
-        return Bitmap.createBitmap(bitmap, overlayRect.left, overlayRect.top, overlayRect.width(), overlayRect.height());
+    /** Drops the stored profile and tunes again; runs on the executor, so frames wait meanwhile. */
+    private void retune() {
+        closeInferenceEngine();
+        loadPipeline(true);
     }
 
 
-    private Bitmap resizeBitmapWithOpenCV(Bitmap bitmap, int width, int height) {
-        Mat mat = new Mat();
-        Utils.bitmapToMat(bitmap, mat);
-        Imgproc.resize(mat, mat, new Size(width, height));
-        Bitmap resizedBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        Utils.matToBitmap(mat, resizedBitmap);
-        return resizedBitmap;
+    /** Called on the pipeline's thread: the executor, or the sink stage's thread when staged. */
+    private void showResult(String prediction, float confidence, String details) {
+        FramePipeline current = pipeline;
+        AutoTuner.DriftMonitor monitor = driftMonitor;
+        if (current != null && monitor != null && monitor.record(current.getLastInferenceMsPerFrame())) {
+            // Stop watching until the re-tuned pipeline brings its own monitor, so only one re-tune is queued
+            driftMonitor = null;
+            Log.w(TAG, "Inference slower than tuned, re-tuning: " + monitor.summary());
+            cameraExecutor.execute(this::retune);
+        }
+        runOnUiThread(() -> resultTextView.setText("Prediction: " + prediction + " (" + String.format("%.2f", confidence * 100) + "%)\n" + details));
     }
 
 
-    private void saveBitmap(Bitmap bitmap) {
-        // Placeholder function if additional bitmap saving is required
+    /**
+     * Scheduler events, on the camera executor, the staged Infer thread or the thermal callback;
+     * the log is what telemetry collects. The work scale is a volatile the tracking thread reads
+     * per frame, so it is set directly from whichever thread reports the change.
+     */
+    private void onRateChange(FrameRateScheduler.RateChange change) {
+        Log.i(TAG, "Analysis rate: " + change);
+        if (handTracker != null) {
+            handTracker.setWorkScale(change.resolutionScale);
+        }
     }
 
 
-    private void runModel(Bitmap bitmap) {
+    /** Writes the live Mats, by type and creation site, next to the stage histograms. */
+    private void dumpMatRegistry() {
+        File file = new File(getExternalFilesDir("profiles"), "mat_registry_" + System.currentTimeMillis() + ".txt");
         try {
-            AslModel model = AslModel.newInstance(this);
-
-
-            // Prepare the input buffer
-            TensorBuffer inputFeature0 = TensorBuffer.createFixedSize(new int[]{1, 64, 64, 3}, DataType.FLOAT32);
-            ByteBuffer byteBuffer = preprocessImage(bitmap);
-            inputFeature0.loadBuffer(byteBuffer);
-
-
-            // Perform inference
-            AslModel.Outputs outputs = model.process(inputFeature0);
-            TensorBuffer outputFeature0 = outputs.getOutputFeature0AsTensorBuffer();
-
-
-            // Get the prediction
-            float[] outputArray = outputFeature0.getFloatArray();
-            int maxIndex = getMaxIndex(outputArray);
-            String prediction = classLabels.get(maxIndex);
-            float confidence = outputArray[maxIndex];
-
-
-            // Display prediction
-            runOnUiThread(() -> resultTextView.setText("Prediction: " + prediction + " (" + String.format("%.2f", confidence * 100) + "%)"));
-
-
-            model.close();
-        } catch (Exception e) {
-            Log.e(TAG, "Model inference failed", e);
+            MatRegistry.dump(file);
+            Log.i(TAG, "Live Mats written to " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write live Mats", e);
         }
     }
 
 
-    private ByteBuffer preprocessImage(Bitmap bitmap) {
-        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 64 * 3 * 4);
-        buffer.order(ByteOrder.nativeOrder());
-
-
-        int[] pixels = new int[64 * 64];
-        bitmap.getPixels(pixels, 0, 64, 0, 0, 64, 64);
-
-
-        for (int pixel : pixels) {
-            buffer.putFloat(((pixel >> 16) & 0xFF) / 255.0f);
-            buffer.putFloat(((pixel >> 8) & 0xFF) / 255.0f);
-            buffer.putFloat((pixel & 0xFF) / 255.0f);
+    /** Writes the stage histograms to the app's external files, where lab devices are collected from. */
+    private void dumpProfile() {
+        File file = new File(getExternalFilesDir("profiles"), "stage_latency_" + System.currentTimeMillis() + ".json");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(profiler.toJson(Build.MANUFACTURER + " " + Build.MODEL).getBytes(StandardCharsets.UTF_8));
+            Log.i(TAG, "Stage latency written to " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write stage latency", e);
         }
-        return buffer;
     }
 
 
-    private int getMaxIndex(float[] probabilities) {
-        int maxIndex = 0;
-        float maxProbability = probabilities[0];
-        for (int i = 1; i < probabilities.length; i++) {
-            if (probabilities[i] > maxProbability) {
-                maxProbability = probabilities[i];
-                maxIndex = i;
-            }
+    private void closeInferenceEngine() {
+        // Stop any stage threads before the backends they use are closed
+        if (pipeline != null) {
+            pipeline.close();
+            pipeline = null;
+        }
+        driftMonitor = null;
+        if (inferenceEngine != null) {
+            inferenceEngine.close();
+            inferenceEngine = null;
+        }
+        if (cascadeEngine != null) {
+            cascadeEngine.close();
+            cascadeEngine = null;
         }
-        return maxIndex;
     }
 
 
-    private void saveBitmapToFile(Bitmap bitmap) {
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.Q) {
-            ContentValues values = new ContentValues();
-            values.put(MediaStore.Images.Media.DISPLAY_NAME, "asl_image_" + System.currentTimeMillis() + ".png");
-            values.put(MediaStore.Images.Media.MIME_TYPE, "image/png");
-            values.put(MediaStore.Images.Media.RELATIVE_PATH, Environment.DIRECTORY_PICTURES + "/ASL_Images");
+    private void startCamera() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+            ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
+            cameraProviderFuture.addListener(() -> {
+                try {
+                    ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+                    CameraSelector cameraSelector = new CameraSelector.Builder()
+                            .requireLensFacing(CameraSelector.LENS_FACING_BACK)
+                            .build();
+
 
+                    androidx.camera.core.Preview preview = new androidx.camera.core.Preview.Builder().build();
+                    preview.setSurfaceProvider(previewView.getSurfaceProvider());
 
-            Uri uri = getContentResolver().insert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, values);
-            if (uri != null) {
-                try (OutputStream out = getContentResolver().openOutputStream(uri)) {
-                    if (out != null) {
-                        bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
-                        runOnUiThread(() -> Toast.makeText(this, "Image saved: " + uri.toString(), Toast.LENGTH_LONG).show());
+
+                    // Stream frames to the analyzer, keeping only the latest one while it is busy
+                    imageAnalysis = new ImageAnalysis.Builder()
+                            .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                            .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
+                            .setTargetRotation(getWindowManager().getDefaultDisplay().getRotation())
+                            .build();
+                    if (frameSource != null) {
+                        frameSource.stop();
                     }
-                } catch (IOException e) {
-                    Log.e(TAG, "Failed to save image", e);
-                }
-            } else {
-                Log.e(TAG, "Failed to create new MediaStore record.");
-            }
-        } else {
-            File directory = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_PICTURES), "ASL_Images");
-            if (!directory.exists()) {
-                directory.mkdirs();
-            }
+                    frameSource = new CameraFrameSource(imageAnalysis, cameraExecutor);
+                    frameSource.start(this::analyzeFrame);
 
 
-            String fileName = "asl_image_" + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".png";
-            File file = new File(directory, fileName);
+                    // Bind to lifecycle, replacing the use cases of an earlier resolution
+                    cameraProvider.unbindAll();
+                    cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
 
 
-            runOnUiThread(() -> {
-                try (FileOutputStream out = new FileOutputStream(file)) {
-                    bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
-                    Toast.makeText(this, "Image saved: " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
-                } catch (IOException e) {
-                    Log.e(TAG, "Failed to save image", e);
+                } catch (Exception e) {
+                    Log.e(TAG, "Use case binding failed", e);
                 }
-            });
+            }, ContextCompat.getMainExecutor(this));
+        } else {
+            Toast.makeText(this, "Camera permission is required to start camera", Toast.LENGTH_LONG).show();
         }
     }
 
 
-    // Custom Overlay View class
-    private class OverlayView extends View {
-        private Paint paint;
-        private Rect overlayRect;
-
-
-        public OverlayView(Context context) {
-            super(context);
-            init();
-        }
-
-
-        private void init() {
-            paint = new Paint();
-            paint.setColor(android.graphics.Color.GREEN);
-            paint.setStyle(Paint.Style.STROKE);
-            paint.setStrokeWidth(5f);
-        }
-
-
-        @Override
-        protected void onDraw(Canvas canvas) {
-            super.onDraw(canvas);
-
-
-            // Define the box size as a percentage of the minimum dimension (width or height)
-            float boxSizePercentage = 0.9f; // Adjusted to 90% for a large square
-
-
-            // Get the dimensions of the canvas
-            float canvasWidth = canvas.getWidth();
-            float canvasHeight = canvas.getHeight();
-
-
-            // Calculate the minimum dimension to ensure the box is square
-            float minDimension = Math.min(canvasWidth, canvasHeight);
-
-
-            // Calculate the box size
-            float boxSize = minDimension * boxSizePercentage;
-
-
-            // Calculate the coordinates to center the box
-            float centerX = canvasWidth / 2f;
-            float centerY = canvasHeight / 2f;
-
-
-            float left = centerX - boxSize / 2f;
-            float top = centerY - boxSize / 2f;
-            float right = centerX + boxSize / 2f;
-            float bottom = centerY + boxSize / 2f;
-
-
-            // Draw the overlay rectangle
-            canvas.drawRect(left, top, right, bottom, paint);
-
-
-            // Store the overlay rectangle for use in cropping
-            overlayRect = new Rect((int) left, (int) top, (int) right, (int) bottom);
+    private void analyzeFrame(YuvFrame frame) {
+        FramePipeline current = pipeline;
+        if (!isCapturing || current == null) {
+            return;
         }
-
-
-        // Provide a method to get the overlay rectangle
-        public Rect getOverlayRect() {
-            return overlayRect;
+        try {
+            current.onFrame(frame);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Model inference failed", e);
         }
     }
 }
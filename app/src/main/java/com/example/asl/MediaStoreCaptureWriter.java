@@ -0,0 +1,171 @@
+package com.example.asl;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.graphics.Bitmap;
+import android.media.MediaScannerConnection;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.RemoteException;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.annotation.RequiresApi;
+
+import com.example.asl.core.BufferPool;
+import com.example.asl.core.CaptureRecord;
+import com.example.asl.core.PersistenceQueue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes queued captures as PNGs under Pictures/ASL_Images. On Q and later every batch costs
+ * two MediaStore round trips (insert pending rows, then publish them) instead of one per image;
+ * on older releases the files are written directly and scanned in one call.
+ *
+ * <p>Captures are encoded from a Bitmap leased from a small pool, so saving does not allocate
+ * a new Bitmap per image. {@link #close()} recycles them, so call it from the queue thread once
+ * it has drained, through {@link PersistenceQueue#close(Runnable)}.
+ */
+final class MediaStoreCaptureWriter implements PersistenceQueue.BatchWriter<CaptureRecord>, AutoCloseable {
+
+    private static final String TAG = "MediaStoreCaptureWriter";
+    private static final String ALBUM = "ASL_Images";
+
+    private final Context context;
+    private final ContentResolver resolver;
+    private final BufferPool<Bitmap> bitmaps = new BufferPool<>("Capture bitmap", BitmapAllocator.INSTANCE, 1);
+
+    MediaStoreCaptureWriter(Context context) {
+        this.context = context.getApplicationContext();
+        this.resolver = this.context.getContentResolver();
+    }
+
+    /** Saves {@code batch} and hands every record's pixels back to the pipeline's pool. */
+    @Override
+    public int write(List<CaptureRecord> batch) {
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                return writeToMediaStore(batch);
+            }
+            return writeToFiles(batch);
+        } finally {
+            for (CaptureRecord record : batch) {
+                record.recycle();
+            }
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    private int writeToMediaStore(List<CaptureRecord> batch) {
+        ArrayList<ContentProviderOperation> inserts = new ArrayList<>(batch.size());
+        for (CaptureRecord record : batch) {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.Images.Media.DISPLAY_NAME, record.fileName());
+            values.put(MediaStore.Images.Media.MIME_TYPE, "image/png");
+            values.put(MediaStore.Images.Media.RELATIVE_PATH, Environment.DIRECTORY_PICTURES + "/" + ALBUM);
+            values.put(MediaStore.Images.Media.IS_PENDING, 1);
+            inserts.add(ContentProviderOperation.newInsert(MediaStore.Images.Media.EXTERNAL_CONTENT_URI)
+                    .withValues(values)
+                    .build());
+        }
+
+        ContentProviderResult[] results;
+        try {
+            results = resolver.applyBatch(MediaStore.AUTHORITY, inserts);
+        } catch (RemoteException | OperationApplicationException e) {
+            Log.e(TAG, "Failed to create MediaStore records", e);
+            return 0;
+        }
+
+        // Publish the rows whose image was written and delete the others
+        ArrayList<ContentProviderOperation> updates = new ArrayList<>(results.length);
+        int written = 0;
+        for (int i = 0; i < results.length; i++) {
+            Uri uri = results[i].uri;
+            if (uri == null) {
+                continue;
+            }
+            boolean ok = false;
+            try (OutputStream out = resolver.openOutputStream(uri)) {
+                ok = out != null && compress(batch.get(i), out);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save image " + uri, e);
+            }
+            if (ok) {
+                updates.add(ContentProviderOperation.newUpdate(uri)
+                        .withValue(MediaStore.Images.Media.IS_PENDING, 0)
+                        .build());
+                written++;
+            } else {
+                updates.add(ContentProviderOperation.newDelete(uri).build());
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            try {
+                resolver.applyBatch(MediaStore.AUTHORITY, updates);
+            } catch (RemoteException | OperationApplicationException e) {
+                Log.e(TAG, "Failed to publish MediaStore records", e);
+                return 0;
+            }
+        }
+        return written;
+    }
+
+    private int writeToFiles(List<CaptureRecord> batch) {
+        File directory = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_PICTURES), ALBUM);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Failed to create " + directory);
+            return 0;
+        }
+
+        String[] paths = new String[batch.size()];
+        int written = 0;
+        for (CaptureRecord record : batch) {
+            File file = new File(directory, record.fileName());
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                if (compress(record, out)) {
+                    paths[written++] = file.getAbsolutePath();
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save image " + file, e);
+            }
+        }
+
+        if (written > 0) {
+            MediaScannerConnection.scanFile(context, Arrays.copyOf(paths, written), null, null);
+        }
+        return written;
+    }
+
+    private boolean compress(CaptureRecord record, OutputStream out) {
+        Bitmap bitmap = bitmaps.lease(record.width, record.height, BitmapAllocator.format(Bitmap.Config.ARGB_8888));
+        try {
+            bitmap.setPixels(record.pixels, 0, record.width, 0, 0, record.width, record.height);
+            return bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } finally {
+            bitmaps.giveBack(bitmap);
+        }
+    }
+
+    String summary() {
+        return bitmaps.summary();
+    }
+
+    @Override
+    public void close() {
+        bitmaps.close();
+    }
+}
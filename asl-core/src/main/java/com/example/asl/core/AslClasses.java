@@ -0,0 +1,21 @@
+package com.example.asl.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The classifier's output classes, in model output order. Evaluation datasets use the same
+ * names for their label folders.
+ */
+public final class AslClasses {
+
+    public static final List<String> LABELS = Collections.unmodifiableList(Arrays.asList(
+            "A", "B", "C", "D", "E", "F", "G", "H", "I", "J",
+            "K", "L", "M", "N", "O", "P", "Q", "R", "S", "T",
+            "U", "V", "W", "X", "Y", "Z", "del", "nothing", "space"
+    ));
+
+    private AslClasses() {
+    }
+}
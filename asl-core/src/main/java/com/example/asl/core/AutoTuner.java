@@ -0,0 +1,145 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Picks the fastest {@link TuningProfile} on the current device.
+ *
+ * <p>Each candidate gets a backend from the factory and a fixed sequence of synthetic 640x480
+ * YUV frames, which go through the same conversion and inference as
+ * camera frames. After {@code warmupFrames} untimed frames the next {@code timedFrames} are
+ * timed, and the candidate with the lowest mean time per frame wins. Candidates whose backend
+ * cannot be created are skipped.
+ */
+public final class AutoTuner {
+
+    public interface BackendFactory {
+        /** Creates a backend configured as {@code profile} asks; the tuner closes it. */
+        InferenceBackend create(TuningProfile profile) throws Exception;
+    }
+
+    // The cost timed here does not depend on the camera resolution, so one size serves all
+    private static final int FRAME_WIDTH = 640;
+    private static final int FRAME_HEIGHT = 480;
+
+    private final int warmupFrames;
+    private final int timedFrames;
+    private final StringBuilder report = new StringBuilder();
+
+    public AutoTuner(int warmupFrames, int timedFrames) {
+        this.warmupFrames = warmupFrames;
+        this.timedFrames = timedFrames;
+    }
+
+    /** Returns the fastest candidate with its measured time filled in, or null if none ran. */
+    public TuningProfile tune(List<TuningProfile> candidates, BackendFactory factory) {
+        TuningProfile best = null;
+        for (TuningProfile candidate : candidates) {
+            TuningProfile measured;
+            try (InferenceBackend backend = factory.create(candidate)) {
+                measured = candidate.withMsPerFrame(measure(backend, candidate));
+            } catch (Exception e) {
+                report.append("skipped ").append(candidate.backend).append(": ").append(e).append('\n');
+                continue;
+            }
+            report.append(measured).append('\n');
+            if (best == null || measured.msPerFrame < best.msPerFrame) {
+                best = measured;
+            }
+        }
+        return best;
+    }
+
+    private float measure(InferenceBackend backend, TuningProfile profile) {
+        backend.setBatchSize(1);
+        YuvTensorConverter converter = new YuvTensorConverter(64, 64);
+        List<YuvFrame> frames = syntheticFrames(FRAME_WIDTH, FRAME_HEIGHT, 4);
+
+        long totalNs = 0;
+        for (int i = 0; i < warmupFrames + timedFrames; i++) {
+            YuvFrame frame = frames.get(i % frames.size());
+            long start = System.nanoTime();
+            if (backend.isQuantizedInput()) {
+                converter.toRgb(frame, backend.getInputBuffer(), backend.isSignedInput(), null);
+            } else {
+                converter.toFloat(frame, backend.getInputFloatBuffer());
+            }
+            backend.run();
+            if (i >= warmupFrames) {
+                totalNs += System.nanoTime() - start;
+            }
+        }
+        return totalNs / 1e6f / timedFrames;
+    }
+
+    /** Semi-planar frames with shifting gradients, so consecutive frames differ. */
+    static List<YuvFrame> syntheticFrames(int width, int height, int count) {
+        List<YuvFrame> frames = new ArrayList<>(count);
+        for (int f = 0; f < count; f++) {
+            ByteBuffer y = ByteBuffer.allocateDirect(width * height);
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    y.put(row * width + col, (byte) (row + col + f * 16));
+                }
+            }
+            ByteBuffer uv = ByteBuffer.allocateDirect(width * height / 2);
+            for (int i = 0; i < width * height / 2; i++) {
+                uv.put(i, (byte) (i * 7 + f * 32));
+            }
+            uv.position(1);
+            ByteBuffer u = uv.slice();
+            uv.position(0);
+            ByteBuffer v = uv.slice();
+            frames.add(new YuvFrame().set(width, height, 90, f, y, width, 1, u, v, width, 2));
+        }
+        return frames;
+    }
+
+    /** One line per candidate tried so far, in the order they ran. */
+    public String report() {
+        return report.toString();
+    }
+
+    /**
+     * Watches live inference times against the tuned profile's measurement and reports once
+     * when their moving average drifts more than {@code threshold} (a fraction) above it.
+     */
+    public static final class DriftMonitor {
+
+        private static final float ALPHA = 0.05f;
+        private static final int MIN_SAMPLES = 50;
+
+        private final float baselineMs;
+        private final float threshold;
+        private float averageMs;
+        private int samples;
+        private boolean reported;
+
+        public DriftMonitor(float baselineMs, float threshold) {
+            this.baselineMs = baselineMs;
+            this.threshold = threshold;
+        }
+
+        /** Records one per-frame time; returns true the first time the drift passes the threshold. */
+        public synchronized boolean record(float ms) {
+            averageMs = samples == 0 ? ms : averageMs + ALPHA * (ms - averageMs);
+            samples++;
+            if (reported || samples < MIN_SAMPLES || baselineMs <= 0f) {
+                return false;
+            }
+            reported = averageMs > baselineMs * (1 + threshold);
+            return reported;
+        }
+
+        public synchronized float getAverageMs() {
+            return averageMs;
+        }
+
+        public synchronized String summary() {
+            return String.format(Locale.US, "%.2f ms/frame against %.2f ms tuned", averageMs, baselineMs);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Times inference backends against each other on the same synthetic input, so the faster
+ * engine can be picked per device.
+ *
+ * <p>Every backend gets a few untimed warm-up runs, then {@code iterations} timed ones at each
+ * batch size it is asked for. Backends are compared by time per frame, so a backend that only
+ * pays off with batching is still judged fairly.
+ */
+public final class BackendBenchmark {
+
+    public static final class Result {
+        public final String name;
+        public final int batchSize;
+        public final LatencyHistogram latency = new LatencyHistogram();
+
+        Result(String name, int batchSize) {
+            this.name = name;
+            this.batchSize = batchSize;
+        }
+
+        /** Mean inference time per frame of the batch, in milliseconds. */
+        public double getMsPerFrame() {
+            return latency.getMeanNs() / 1e6 / batchSize;
+        }
+    }
+
+    private final int warmup;
+    private final int iterations;
+    private final List<Result> results = new ArrayList<>();
+
+    public BackendBenchmark(int warmup, int iterations) {
+        this.warmup = warmup;
+        this.iterations = iterations;
+    }
+
+    /** Times {@code backend} at {@code batchSize}, then restores its previous batch size. */
+    public Result run(String name, InferenceBackend backend, int batchSize) {
+        int previousBatchSize = backend.getBatchSize();
+        backend.setBatchSize(batchSize);
+        fillInput(backend);
+
+        for (int i = 0; i < warmup; i++) {
+            backend.run();
+        }
+        Result result = new Result(name, batchSize);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            backend.run();
+            result.latency.record(System.nanoTime() - start);
+        }
+
+        backend.setBatchSize(previousBatchSize);
+        results.add(result);
+        return result;
+    }
+
+    private static void fillInput(InferenceBackend backend) {
+        Random random = new Random(42);
+        if (backend.isQuantizedInput()) {
+            ByteBuffer input = backend.getInputBuffer();
+            while (input.hasRemaining()) {
+                input.put((byte) random.nextInt(256));
+            }
+        } else {
+            FloatBuffer input = backend.getInputFloatBuffer();
+            while (input.hasRemaining()) {
+                input.put(random.nextFloat());
+            }
+        }
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /** The result with the lowest time per frame, or null before the first run. */
+    public Result fastest() {
+        Result fastest = null;
+        for (Result result : results) {
+            if (fastest == null || result.getMsPerFrame() < fastest.getMsPerFrame()) {
+                fastest = result;
+            }
+        }
+        return fastest;
+    }
+
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        for (Result result : results) {
+            out.append(String.format(Locale.US, "%-24s batch %d: %.2f ms/frame, p50 %.2f ms, p95 %.2f ms per batch%n",
+                    result.name, result.batchSize, result.getMsPerFrame(),
+                    result.latency.getPercentileNs(50) / 1e6, result.latency.getPercentileNs(95) / 1e6));
+        }
+        return out.toString();
+    }
+}
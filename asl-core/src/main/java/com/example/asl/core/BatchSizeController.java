@@ -0,0 +1,141 @@
+package com.example.asl.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Chooses how many frames to classify per interpreter invocation.
+ *
+ * <p>Larger batches amortize the per-invocation overhead but make the oldest frame of a batch
+ * wait for the others to arrive. The controller keeps a moving average of the inference time
+ * of every batch size it has tried and of the camera's frame interval, and picks the smallest
+ * size that keeps up with the camera. If none does, it picks the size with the best frames per
+ * second whose inference time plus the wait for the rest of the batch stays within the latency
+ * budget. Untried sizes are probed one step at a time, and the next size up is re-measured
+ * every {@value #EXPLORE_INTERVAL} batches because inference times drift as the device heats up.
+ *
+ * <p>When frames start arriving too slowly for the current batch to fill within the budget,
+ * the size shrinks on arrival, since a batch that never fills would never report back.
+ */
+public final class BatchSizeController {
+
+    private static final float ALPHA = 0.2f;
+    private static final float HYSTERESIS = 1.1f;
+    private static final int EXPLORE_INTERVAL = 64;
+
+    private final int maxBatchSize;
+    private final long latencyBudgetNs;
+
+    // Moving average of inference time per batch size, 0 until the size has been tried
+    private final float[] latencyNs;
+    private float frameIntervalNs;
+    private long lastArrivalNs = -1;
+    private float queueDelayNs;
+    private long batches;
+    private int batchSize = 1;
+
+    public BatchSizeController(int maxBatchSize, long latencyBudgetNs) {
+        this.maxBatchSize = maxBatchSize;
+        this.latencyBudgetNs = latencyBudgetNs;
+        this.latencyNs = new float[maxBatchSize + 1];
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(latencyNs, 0f);
+        frameIntervalNs = 0f;
+        lastArrivalNs = -1;
+        queueDelayNs = 0f;
+        batches = 0;
+        batchSize = 1;
+    }
+
+    /**
+     * Records that a frame was accepted for inference at {@code nowNs} and returns the batch
+     * size to use, smaller than before if waiting for the rest of the batch no longer fits the
+     * budget.
+     */
+    public synchronized int onFrameArrival(long nowNs) {
+        if (lastArrivalNs >= 0 && nowNs > lastArrivalNs) {
+            frameIntervalNs = average(frameIntervalNs, nowNs - lastArrivalNs);
+        }
+        lastArrivalNs = nowNs;
+        while (batchSize > 1 && !fitsBudget(batchSize, latencyNs[batchSize])) {
+            batchSize--;
+        }
+        return batchSize;
+    }
+
+    /**
+     * Records a finished batch and returns the batch size to use next. {@code queueDelayNs} is
+     * how long the oldest frame of the batch waited before inference started.
+     */
+    public synchronized int onBatchComplete(int size, long inferenceNs, long queueDelayNs) {
+        latencyNs[size] = average(latencyNs[size], inferenceNs);
+        this.queueDelayNs = average(this.queueDelayNs, queueDelayNs);
+        batches++;
+        batchSize = choose();
+        return batchSize;
+    }
+
+    private int choose() {
+        int best = 0;
+        float bestRate = 0f;
+        for (int n = 1; n <= maxBatchSize; n++) {
+            if (latencyNs[n] == 0f || !fitsBudget(n, latencyNs[n])) {
+                continue;
+            }
+            if (latencyNs[n] <= n * frameIntervalNs) {
+                // Smallest size that keeps up with the camera; anything larger only adds delay
+                return n;
+            }
+            float rate = n / latencyNs[n];
+            if (rate > bestRate) {
+                best = n;
+                bestRate = rate;
+            }
+        }
+        if (best == 0) {
+            return 1;
+        }
+
+        // Stay put unless the best size is clearly faster than the current one
+        if (best != batchSize && latencyNs[batchSize] != 0f && fitsBudget(batchSize, latencyNs[batchSize])
+                && bestRate < HYSTERESIS * batchSize / latencyNs[batchSize]) {
+            best = batchSize;
+        }
+
+        // Still falling behind: probe the next size if its extrapolated cost fits the budget
+        int next = best + 1;
+        if (next <= maxBatchSize && (latencyNs[next] == 0f || batches % EXPLORE_INTERVAL == 0)
+                && fitsBudget(next, latencyNs[best] * next / best)) {
+            return next;
+        }
+        return best;
+    }
+
+    private boolean fitsBudget(int size, float inferenceNs) {
+        return inferenceNs + (size - 1) * frameIntervalNs <= latencyBudgetNs;
+    }
+
+    private static float average(float current, float sample) {
+        return current == 0f ? sample : current + ALPHA * (sample - current);
+    }
+
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    /** Moving average of how long the oldest frame of a batch waited, in milliseconds. */
+    public synchronized float getQueueDelayMs() {
+        return queueDelayNs / 1e6f;
+    }
+
+    public synchronized float getFrameIntervalMs() {
+        return frameIntervalNs / 1e6f;
+    }
+
+    public synchronized String summary() {
+        float inferenceMs = latencyNs[batchSize] / 1e6f;
+        return String.format(Locale.US, "batch %d, %.1f ms/batch, %.1f ms queued", batchSize, inferenceMs, getQueueDelayMs());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.asl.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reuses image buffers whose native memory should not wait for the garbage collector, such as
+ * OpenCV Mats and Android Bitmaps.
+ *
+ * <p>Buffers are keyed by width, height and format (a CvType or a Bitmap config ordinal).
+ * {@link #lease} hands out an idle buffer of that shape or allocates one, and {@link #giveBack}
+ * returns it for the next lease. At most {@code maxIdlePerKey} idle buffers are kept per shape;
+ * extra ones, and all idle ones on {@link #close()}, are freed straight away through the
+ * {@link Allocator}. Once every shape in use has been leased as many times at once as it will
+ * ever be, leasing allocates nothing.
+ */
+public final class BufferPool<T> implements AutoCloseable {
+
+    /** Creates, describes and frees one kind of buffer. */
+    public interface Allocator<T> {
+        T allocate(int width, int height, int format);
+
+        int width(T buffer);
+
+        int height(T buffer);
+
+        int format(T buffer);
+
+        /** Releases the buffer's native memory; it is not used again. */
+        void free(T buffer);
+    }
+
+    private static final class Bucket<T> {
+        final int width;
+        final int height;
+        final int format;
+        final ArrayDeque<T> idle = new ArrayDeque<>();
+        int leased;
+        int peakLeased;
+
+        Bucket(int width, int height, int format) {
+            this.width = width;
+            this.height = height;
+            this.format = format;
+        }
+    }
+
+    private final String name;
+    private final Allocator<T> allocator;
+    private final int maxIdlePerKey;
+    // Few distinct shapes are ever in use, so a list beats a map with boxed keys
+    private final List<Bucket<T>> buckets = new ArrayList<>();
+    private boolean closed;
+
+    private long leases;
+    private long allocations;
+    private long frees;
+    private int leased;
+    private int peakLeased;
+
+    public BufferPool(String name, Allocator<T> allocator, int maxIdlePerKey) {
+        this.name = name;
+        this.allocator = allocator;
+        this.maxIdlePerKey = maxIdlePerKey;
+    }
+
+    /** An idle {@code width} x {@code height} buffer of {@code format}, or a new one. */
+    public synchronized T lease(int width, int height, int format) {
+        if (closed) {
+            throw new IllegalStateException(name + " pool is closed");
+        }
+        Bucket<T> bucket = bucket(width, height, format, true);
+        T buffer = bucket.idle.pollFirst();
+        if (buffer == null) {
+            buffer = allocator.allocate(width, height, format);
+            allocations++;
+        }
+        leases++;
+        bucket.leased++;
+        bucket.peakLeased = Math.max(bucket.peakLeased, bucket.leased);
+        leased++;
+        peakLeased = Math.max(peakLeased, leased);
+        return buffer;
+    }
+
+    /** Returns a buffer obtained from {@link #lease}; the caller must not touch it afterwards. */
+    public synchronized void giveBack(T buffer) {
+        Bucket<T> bucket = bucket(allocator.width(buffer), allocator.height(buffer), allocator.format(buffer), false);
+        if (bucket == null || bucket.leased == 0) {
+            throw new IllegalArgumentException("Buffer was not leased from the " + name + " pool");
+        }
+        bucket.leased--;
+        leased--;
+        if (closed || bucket.idle.size() >= maxIdlePerKey) {
+            free(buffer);
+        } else {
+            bucket.idle.addFirst(buffer);
+        }
+    }
+
+    private Bucket<T> bucket(int width, int height, int format, boolean create) {
+        for (int i = 0; i < buckets.size(); i++) {
+            Bucket<T> bucket = buckets.get(i);
+            if (bucket.width == width && bucket.height == height && bucket.format == format) {
+                return bucket;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        Bucket<T> bucket = new Bucket<>(width, height, format);
+        buckets.add(bucket);
+        return bucket;
+    }
+
+    private void free(T buffer) {
+        allocator.free(buffer);
+        frees++;
+    }
+
+    /** Buffers currently leased and not given back. */
+    public synchronized int getLeased() {
+        return leased;
+    }
+
+    /** Most buffers leased at once, over all shapes. */
+    public synchronized int getPeakLeased() {
+        return peakLeased;
+    }
+
+    public synchronized int getIdle() {
+        int idle = 0;
+        for (Bucket<T> bucket : buckets) {
+            idle += bucket.idle.size();
+        }
+        return idle;
+    }
+
+    public synchronized long getAllocations() {
+        return allocations;
+    }
+
+    public synchronized long getLeases() {
+        return leases;
+    }
+
+    public synchronized String summary() {
+        StringBuilder out = new StringBuilder(String.format(Locale.US,
+                "%s pool: %d leases, %d allocations, %d freed, %d leased (peak %d), %d idle",
+                name, leases, allocations, frees, leased, peakLeased, getIdle()));
+        for (Bucket<T> bucket : buckets) {
+            out.append(String.format(Locale.US, "\n  %dx%d/%d: peak %d, %d leased, %d idle",
+                    bucket.width, bucket.height, bucket.format, bucket.peakLeased, bucket.leased, bucket.idle.size()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Frees every idle buffer. Buffers still leased are freed when they are given back; a
+     * non-zero {@link #getLeased()} after all owners have closed means one was never returned.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Bucket<T> bucket : buckets) {
+            T buffer;
+            while ((buffer = bucket.idle.pollFirst()) != null) {
+                free(buffer);
+            }
+        }
+    }
+}
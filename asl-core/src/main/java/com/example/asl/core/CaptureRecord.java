@@ -0,0 +1,85 @@
+package com.example.asl.core;
+
+/**
+ * One model input queued for saving, with the prediction that was made for it.
+ *
+ * <p>The pipelines lease {@link #pixels} from a {@link #pixelPool pixel pool} so sampling a
+ * frame allocates no image array; whoever consumes the record calls {@link #recycle()} once,
+ * after encoding it or when it could not be queued.
+ */
+public final class CaptureRecord {
+
+    /** Pixel arrays keyed by length; the garbage collector frees them, so there is nothing to release. */
+    private static final BufferPool.Allocator<int[]> PIXELS = new BufferPool.Allocator<int[]>() {
+        @Override
+        public int[] allocate(int width, int height, int format) {
+            return new int[width * height];
+        }
+
+        @Override
+        public int width(int[] buffer) {
+            return buffer.length;
+        }
+
+        @Override
+        public int height(int[] buffer) {
+            return 1;
+        }
+
+        @Override
+        public int format(int[] buffer) {
+            return 0;
+        }
+
+        @Override
+        public void free(int[] buffer) {
+        }
+    };
+
+    public final int[] pixels;
+    public final int width;
+    public final int height;
+    public final String label;
+    public final float confidence;
+    public final long frameIndex;
+    public final long timestampMs;
+    private final BufferPool<int[]> pool;
+
+    public CaptureRecord(int[] pixels, int width, int height, String label, float confidence, long frameIndex, long timestampMs) {
+        this(pixels, null, width, height, label, confidence, frameIndex, timestampMs);
+    }
+
+    /** A record whose {@code pixels} were leased from {@code pool} with {@link #leasePixels}. */
+    public CaptureRecord(int[] pixels, BufferPool<int[]> pool, int width, int height, String label, float confidence,
+                         long frameIndex, long timestampMs) {
+        this.pixels = pixels;
+        this.pool = pool;
+        this.width = width;
+        this.height = height;
+        this.label = label;
+        this.confidence = confidence;
+        this.frameIndex = frameIndex;
+        this.timestampMs = timestampMs;
+    }
+
+    /** A pool of pixel arrays for records, keeping up to {@code maxIdle} of each size. */
+    public static BufferPool<int[]> pixelPool(int maxIdle) {
+        return new BufferPool<>("Capture pixels", PIXELS, maxIdle);
+    }
+
+    /** Leases an array for a {@code width} x {@code height} record from {@code pool}. */
+    public static int[] leasePixels(BufferPool<int[]> pool, int width, int height) {
+        return pool.lease(width * height, 1, 0);
+    }
+
+    /** Returns the pixels to their pool, if they came from one; the record must not be used afterwards. */
+    public void recycle() {
+        if (pool != null) {
+            pool.giveBack(pixels);
+        }
+    }
+
+    public String fileName() {
+        return "asl_image_" + timestampMs + "_" + frameIndex + "_" + label + ".png";
+    }
+}
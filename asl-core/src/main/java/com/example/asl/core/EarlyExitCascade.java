@@ -0,0 +1,199 @@
+package com.example.asl.core;
+
+import java.util.Locale;
+
+/**
+ * First stage of a two-tier classifier: a small low-resolution grayscale model looks at every
+ * frame, and only frames it is unsure about go on to the full model.
+ *
+ * <p>A frame exits early when the small model's top-1 confidence reaches the threshold and
+ * leads the runner-up by at least {@code minMargin}. Every {@code auditEvery}-th confident frame
+ * is sent to the full model anyway, and the two predictions are compared. The accuracy given
+ * up is estimated as the disagreement rate on audited frames times the share of frames that
+ * exit early. Whenever that estimate exceeds {@code maxAccuracyDelta}, the threshold rises a
+ * step, so the cascade stays within the allowed distance of always running the full model.
+ * A window of audits without a single disagreement lowers it a step again, down to the
+ * configured threshold. Frames that clear the configured threshold but not the raised one go
+ * to the full model anyway and are audited too, so the audits continue while no frame exits.
+ * {@link #reset()} returns to the configured threshold.
+ */
+public final class EarlyExitCascade {
+
+    private static final float THRESHOLD_STEP = 0.05f;
+    private static final int MIN_AUDITS = 20;
+
+    private final InferenceBackend small;
+    private final YuvTensorConverter converter;
+    private final float minMargin;
+    private final float maxAccuracyDelta;
+    private final int auditEvery;
+    private final float baseThreshold;
+    private float threshold;
+
+    private float lastConfidence;
+    private int auditClass = -1;
+
+    private long frames;
+    private long exited;
+    private long confident;
+    private long audits;
+    private long disagreements;
+    private long windowAudits;
+    private long windowDisagreements;
+    private long smallNs;
+    private long fullNs;
+    private long fullFrames;
+
+    public EarlyExitCascade(InferenceBackend small, float confidenceThreshold, float minMargin,
+                            float maxAccuracyDelta, int auditEvery) {
+        this.small = small;
+        this.baseThreshold = confidenceThreshold;
+        this.threshold = confidenceThreshold;
+        this.minMargin = minMargin;
+        this.maxAccuracyDelta = maxAccuracyDelta;
+        this.auditEvery = auditEvery;
+
+        // The small model takes a square single-channel image
+        small.setBatchSize(1);
+        int pixels = small.getFrameInputBytes() / (small.isQuantizedInput() ? 1 : 4);
+        int side = (int) Math.round(Math.sqrt(pixels));
+        converter = new YuvTensorConverter(side, side);
+    }
+
+    /**
+     * Runs the small model on {@code frame}, cropped to {@code roi} (left, top, width, height in
+     * sensor coordinates) or to the centred square when it is null. Returns the predicted class
+     * when the frame can exit early, or -1 when it needs the full model.
+     */
+    public synchronized int classify(YuvFrame frame, int[] roi) {
+        long start = System.nanoTime();
+        if (roi != null) {
+            converter.setCrop(roi[0], roi[1], roi[2], roi[3]);
+        } else {
+            converter.clearCrop();
+        }
+        if (small.isQuantizedInput()) {
+            converter.toGray(frame, small.getInputBuffer(), small.isSignedInput());
+        } else {
+            converter.toGrayFloat(frame, small.getInputFloatBuffer());
+        }
+        float[] scores = small.run();
+        smallNs += System.nanoTime() - start;
+        frames++;
+
+        int best = RecognitionPipeline.argmax(scores, 0, scores.length);
+        float runnerUp = 0f;
+        for (int i = 0; i < scores.length; i++) {
+            if (i != best && scores[i] > runnerUp) {
+                runnerUp = scores[i];
+            }
+        }
+        lastConfidence = scores[best];
+        auditClass = -1;
+
+        if (lastConfidence < baseThreshold || lastConfidence - runnerUp < minMargin) {
+            return -1;
+        }
+        if (lastConfidence < threshold) {
+            // Escalated only because the threshold was raised; comparing it costs nothing
+            auditClass = best;
+            return -1;
+        }
+        confident++;
+        if (auditEvery > 0 && confident % auditEvery == 0) {
+            auditClass = best;
+            return -1;
+        }
+        exited++;
+        return best;
+    }
+
+    /** Top-1 confidence of the small model on the last frame. */
+    public synchronized float getLastConfidence() {
+        return lastConfidence;
+    }
+
+    /**
+     * The small model's class for the last frame if it was confident but is being sent to the
+     * full model as an audit; -1 otherwise. Pass it to {@link #onAudit} with the full result.
+     */
+    public synchronized int getAuditClass() {
+        return auditClass;
+    }
+
+    /** Compares an audited frame's two predictions and moves the threshold if needed. */
+    public synchronized void onAudit(int smallClass, int fullClass) {
+        audits++;
+        windowAudits++;
+        if (smallClass != fullClass) {
+            disagreements++;
+            windowDisagreements++;
+        }
+        if (windowAudits >= MIN_AUDITS) {
+            float estimatedDelta = (float) windowDisagreements / windowAudits * getExitRate();
+            if (estimatedDelta > maxAccuracyDelta) {
+                // Past 1.0 no frame exits early, which is the always-full baseline
+                threshold = Math.min(1f + THRESHOLD_STEP, threshold + THRESHOLD_STEP);
+            } else if (windowDisagreements == 0) {
+                threshold = Math.max(baseThreshold, threshold - THRESHOLD_STEP);
+            }
+            windowAudits = 0;
+            windowDisagreements = 0;
+        }
+    }
+
+    /** Records a full-model batch, for the latency savings estimate. */
+    public synchronized void recordFullInference(long ns, int batchFrames) {
+        fullNs += ns;
+        fullFrames += batchFrames;
+    }
+
+    public synchronized float getThreshold() {
+        return threshold;
+    }
+
+    /** Share of frames answered by the small model alone. */
+    public synchronized float getExitRate() {
+        return frames == 0 ? 0f : (float) exited / frames;
+    }
+
+    /** Share of frames that went on to the full model, audits included. */
+    public synchronized float getEscalationRate() {
+        return frames == 0 ? 0f : 1f - getExitRate();
+    }
+
+    /**
+     * Mean time per frame saved against running only the full model: the full model's time,
+     * less the small model's time on every frame and the full model's on escalated frames.
+     */
+    public synchronized float getSavedMsPerFrame() {
+        if (frames == 0 || fullFrames == 0) {
+            return 0f;
+        }
+        float fullMs = fullNs / 1e6f / fullFrames;
+        float smallMs = smallNs / 1e6f / frames;
+        return fullMs - (smallMs + getEscalationRate() * fullMs);
+    }
+
+    public synchronized void reset() {
+        frames = 0;
+        exited = 0;
+        confident = 0;
+        smallNs = 0;
+        fullNs = 0;
+        fullFrames = 0;
+        audits = 0;
+        disagreements = 0;
+        windowAudits = 0;
+        windowDisagreements = 0;
+        threshold = baseThreshold;
+    }
+
+    public synchronized String summary() {
+        float fullMs = fullFrames == 0 ? 0f : fullNs / 1e6f / fullFrames;
+        float smallMs = frames == 0 ? 0f : smallNs / 1e6f / frames;
+        return String.format(Locale.US,
+                "%.1f%% escalated, small %.2f ms, full %.2f ms/frame, saved %.2f ms/frame, %d/%d audits disagreed, threshold %.2f",
+                getEscalationRate() * 100, smallMs, fullMs, getSavedMsPerFrame(), disagreements, audits, threshold);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.asl.core;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Accuracy and throughput of one model over a labeled dataset: a confusion matrix, per-class
+ * recall, images per second and latency percentiles. Latencies go into fixed-size histograms,
+ * so memory does not grow with the dataset. Safe to fill from several worker threads.
+ */
+public final class EvaluationReport {
+
+    private final List<String> classLabels;
+    private final long[][] confusion;
+    private final LatencyHistogram preprocessNs = new LatencyHistogram();
+    private final LatencyHistogram inferenceNs = new LatencyHistogram();
+    private long samples;
+    private long correct;
+    private long wallTimeNs;
+
+    public EvaluationReport(List<String> classLabels) {
+        this.classLabels = classLabels;
+        this.confusion = new long[classLabels.size()][classLabels.size()];
+    }
+
+    /**
+     * Records one image. {@code preprocessNs} covers decoding and filling the model input,
+     * {@code inferenceNs} the backend's share of its batch.
+     */
+    public synchronized void add(int expected, int predicted, long preprocessNs, long inferenceNs) {
+        confusion[expected][predicted]++;
+        samples++;
+        if (expected == predicted) {
+            correct++;
+        }
+        this.preprocessNs.record(preprocessNs);
+        this.inferenceNs.record(inferenceNs);
+    }
+
+    /** Sets the elapsed time of the whole run, used for images per second. */
+    public synchronized void setWallTimeNs(long wallTimeNs) {
+        this.wallTimeNs = wallTimeNs;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    public synchronized double getAccuracy() {
+        return samples == 0 ? 0 : (double) correct / samples;
+    }
+
+    /** Fraction of the images labeled {@code classIndex} that were predicted as it. */
+    public synchronized double getRecall(int classIndex) {
+        long total = 0;
+        for (long count : confusion[classIndex]) {
+            total += count;
+        }
+        return total == 0 ? 0 : (double) confusion[classIndex][classIndex] / total;
+    }
+
+    /** Images labeled {@code expected} that were predicted as {@code predicted}. */
+    public synchronized long getCount(int expected, int predicted) {
+        return confusion[expected][predicted];
+    }
+
+    public synchronized double getImagesPerSecond() {
+        return wallTimeNs == 0 ? 0 : samples * 1e9 / wallTimeNs;
+    }
+
+    public synchronized String report() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.US, "%d images, accuracy %.2f%%, %.1f images/s%n",
+                samples, 100 * getAccuracy(), getImagesPerSecond()));
+        appendLatency(out, "preprocess", preprocessNs);
+        appendLatency(out, "inference", inferenceNs);
+
+        out.append(String.format("%nper-class recall%n"));
+        for (int c = 0; c < classLabels.size(); c++) {
+            out.append(String.format(Locale.US, "%-8s %6.2f%%%n", classLabels.get(c), 100 * getRecall(c)));
+        }
+
+        // Rows are the true class, columns the prediction
+        out.append(String.format("%nconfusion matrix (rows: expected, columns: predicted)%n%-8s", ""));
+        for (String label : classLabels) {
+            out.append(String.format("%6s", label));
+        }
+        out.append(String.format("%n"));
+        for (int expected = 0; expected < classLabels.size(); expected++) {
+            out.append(String.format("%-8s", classLabels.get(expected)));
+            for (long count : confusion[expected]) {
+                out.append(String.format("%6d", count));
+            }
+            out.append(String.format("%n"));
+        }
+        return out.toString();
+    }
+
+    private static void appendLatency(StringBuilder out, String name, LatencyHistogram histogram) {
+        out.append(String.format(Locale.US, "%-10s mean %.3f ms, p50 %.3f ms, p95 %.3f ms, p99 %.3f ms%n",
+                name, histogram.getMeanNs() / 1e6, histogram.getPercentileNs(50) / 1e6,
+                histogram.getPercentileNs(95) / 1e6, histogram.getPercentileNs(99) / 1e6));
+    }
+
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.US, "{\"images\":%d,\"accuracy\":%.5f,\"images_per_second\":%.2f,",
+                samples, getAccuracy(), getImagesPerSecond()));
+        appendLatencyJson(json, "preprocess", preprocessNs);
+        json.append(',');
+        appendLatencyJson(json, "inference", inferenceNs);
+
+        json.append(",\"recall\":{");
+        for (int c = 0; c < classLabels.size(); c++) {
+            json.append(c > 0 ? "," : "").append(String.format(Locale.US, "\"%s\":%.5f", classLabels.get(c), getRecall(c)));
+        }
+        json.append("},\"labels\":[");
+        for (int c = 0; c < classLabels.size(); c++) {
+            json.append(c > 0 ? "," : "").append('"').append(classLabels.get(c)).append('"');
+        }
+        json.append("],\"confusion\":[");
+        for (int expected = 0; expected < confusion.length; expected++) {
+            json.append(expected > 0 ? ",[" : "[");
+            for (int predicted = 0; predicted < confusion.length; predicted++) {
+                json.append(predicted > 0 ? "," : "").append(confusion[expected][predicted]);
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendLatencyJson(StringBuilder json, String name, LatencyHistogram histogram) {
+        json.append(String.format(Locale.US, "\"%s_ms\":{\"mean\":%.4f,\"p50\":%.4f,\"p95\":%.4f,\"p99\":%.4f}",
+                name, histogram.getMeanNs() / 1e6, histogram.getPercentileNs(50) / 1e6,
+                histogram.getPercentileNs(95) / 1e6, histogram.getPercentileNs(99) / 1e6));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.asl.core;
+
+import java.util.Locale;
+
+/**
+ * Bounds the frames in flight between arrival and prediction, and lets a session be cancelled
+ * without its late results reaching the user.
+ *
+ * <p>A frame is admitted with {@link #begin()}. That fails, and the frame should be dropped, once
+ * {@code maxInFlight} admitted frames have not yet been finished. Each admitted frame ends with
+ * exactly one {@link #complete} or {@link #drop}. Frames still waiting after {@code maxAgeNs}
+ * are stale, and callers should drop them in favour of newer ones rather than predict on them.
+ * {@link #cancel()} starts a new generation: work admitted under an older one may finish, but
+ * its results must not be delivered. All methods are thread-safe.
+ */
+public final class FrameCoordinator {
+
+    public enum DropReason { BUSY, STALE, CANCELLED, SKIPPED }
+
+    private final int maxInFlight;
+    private final long maxAgeNs;
+    private final LatencyHistogram staleness = new LatencyHistogram();
+
+    private int generation;
+    private int inFlight;
+    private int peakInFlight;
+    private long admitted;
+    private long completed;
+    private final long[] dropped = new long[DropReason.values().length];
+
+    public FrameCoordinator(int maxInFlight, long maxAgeNs) {
+        this.maxInFlight = maxInFlight;
+        this.maxAgeNs = maxAgeNs;
+    }
+
+    /**
+     * Admits a frame. Returns the current generation, for {@link #isCurrent}, or -1 when too many
+     * frames are already in flight; the frame is then counted as dropped and must not be finished.
+     */
+    public synchronized int begin() {
+        if (inFlight >= maxInFlight) {
+            dropped[DropReason.BUSY.ordinal()]++;
+            return -1;
+        }
+        inFlight++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        admitted++;
+        return generation;
+    }
+
+    /** Whether {@link #begin()} would refuse a frame right now. */
+    public synchronized boolean isFull() {
+        return inFlight >= maxInFlight;
+    }
+
+    /** Whether work admitted under {@code generation} may still deliver results. */
+    public synchronized boolean isCurrent(int generation) {
+        return generation == this.generation;
+    }
+
+    /** Whether a frame that arrived at {@code arrivalNs} is too old to be worth predicting on. */
+    public boolean isStale(long arrivalNs, long nowNs) {
+        return nowNs - arrivalNs > maxAgeNs;
+    }
+
+    /** Finishes an admitted frame whose prediction is being delivered, recording its age. */
+    public synchronized void complete(long arrivalNs, long nowNs) {
+        inFlight--;
+        completed++;
+        staleness.record(nowNs - arrivalNs);
+    }
+
+    /** Finishes an admitted frame without a prediction. */
+    public synchronized void drop(DropReason reason) {
+        inFlight--;
+        dropped[reason.ordinal()]++;
+    }
+
+    /** Starts a new generation; results of frames admitted before now are to be discarded. */
+    public synchronized void cancel() {
+        generation++;
+    }
+
+    /** Frames admitted and not yet finished. */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getPeakInFlight() {
+        return peakInFlight;
+    }
+
+    public synchronized long getDropped(DropReason reason) {
+        return dropped[reason.ordinal()];
+    }
+
+    /** Time from arrival to prediction of completed frames. */
+    public LatencyHistogram getStaleness() {
+        return staleness;
+    }
+
+    public synchronized void reset() {
+        peakInFlight = inFlight;
+        admitted = 0;
+        completed = 0;
+        for (int i = 0; i < dropped.length; i++) {
+            dropped[i] = 0;
+        }
+        staleness.reset();
+    }
+
+    public synchronized String summary() {
+        return String.format(Locale.US,
+                "%d in flight (peak %d of %d), %d admitted, %d predicted, dropped %d busy, %d stale, %d cancelled, %d skipped, age p50 %.1f ms, p99 %.1f ms",
+                inFlight, peakInFlight, maxInFlight, admitted, completed,
+                dropped[DropReason.BUSY.ordinal()], dropped[DropReason.STALE.ordinal()],
+                dropped[DropReason.CANCELLED.ordinal()], dropped[DropReason.SKIPPED.ordinal()],
+                staleness.getPercentileNs(50) / 1e6, staleness.getPercentileNs(99) / 1e6);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.asl.core;
+
+/**
+ * A recognition pipeline as its owner sees it: frames go in, results come out through a
+ * {@link ResultSink}. {@link RecognitionPipeline} does all the work on the frame thread;
+ * {@link StagedRecognitionPipeline} spreads it over stage threads.
+ */
+public interface FramePipeline extends FrameSource.Listener, AutoCloseable {
+
+    /** Skips frames where nothing moved; null processes every frame. */
+    void setMotionGate(MotionGate motionGate);
+
+    /** Crops to the located hand; null always uses the centred square. */
+    void setHandLocator(HandLocator handLocator);
+
+    /** Queues the 64x64 input of the frames {@code policy} selects; a null queue saves nothing. */
+    void setCapture(SamplingPolicy policy, PersistenceQueue<CaptureRecord> queue);
+
+    /** Analyzes frames at the rate {@code scheduler} chooses; null analyzes every frame. */
+    void setScheduler(FrameRateScheduler scheduler);
+
+    /** Lets a small model answer the frames it is sure about; null sends every frame to the full model. */
+    void setCascade(EarlyExitCascade cascade);
+
+    /** Bounds the frames in flight and withholds the results of cancelled sessions; null disables both. */
+    void setCoordinator(FrameCoordinator coordinator);
+
+    /** Starts any threads the pipeline owns; call once, after the setters and before the first frame. */
+    void start();
+
+    /** Starts a new session: clears the statistics, pending frames and the vote. */
+    void reset();
+
+    StreamStats getStreamStats();
+
+    /** Inference time per frame of the last batch, in milliseconds; 0 before the first. */
+    float getLastInferenceMsPerFrame();
+
+    /** Session statistics for logging; safe to call from any thread. */
+    String summary();
+
+    /**
+     * Stops any threads the pipeline owns and drops the frames it still holds, so a coordinator
+     * shared with the next pipeline gets their slots back; the backend stays open.
+     */
+    @Override
+    void close();
+}
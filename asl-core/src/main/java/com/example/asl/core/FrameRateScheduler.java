@@ -0,0 +1,216 @@
+package com.example.asl.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chooses how many frames per second to analyze, and at what working resolution, from the
+ * measured per-frame work time, the analyzer backlog and the device's thermal status.
+ *
+ * <p>The scheduler walks a ladder of levels. The first levels lower the frame rate from
+ * {@code maxFps} down to {@code minFps}; after that the working resolution is reduced, and only
+ * as a last resort the rate is halved again. A level is dropped when the work no longer fits the
+ * frame interval or the camera starts dropping frames behind the analyzer, and regained only
+ * after the work would fit comfortably at the faster level for a while, so the rate does not
+ * oscillate. Thermal status sets a floor the level cannot rise above while the device is hot.
+ * Every change is reported to the {@link Listener} as a {@link RateChange}.
+ */
+public final class FrameRateScheduler {
+
+    /** Mirrors of {@code android.os.PowerManager.THERMAL_STATUS_*}. */
+    public static final int THERMAL_NONE = 0;
+    public static final int THERMAL_LIGHT = 1;
+    public static final int THERMAL_MODERATE = 2;
+    public static final int THERMAL_SEVERE = 3;
+    public static final int THERMAL_CRITICAL = 4;
+
+    private static final float ALPHA = 0.2f;
+    private static final float FPS_STEP = 0.75f;
+    private static final float OVERLOAD_FRACTION = 0.9f;
+    private static final float RECOVER_FRACTION = 0.6f;
+    private static final int QUEUE_LIMIT = 2;
+    private static final long DOWN_HOLD_NS = 1_000_000_000L;
+    private static final long UP_HOLD_NS = 5_000_000_000L;
+
+    public enum Reason { LATENCY, QUEUE, THERMAL, RECOVERED }
+
+    /** One level change, with the measurements that caused it. */
+    public static final class RateChange {
+        public final long timestampNs;
+        public final int fromLevel;
+        public final int toLevel;
+        public final float fps;
+        public final float resolutionScale;
+        public final Reason reason;
+        public final float workMs;
+        public final int queueDepth;
+        public final int thermalStatus;
+
+        RateChange(long timestampNs, int fromLevel, int toLevel, float fps, float resolutionScale, Reason reason,
+                   float workMs, int queueDepth, int thermalStatus) {
+            this.timestampNs = timestampNs;
+            this.fromLevel = fromLevel;
+            this.toLevel = toLevel;
+            this.fps = fps;
+            this.resolutionScale = resolutionScale;
+            this.reason = reason;
+            this.workMs = workMs;
+            this.queueDepth = queueDepth;
+            this.thermalStatus = thermalStatus;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "level %d -> %d (%.1f fps, %.2fx resolution), %s: %.1f ms work, queue %d, thermal %d",
+                    fromLevel, toLevel, fps, resolutionScale, reason.name().toLowerCase(Locale.US),
+                    workMs, queueDepth, thermalStatus);
+        }
+    }
+
+    public interface Listener {
+        /** Called on the thread that recorded the frame, after the new level is in effect. */
+        void onRateChange(RateChange change);
+    }
+
+    private final float[] levelFps;
+    private final float[] levelScale;
+    private final int moderateFloor;
+    private final int severeFloor;
+    private final Listener listener;
+
+    private int level;
+    private long lastAdmittedNs = Long.MIN_VALUE;
+    private long lastChangeNs;
+    private float workNsAverage;
+    private int thermalStatus;
+    private long changes;
+
+    public FrameRateScheduler(float maxFps, float minFps, Listener listener) {
+        List<float[]> levels = new ArrayList<>();
+        for (float fps = maxFps; fps > minFps; fps *= FPS_STEP) {
+            levels.add(new float[]{fps, 1f});
+        }
+        levels.add(new float[]{minFps, 1f});
+        severeFloor = levels.size() - 1;
+        levels.add(new float[]{minFps, 0.75f});
+        levels.add(new float[]{minFps, 0.5f});
+        levels.add(new float[]{minFps / 2, 0.5f});
+
+        levelFps = new float[levels.size()];
+        levelScale = new float[levels.size()];
+        int moderate = 0;
+        for (int i = 0; i < levels.size(); i++) {
+            levelFps[i] = levels.get(i)[0];
+            levelScale[i] = levels.get(i)[1];
+            if (levelFps[i] > maxFps / 2) {
+                moderate = i + 1;
+            }
+        }
+        moderateFloor = Math.min(moderate, severeFloor);
+        this.listener = listener;
+    }
+
+    /** Whether to analyze the frame captured at {@code timestampNs}, given the current rate. */
+    public synchronized boolean admit(long timestampNs) {
+        // Allow some slack so a 15 fps target still takes every other frame of a 30 fps camera
+        long intervalNs = (long) (1e9 / levelFps[level] * 0.9);
+        if (lastAdmittedNs != Long.MIN_VALUE && timestampNs - lastAdmittedNs < intervalNs) {
+            return false;
+        }
+        lastAdmittedNs = timestampNs;
+        return true;
+    }
+
+    /**
+     * Records an admitted frame: the time spent on it and how many camera frames were dropped
+     * behind it. May move to another level and notify the listener.
+     */
+    public void recordFrame(long nowNs, long workNs, int queueDepth) {
+        RateChange change;
+        synchronized (this) {
+            workNsAverage = workNsAverage == 0f ? workNs : workNsAverage + ALPHA * (workNs - workNsAverage);
+            change = evaluate(nowNs, queueDepth);
+        }
+        if (change != null && listener != null) {
+            listener.onRateChange(change);
+        }
+    }
+
+    /** Updates the thermal status, one of the {@code THERMAL_} values; safe from any thread. */
+    public void setThermalStatus(int status, long nowNs) {
+        RateChange change;
+        synchronized (this) {
+            thermalStatus = status;
+            change = evaluate(nowNs, 0);
+        }
+        if (change != null && listener != null) {
+            listener.onRateChange(change);
+        }
+    }
+
+    private RateChange evaluate(long nowNs, int queueDepth) {
+        int floor = thermalStatus >= THERMAL_CRITICAL ? levelFps.length - 1
+                : thermalStatus >= THERMAL_SEVERE ? severeFloor
+                : thermalStatus >= THERMAL_MODERATE ? moderateFloor
+                : 0;
+        if (level < floor) {
+            return moveTo(floor, Reason.THERMAL, nowNs, queueDepth);
+        }
+
+        long sinceChange = nowNs - lastChangeNs;
+        float intervalNs = 1e9f / levelFps[level];
+        if (level < levelFps.length - 1 && sinceChange >= DOWN_HOLD_NS) {
+            if (queueDepth >= QUEUE_LIMIT) {
+                return moveTo(level + 1, Reason.QUEUE, nowNs, queueDepth);
+            }
+            if (workNsAverage > intervalNs * OVERLOAD_FRACTION) {
+                return moveTo(level + 1, Reason.LATENCY, nowNs, queueDepth);
+            }
+        }
+        if (level > floor && sinceChange >= UP_HOLD_NS && queueDepth == 0
+                && workNsAverage < 1e9f / levelFps[level - 1] * RECOVER_FRACTION) {
+            return moveTo(level - 1, Reason.RECOVERED, nowNs, queueDepth);
+        }
+        return null;
+    }
+
+    private RateChange moveTo(int newLevel, Reason reason, long nowNs, int queueDepth) {
+        RateChange change = new RateChange(nowNs, level, newLevel, levelFps[newLevel], levelScale[newLevel], reason,
+                workNsAverage / 1e6f, queueDepth, thermalStatus);
+        level = newLevel;
+        lastChangeNs = nowNs;
+        changes++;
+        return change;
+    }
+
+    /** Back to the full rate, keeping the thermal status. */
+    public synchronized void reset(long nowNs) {
+        level = 0;
+        lastAdmittedNs = Long.MIN_VALUE;
+        lastChangeNs = nowNs;
+        workNsAverage = 0f;
+    }
+
+    public synchronized int getLevel() {
+        return level;
+    }
+
+    public synchronized int getLevelCount() {
+        return levelFps.length;
+    }
+
+    public synchronized float getFps() {
+        return levelFps[level];
+    }
+
+    /** Fraction of the full working resolution to use at the current level. */
+    public synchronized float getResolutionScale() {
+        return levelScale[level];
+    }
+
+    public synchronized String summary() {
+        return String.format(Locale.US, "level %d/%d, %.1f fps, %.2fx resolution, %.1f ms work, thermal %d, %d changes",
+                level, levelFps.length - 1, levelFps[level], levelScale[level], workNsAverage / 1e6f, thermalStatus, changes);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.asl.core;
+
+/**
+ * Delivers frames to a listener one at a time, on the source's own thread. A frame and its
+ * plane buffers are only valid for the duration of the callback; sources reuse them for the
+ * next frame.
+ */
+public interface FrameSource {
+
+    interface Listener {
+        void onFrame(YuvFrame frame);
+    }
+
+    void start(Listener listener);
+
+    void stop();
+}
@@ -0,0 +1,16 @@
+package com.example.asl.core;
+
+/**
+ * Finds the signing hand so the classifier only sees a crop around it.
+ */
+public interface HandLocator {
+
+    /**
+     * Looks for the hand in {@code frame}. If found, writes a square crop as left, top, width,
+     * height in sensor coordinates into {@code roi} and returns true.
+     */
+    boolean locate(YuvFrame frame, int[] roi);
+
+    /** Forgets the current hand so the next frame starts with a fresh detection. */
+    void reset();
+}
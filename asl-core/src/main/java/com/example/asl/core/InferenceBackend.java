@@ -0,0 +1,52 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A classifier over batches of 64x64 RGB frames. Callers write {@link #getBatchSize()} frames
+ * back to back into the reusable input buffer, as normalized floats or, for quantized inputs,
+ * as RGB bytes, then call {@link #run()}. Implementations are not thread-safe.
+ */
+public interface InferenceBackend extends AutoCloseable {
+
+    /** Whether the input takes RGB bytes (see {@link #isSignedInput()}) rather than floats. */
+    boolean isQuantizedInput();
+
+    /** For quantized inputs, whether bytes are int8 (pixel - 128) rather than uint8. */
+    boolean isSignedInput();
+
+    int getNumClasses();
+
+    int getMaxBatchSize();
+
+    int getBatchSize();
+
+    /**
+     * Changes the number of frames per {@link #run()}. Frames already written to the input stay
+     * in place, so a batch may be grown or shrunk while it is being filled.
+     */
+    void setBatchSize(int size);
+
+    /** Size in bytes of one frame in {@link #getInputBuffer()}. */
+    int getFrameInputBytes();
+
+    /** The input for the current batch size, rewound. */
+    ByteBuffer getInputBuffer();
+
+    /** Float view of {@link #getInputBuffer()}, rewound. */
+    FloatBuffer getInputFloatBuffer();
+
+    /**
+     * Classifies the current input and returns {@link #getNumClasses()} scores per frame. The
+     * array is owned by the backend and overwritten by the next call.
+     */
+    float[] run();
+
+    float getLastInferenceMs();
+
+    String summary();
+
+    @Override
+    void close();
+}
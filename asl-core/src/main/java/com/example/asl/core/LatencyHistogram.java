@@ -0,0 +1,100 @@
+package com.example.asl.core;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of durations in nanoseconds.
+ *
+ * <p>Each power of two is split into eight buckets, so a percentile is reported to within
+ * 12.5% of the true value. Durations up to about a minute are resolved; longer ones land in
+ * the last bucket. Recording only increments counters, so it is safe on the hot path.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long totalNs;
+    private long minNs = Long.MAX_VALUE;
+    private long maxNs;
+
+    public synchronized void record(long durationNs) {
+        long value = Math.max(0, durationNs);
+        counts[bucketOf(value)]++;
+        count++;
+        totalNs += value;
+        minNs = Math.min(minNs, value);
+        maxNs = Math.max(maxNs, value);
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        totalNs = 0;
+        minNs = Long.MAX_VALUE;
+        maxNs = 0;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMeanNs() {
+        return count == 0 ? 0 : totalNs / count;
+    }
+
+    public synchronized long getMinNs() {
+        return count == 0 ? 0 : minNs;
+    }
+
+    public synchronized long getMaxNs() {
+        return maxNs;
+    }
+
+    /**
+     * Returns the duration below which {@code percentile} percent of the samples fall, as the
+     * midpoint of the bucket that contains it, clamped to the observed range.
+     */
+    public synchronized long getPercentileNs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * count);
+        rank = Math.max(1, Math.min(count, rank));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long lower = lowerBound(i);
+                long midpoint = lower + (lowerBound(i + 1) - lower) / 2;
+                return Math.max(minNs, Math.min(maxNs, midpoint));
+            }
+        }
+        return maxNs;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.asl.core;
+
+/**
+ * The builds of the ASL classifier the app can run, selected with the {@code model_variant}
+ * configuration value.
+ */
+public enum ModelVariant {
+
+    // Packaged into the APK assets by ML model binding (src/main/ml/asl_model.tflite)
+    FLOAT32("float32", "asl_model.tflite"),
+
+    // Full-integer quantized build with uint8 (or int8) input and output, from src/main/assets
+    UINT8("uint8", "asl_model_uint8.tflite"),
+
+    // 32x32 grayscale first stage of the early-exit cascade, from src/main/assets; selected with
+    // cascade_enabled rather than model_variant
+    TINY_GRAY32("tiny_gray32", "asl_model_tiny_gray32.tflite");
+
+    public final String configName;
+    public final String assetPath;
+
+    ModelVariant(String configName, String assetPath) {
+        this.configName = configName;
+        this.assetPath = assetPath;
+    }
+
+    public static ModelVariant fromConfig(String name) {
+        for (ModelVariant variant : values()) {
+            if (variant.configName.equals(name)) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown model variant: " + name);
+    }
+}
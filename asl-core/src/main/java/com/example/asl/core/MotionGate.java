@@ -0,0 +1,126 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Decides per frame whether anything changed enough to need a new prediction.
+ *
+ * <p>The luma plane is point-sampled on a small grid and compared with the grid of the last
+ * frame that was processed. A frame is processed when more than {@code changedFraction} of the
+ * cells differ by more than {@code pixelThreshold} luma levels, or when
+ * {@code maxSkippedFrames} frames in a row have been skipped. Otherwise the caller keeps the
+ * previous result. Comparing against the last processed frame rather than the previous one
+ * means slow drift still triggers a refresh eventually.
+ */
+public final class MotionGate {
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final int pixelThreshold;
+    private final int changedCellsThreshold;
+    private final int maxSkippedFrames;
+
+    private final byte[] reference;
+    private final byte[] current;
+    private boolean hasReference;
+    private int skippedInRow;
+
+    private long evaluated;
+    private long skipped;
+    private long gateNs;
+    private long workNs;
+    private long workSamples;
+
+    public MotionGate(int gridWidth, int gridHeight, int pixelThreshold, float changedFraction, int maxSkippedFrames) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.pixelThreshold = pixelThreshold;
+        this.changedCellsThreshold = Math.max(1, Math.round(changedFraction * gridWidth * gridHeight));
+        this.maxSkippedFrames = maxSkippedFrames;
+        this.reference = new byte[gridWidth * gridHeight];
+        this.current = new byte[gridWidth * gridHeight];
+    }
+
+    /** Returns whether {@code frame} should be classified; skipped frames reuse the last result. */
+    public synchronized boolean shouldProcess(YuvFrame frame) {
+        long start = System.nanoTime();
+        evaluated++;
+
+        ByteBuffer luma = frame.y;
+        for (int gy = 0, i = 0; gy < gridHeight; gy++) {
+            int row = (int) ((2L * gy + 1) * frame.height / (2L * gridHeight)) * frame.yRowStride;
+            for (int gx = 0; gx < gridWidth; gx++, i++) {
+                int col = (int) ((2L * gx + 1) * frame.width / (2L * gridWidth)) * frame.yPixelStride;
+                current[i] = luma.get(row + col);
+            }
+        }
+
+        boolean process = !hasReference || skippedInRow >= maxSkippedFrames || changed();
+        if (process) {
+            System.arraycopy(current, 0, reference, 0, current.length);
+            hasReference = true;
+            skippedInRow = 0;
+        } else {
+            skippedInRow++;
+            skipped++;
+        }
+
+        gateNs += System.nanoTime() - start;
+        return process;
+    }
+
+    private boolean changed() {
+        int changedCells = 0;
+        for (int i = 0; i < current.length; i++) {
+            if (Math.abs((current[i] & 0xFF) - (reference[i] & 0xFF)) > pixelThreshold) {
+                if (++changedCells >= changedCellsThreshold) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Reports how long the gated work (conversion and inference) took for a processed frame. */
+    public synchronized void recordWorkNs(long ns) {
+        workNs += ns;
+        workSamples++;
+    }
+
+    /** Forgets the reference frame so the next frame is always processed. */
+    public synchronized void reset() {
+        hasReference = false;
+        skippedInRow = 0;
+        evaluated = 0;
+        skipped = 0;
+        gateNs = 0;
+        workNs = 0;
+        workSamples = 0;
+    }
+
+    public synchronized float getSkipRatio() {
+        return evaluated == 0 ? 0f : (float) skipped / evaluated;
+    }
+
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    /** Time spent in the gate itself, in milliseconds. */
+    public synchronized float getGateCostMs() {
+        return gateNs / 1e6f;
+    }
+
+    /** Estimated work avoided by skipped frames, net of the gate's own cost, in milliseconds. */
+    public synchronized float getSavedMs() {
+        if (workSamples == 0) {
+            return 0f;
+        }
+        return (skipped * ((float) workNs / workSamples) - gateNs) / 1e6f;
+    }
+
+    public synchronized String summary() {
+        return String.format(Locale.US, "gate skipped %.0f%%, ~%.0f ms CPU saved", getSkipRatio() * 100, getSavedMs());
+    }
+}
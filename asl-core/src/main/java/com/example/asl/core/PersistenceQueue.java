@@ -0,0 +1,163 @@
+package com.example.asl.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded hand-off from the analyzer to a single background writer thread.
+ *
+ * <p>{@link #offer} never blocks: when the queue is full the item is dropped and counted, so
+ * disk I/O can never stall capture or inference. The writer thread drains whatever has
+ * accumulated, up to {@code maxBatchSize} items, and hands it to the {@link BatchWriter} in
+ * one call. {@link #close(Runnable)} lets the writer thread free what the writer holds once
+ * it has flushed, without anyone waiting for it.
+ */
+public final class PersistenceQueue<T> implements AutoCloseable {
+
+    public interface BatchWriter<T> {
+        /** Persists {@code batch} and returns how many items were written successfully. */
+        int write(List<T> batch);
+    }
+
+    private static final long POLL_INTERVAL_MS = 250;
+    private static final Runnable EXITED = () -> { };
+
+    private final BlockingQueue<T> queue;
+    private final int maxBatchSize;
+    private final BatchWriter<T> writer;
+    private final List<T> batch;
+    private final Thread writerThread;
+    private volatile boolean closed;
+    // Set to EXITED by the writer thread as it stops, unless a close callback was there first
+    private final AtomicReference<Runnable> afterClose = new AtomicReference<>();
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public PersistenceQueue(String name, int capacity, int maxBatchSize, BatchWriter<T> writer) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.writer = writer;
+        this.batch = new ArrayList<>(maxBatchSize);
+        this.writerThread = new Thread(this::drainLoop, name);
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    /** Queues {@code item} for writing, or drops it if the queue is full or closed. */
+    public boolean offer(T item) {
+        offered.incrementAndGet();
+        if (closed || !queue.offer(item)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        try {
+            while (true) {
+                T first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                writeBatch();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            Runnable callback = afterClose.getAndSet(EXITED);
+            if (callback != null) {
+                callback.run();
+            }
+        }
+    }
+
+    private void writeBatch() {
+        int ok;
+        try {
+            ok = writer.write(batch);
+        } catch (RuntimeException e) {
+            ok = 0;
+        }
+        written.addAndGet(ok);
+        failed.addAndGet(batch.size() - ok);
+        batches.incrementAndGet();
+        batch.clear();
+    }
+
+    public long getOffered() {
+        return offered.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public int getDepth() {
+        return queue.size();
+    }
+
+    public String summary() {
+        return String.format(Locale.US, "%d saved in %d batches, %d dropped, %d failed",
+                getWritten(), getBatches(), getDropped(), getFailed());
+    }
+
+    /**
+     * Stops accepting items and waits up to {@code timeoutMs} for the writer to flush what is
+     * already queued.
+     */
+    public void close(long timeoutMs) {
+        closed = true;
+        try {
+            writerThread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops accepting items and returns at once. {@code onDrained} runs on the writer thread
+     * after it has written what is already queued and made its last call to the writer. It
+     * runs right here instead if the thread has already stopped, or if a callback was already
+     * given.
+     */
+    public void close(Runnable onDrained) {
+        if (!afterClose.compareAndSet(null, onDrained)) {
+            onDrained.run();
+        }
+        closed = true;
+    }
+
+    @Override
+    public void close() {
+        close(2000);
+    }
+}
@@ -0,0 +1,434 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The recognition hot path, from a YUV frame to a voted prediction.
+ *
+ * <p>Each frame passes the optional motion gate, is cropped to the optional hand locator's box
+ * (or the centred square), and is converted straight into the next slot of the backend's batch
+ * input. Once the batch is full it is classified, every frame's top-1 prediction feeds the
+ * temporal vote and the capture sampling policy, the batch size is re-tuned, and the voted
+ * result goes to the {@link ResultSink}. A frame the cascade answers early waits to vote until
+ * the older frames of the pending batch have, so the vote always sees frames in order.
+ *
+ * <p>All methods except {@link #summary()} must be called from the thread that delivers the
+ * frames.
+ */
+public final class RecognitionPipeline implements FramePipeline {
+
+    private static final int INPUT_SIZE = 64;
+    private static final int CAPTURE_PIXELS_IDLE = 8;
+
+    private final InferenceBackend backend;
+    private final List<String> classLabels;
+    private final BatchSizeController batchController;
+    private final TemporalVoter voter;
+    private final StageProfiler profiler;
+    private final ResultSink sink;
+
+    private final StreamStats streamStats = new StreamStats();
+    private final YuvTensorConverter converter = new YuvTensorConverter(INPUT_SIZE, INPUT_SIZE);
+    private final int[] roi = new int[4];
+    private final BufferPool<int[]> capturePixels = CaptureRecord.pixelPool(CAPTURE_PIXELS_IDLE);
+    private final int[][] slotPixels; // ARGB copy of each frame in the pending batch
+    private final long[] slotArrivalNs;
+    private final long[] slotFrameIndex; // Skipped and early-exit frames leave gaps between slots
+    private final int[] slotAuditClass; // Small model's class for audited frames, else -1
+    // Early-exit answers that wait for the older frames of the pending batch, oldest first
+    private final int[] earlyClass;
+    private final float[] earlyConfidence;
+    private final long[] earlyArrivalNs;
+    private final long[] earlyFrameIndex;
+    private int earlyFill;
+    private int batchFill;
+    private int batchGeneration;
+    private long lastInferenceNsPerFrame;
+
+    private MotionGate motionGate;
+    private HandLocator handLocator;
+    private SamplingPolicy samplingPolicy = SamplingPolicy.none();
+    private PersistenceQueue<CaptureRecord> captureQueue;
+    private FrameRateScheduler scheduler;
+    private EarlyExitCascade cascade;
+    private FrameCoordinator coordinator;
+    private long droppedAtLastFrame;
+
+    public RecognitionPipeline(InferenceBackend backend, List<String> classLabels, BatchSizeController batchController,
+                               int voteWindow, StageProfiler profiler, ResultSink sink) {
+        this.backend = backend;
+        this.classLabels = classLabels;
+        this.batchController = batchController;
+        this.voter = new TemporalVoter(classLabels.size(), voteWindow);
+        this.profiler = profiler;
+        this.sink = sink;
+        this.slotPixels = new int[backend.getMaxBatchSize()][INPUT_SIZE * INPUT_SIZE];
+        this.slotArrivalNs = new long[backend.getMaxBatchSize()];
+        this.slotFrameIndex = new long[backend.getMaxBatchSize()];
+        this.slotAuditClass = new int[backend.getMaxBatchSize()];
+        this.earlyClass = new int[backend.getMaxBatchSize()];
+        this.earlyConfidence = new float[backend.getMaxBatchSize()];
+        this.earlyArrivalNs = new long[backend.getMaxBatchSize()];
+        this.earlyFrameIndex = new long[backend.getMaxBatchSize()];
+    }
+
+    /** Skips frames where nothing moved; null processes every frame. */
+    @Override
+    public void setMotionGate(MotionGate motionGate) {
+        this.motionGate = motionGate;
+    }
+
+    /** Crops to the located hand; null always uses the centred square. */
+    @Override
+    public void setHandLocator(HandLocator handLocator) {
+        this.handLocator = handLocator;
+    }
+
+    /** Queues the 64x64 input of the frames {@code policy} selects; a null queue saves nothing. */
+    @Override
+    public void setCapture(SamplingPolicy policy, PersistenceQueue<CaptureRecord> queue) {
+        this.samplingPolicy = policy;
+        this.captureQueue = queue;
+    }
+
+    /** Analyzes frames at the rate {@code scheduler} chooses; null analyzes every frame. */
+    @Override
+    public void setScheduler(FrameRateScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /** Lets a small model answer the frames it is sure about; null sends every frame to the full model. */
+    @Override
+    public void setCascade(EarlyExitCascade cascade) {
+        this.cascade = cascade;
+    }
+
+    /**
+     * Bounds the frames in flight, drops pending frames that went stale and withholds the
+     * results of cancelled sessions; null predicts on every frame it is given.
+     */
+    @Override
+    public void setCoordinator(FrameCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    public StreamStats getStreamStats() {
+        return streamStats;
+    }
+
+    @Override
+    public void reset() {
+        streamStats.reset();
+        if (motionGate != null) {
+            motionGate.reset();
+        }
+        if (handLocator != null) {
+            handLocator.reset();
+        }
+        if (scheduler != null) {
+            scheduler.reset(System.nanoTime());
+        }
+        if (cascade != null) {
+            cascade.reset();
+        }
+        droppedAtLastFrame = 0;
+        dropPending(FrameCoordinator.DropReason.CANCELLED);
+        if (coordinator != null) {
+            coordinator.reset();
+        }
+        voter.reset();
+    }
+
+    private void dropPending(FrameCoordinator.DropReason reason) {
+        if (coordinator != null) {
+            for (int i = 0; i < batchFill + earlyFill; i++) {
+                coordinator.drop(reason);
+            }
+        }
+        batchFill = 0;
+        earlyFill = 0;
+    }
+
+    @Override
+    public void onFrame(YuvFrame frame) {
+        streamStats.onFrame(frame.timestampNs);
+        if (scheduler == null) {
+            process(frame);
+            return;
+        }
+        if (!scheduler.admit(frame.timestampNs)) {
+            return;
+        }
+
+        // Frames the camera dropped while this one was waiting are the analyzer's backlog
+        long start = System.nanoTime();
+        process(frame);
+        long now = System.nanoTime();
+        long dropped = streamStats.getDroppedFrames();
+        scheduler.recordFrame(now, now - start, (int) (dropped - droppedAtLastFrame));
+        droppedAtLastFrame = dropped;
+    }
+
+    private void process(YuvFrame frame) {
+        int generation = 0;
+        if (coordinator != null) {
+            // Classify what is waiting rather than let it go stale, or hold slots a newer frame needs;
+            // when frames arrive slowly a full batch may never come together
+            if (batchFill > 0 && (coordinator.isFull() || coordinator.isStale(slotArrivalNs[0], System.nanoTime()))) {
+                runPartialBatch();
+            }
+            generation = coordinator.begin();
+            if (generation < 0) {
+                return;
+            }
+            // A cancelled session's pending frames will never be shown
+            if (batchFill > 0 && generation != batchGeneration) {
+                dropPending(FrameCoordinator.DropReason.CANCELLED);
+                voter.reset();
+            }
+        }
+        long frameTick = profiler.start();
+
+        // Keep the last prediction when nothing moved since it was made
+        boolean moved = motionGate == null || motionGate.shouldProcess(frame);
+        long tick = profiler.lap(StageProfiler.Stage.GATE, frameTick);
+        if (!moved) {
+            if (coordinator != null) {
+                coordinator.drop(FrameCoordinator.DropReason.SKIPPED);
+            }
+            return;
+        }
+        long workStart = System.nanoTime();
+
+        // Crop to the tracked hand, or to the centred square while no hand is found
+        boolean located = handLocator != null && handLocator.locate(frame, roi);
+        if (located) {
+            converter.setCrop(roi[0], roi[1], roi[2], roi[3]);
+        } else {
+            converter.clearCrop();
+        }
+        tick = profiler.lap(StageProfiler.Stage.HAND_ROI, tick);
+
+        // Answer from the small model when it is sure; everything else goes on to the full model
+        int auditClass = -1;
+        if (cascade != null) {
+            int early = cascade.classify(frame, located ? roi : null);
+            tick = profiler.lap(StageProfiler.Stage.CASCADE, tick);
+            if (early >= 0) {
+                // Vote in frame order: behind the frames still waiting for the full model
+                if (batchFill > 0 && earlyFill == earlyClass.length) {
+                    runPartialBatch();
+                }
+                if (batchFill > 0) {
+                    earlyClass[earlyFill] = early;
+                    earlyConfidence[earlyFill] = cascade.getLastConfidence();
+                    earlyArrivalNs[earlyFill] = workStart;
+                    earlyFrameIndex[earlyFill] = streamStats.getAnalyzedFrames();
+                    earlyFill++;
+                    finishFrame(workStart, frameTick);
+                    return;
+                }
+                voter.add(early, cascade.getLastConfidence());
+                if (coordinator == null) {
+                    sink.onResult(classLabels.get(voter.getWinner()), voter.getWinnerConfidence(), details());
+                } else if (coordinator.isCurrent(generation)) {
+                    coordinator.complete(workStart, System.nanoTime());
+                    sink.onResult(classLabels.get(voter.getWinner()), voter.getWinnerConfidence(), details());
+                } else {
+                    coordinator.drop(FrameCoordinator.DropReason.CANCELLED);
+                }
+                finishFrame(workStart, frameTick);
+                return;
+            }
+            auditClass = cascade.getAuditClass();
+        }
+
+        if (batchFill == 0) {
+            batchGeneration = generation;
+        }
+
+        // Crop, rotate, downsample and normalize the YUV planes straight into the next slot of
+        // the batch input; quantized models take the RGB bytes as they are
+        int slot = batchFill;
+        if (slot >= backend.getBatchSize()) {
+            // Grow only once the batch needs the room, to the controller's size; the frames
+            // already written stay in the input
+            backend.setBatchSize(Math.min(backend.getMaxBatchSize(), Math.max(slot + 1, batchController.getBatchSize())));
+        }
+        int slotOffset = slot * backend.getFrameInputBytes();
+        if (backend.isQuantizedInput()) {
+            ByteBuffer input = backend.getInputBuffer();
+            input.position(slotOffset);
+            converter.toRgb(frame, input, backend.isSignedInput(), slotPixels[slot]);
+        } else {
+            FloatBuffer input = backend.getInputFloatBuffer();
+            input.position(slotOffset / 4);
+            converter.toFloat(frame, input, slotPixels[slot]);
+        }
+        slotArrivalNs[slot] = workStart;
+        slotFrameIndex[slot] = streamStats.getAnalyzedFrames();
+        slotAuditClass[slot] = auditClass;
+        batchController.onFrameArrival(workStart);
+        batchFill++;
+        profiler.lap(StageProfiler.Stage.CONVERT, tick);
+
+        // Run prediction once the batch is full, or once it has as many frames as the
+        // controller now wants because they started arriving more slowly
+        if (batchFill >= Math.min(backend.getMaxBatchSize(), batchController.getBatchSize())) {
+            runPartialBatch();
+        }
+        finishFrame(workStart, frameTick);
+    }
+
+    /**
+     * Classifies the {@code batchFill} frames waiting, running the batch at that size; the
+     * backend grows back to the controller's size only when a later batch needs the room.
+     */
+    private void runPartialBatch() {
+        if (coordinator != null && !coordinator.isCurrent(batchGeneration)) {
+            dropPending(FrameCoordinator.DropReason.CANCELLED);
+            return;
+        }
+        if (batchFill != backend.getBatchSize()) {
+            backend.setBatchSize(batchFill);
+        }
+        runBatch();
+        batchFill = 0;
+    }
+
+    private void finishFrame(long workStart, long frameTick) {
+        if (motionGate != null) {
+            motionGate.recordWorkNs(System.nanoTime() - workStart);
+        }
+        profiler.lap(StageProfiler.Stage.FRAME, frameTick);
+    }
+
+    private void runBatch() {
+        // Perform inference on the whole batch
+        int batchSize = backend.getBatchSize();
+        long runStart = System.nanoTime();
+        long queueDelayNs = runStart - slotArrivalNs[0];
+        long tick = profiler.start();
+        float[] scores = backend.run();
+        long inferenceNs = System.nanoTime() - runStart;
+        lastInferenceNsPerFrame = inferenceNs / batchSize;
+        if (cascade != null) {
+            cascade.recordFullInference(inferenceNs, batchSize);
+        }
+        tick = profiler.lap(StageProfiler.Stage.INFERENCE, tick);
+
+        // Vote over the per-frame predictions and the early answers between them, oldest first
+        int numClasses = backend.getNumClasses();
+        int nextEarly = 0;
+        for (int slot = 0; slot < batchSize; slot++) {
+            while (nextEarly < earlyFill && earlyFrameIndex[nextEarly] < slotFrameIndex[slot]) {
+                voter.add(earlyClass[nextEarly], earlyConfidence[nextEarly]);
+                nextEarly++;
+            }
+            int offset = slot * numClasses;
+            int maxIndex = argmax(scores, offset, numClasses);
+            float confidence = scores[offset + maxIndex];
+            voter.add(maxIndex, confidence);
+            if (cascade != null && slotAuditClass[slot] >= 0) {
+                cascade.onAudit(slotAuditClass[slot], maxIndex);
+            }
+
+            // Queue the 64x64 model input for saving if the sampling policy wants it
+            long frameIndex = slotFrameIndex[slot];
+            if (captureQueue != null && samplingPolicy.shouldSave(frameIndex, confidence)) {
+                int[] pixels = CaptureRecord.leasePixels(capturePixels, INPUT_SIZE, INPUT_SIZE);
+                System.arraycopy(slotPixels[slot], 0, pixels, 0, pixels.length);
+                CaptureRecord record = new CaptureRecord(pixels, capturePixels, INPUT_SIZE, INPUT_SIZE,
+                        classLabels.get(maxIndex), confidence, frameIndex, System.currentTimeMillis());
+                if (!captureQueue.offer(record)) {
+                    record.recycle();
+                }
+            }
+        }
+
+        for (; nextEarly < earlyFill; nextEarly++) {
+            voter.add(earlyClass[nextEarly], earlyConfidence[nextEarly]);
+        }
+        int earlyCount = earlyFill;
+        earlyFill = 0;
+
+        // The backend is resized only when a later batch needs a different size
+        batchController.onBatchComplete(batchSize, inferenceNs, queueDelayNs);
+        profiler.lap(StageProfiler.Stage.POSTPROCESS, tick);
+
+        if (coordinator != null) {
+            boolean current = coordinator.isCurrent(batchGeneration);
+            long now = System.nanoTime();
+            for (int slot = 0; slot < batchSize; slot++) {
+                if (current) {
+                    coordinator.complete(slotArrivalNs[slot], now);
+                } else {
+                    coordinator.drop(FrameCoordinator.DropReason.CANCELLED);
+                }
+            }
+            for (int i = 0; i < earlyCount; i++) {
+                if (current) {
+                    coordinator.complete(earlyArrivalNs[i], now);
+                } else {
+                    coordinator.drop(FrameCoordinator.DropReason.CANCELLED);
+                }
+            }
+            if (!current) {
+                return;
+            }
+        }
+        sink.onResult(classLabels.get(voter.getWinner()), voter.getWinnerConfidence(), details());
+    }
+
+    private String details() {
+        return streamStats.summary() + String.format(Locale.US, ", %.1f ms inference", backend.getLastInferenceMs())
+                + "\n" + batchController.summary()
+                + (captureQueue != null ? "\n" + captureQueue.summary() : "")
+                + (motionGate != null ? "\n" + motionGate.summary() : "")
+                + (cascade != null ? "\n" + cascade.summary() : "");
+    }
+
+    @Override
+    public float getLastInferenceMsPerFrame() {
+        return lastInferenceNsPerFrame / 1e6f;
+    }
+
+    /** Index of the highest of {@code length} scores starting at {@code offset}. */
+    public static int argmax(float[] scores, int offset, int length) {
+        int maxIndex = 0;
+        float maxScore = scores[offset];
+        for (int i = 1; i < length; i++) {
+            if (scores[offset + i] > maxScore) {
+                maxScore = scores[offset + i];
+                maxIndex = i;
+            }
+        }
+        return maxIndex;
+    }
+
+    @Override
+    public String summary() {
+        return "Stream: " + streamStats.summary()
+                + "\nBatching: " + batchController.summary()
+                + (scheduler != null ? "\nScheduler: " + scheduler.summary() : "")
+                + (cascade != null ? "\nCascade: " + cascade.summary() : "")
+                + (coordinator != null ? "\nIn flight: " + coordinator.summary() : "")
+                + (captureQueue != null ? "\nCaptures: " + captureQueue.summary() : "")
+                + (motionGate != null ? "\nMotion gate: " + motionGate.summary() + ", " + motionGate.getGateCostMs() + " ms in gate" : "");
+    }
+
+    /** Runs on the frame thread; nothing to start. */
+    @Override
+    public void start() {
+    }
+
+    /** Owns no threads; drops the frames still waiting for a batch, so the coordinator can reuse their slots. */
+    @Override
+    public void close() {
+        dropPending(FrameCoordinator.DropReason.CANCELLED);
+    }
+}
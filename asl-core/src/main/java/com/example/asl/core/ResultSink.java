@@ -0,0 +1,14 @@
+package com.example.asl.core;
+
+/**
+ * Receives the pipeline's output after every batch, on the pipeline's thread.
+ */
+public interface ResultSink {
+
+    /**
+     * @param label      the voted prediction
+     * @param confidence mean confidence of the frames that voted for it
+     * @param details    multi-line throughput and queue statistics for display
+     */
+    void onResult(String label, float confidence, String details);
+}
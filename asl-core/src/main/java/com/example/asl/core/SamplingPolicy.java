@@ -0,0 +1,45 @@
+package com.example.asl.core;
+
+/**
+ * Decides which analyzed frames are worth saving.
+ */
+public interface SamplingPolicy {
+
+    boolean shouldSave(long frameIndex, float confidence);
+
+    static SamplingPolicy none() {
+        return (frameIndex, confidence) -> false;
+    }
+
+    static SamplingPolicy all() {
+        return (frameIndex, confidence) -> true;
+    }
+
+    static SamplingPolicy everyNth(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        return (frameIndex, confidence) -> frameIndex % n == 0;
+    }
+
+    /** Saves frames the classifier was unsure about, the most useful ones to relabel. */
+    static SamplingPolicy belowConfidence(float threshold) {
+        return (frameIndex, confidence) -> confidence < threshold;
+    }
+
+    /** Resolves the {@code capture_sampling_*} configuration values. */
+    static SamplingPolicy fromConfig(String mode, int everyNth, float confidenceThreshold) {
+        switch (mode) {
+            case "none":
+                return none();
+            case "all":
+                return all();
+            case "every_nth":
+                return everyNth(everyNth);
+            case "low_confidence":
+                return belowConfidence(confidenceThreshold);
+            default:
+                throw new IllegalArgumentException("Unknown capture sampling policy: " + mode);
+        }
+    }
+}
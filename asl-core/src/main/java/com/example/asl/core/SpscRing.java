@@ -0,0 +1,104 @@
+package com.example.asl.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded lock-free ring of preallocated slots between exactly one producer thread and one
+ * consumer thread.
+ *
+ * <p>The producer {@link #claim()}s the next free slot, fills it and {@link #publish()}es it; the
+ * consumer {@link #peek(int)}s published slots in order and {@link #release(int)}s them once it
+ * is done, which hands them back to the producer. Slots are created once by the factory and
+ * reused forever, so passing work through the ring allocates nothing. Each side caches the
+ * other's index and only rereads it when the ring looks full or empty.
+ */
+public final class SpscRing<T> {
+
+    private final Object[] slots;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong(); // Next slot to consume
+    private final AtomicLong tail = new AtomicLong(); // Next slot to produce
+
+    // Producer side
+    private long producerIndex;
+    private long cachedHead;
+
+    // Consumer side
+    private long consumerIndex;
+    private long cachedTail;
+
+    /** {@code capacity} is rounded up to a power of two. */
+    public SpscRing(int capacity, Supplier<T> factory) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        slots = new Object[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = factory.get();
+        }
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /** Producer: the next free slot, or null when the consumer has not released enough yet. */
+    public T claim() {
+        if (producerIndex - cachedHead >= slots.length) {
+            cachedHead = head.get();
+            if (producerIndex - cachedHead >= slots.length) {
+                return null;
+            }
+        }
+        return slot(producerIndex);
+    }
+
+    /** Producer: free slots available to {@link #claim()} without waiting. */
+    public int remainingCapacity() {
+        cachedHead = head.get();
+        return slots.length - (int) (producerIndex - cachedHead);
+    }
+
+    /** Producer: makes the last claimed slot visible to the consumer. */
+    public void publish() {
+        producerIndex++;
+        tail.lazySet(producerIndex);
+    }
+
+    /** Consumer: the {@code offset}-th oldest published slot, or null if fewer are published. */
+    public T peek(int offset) {
+        if (consumerIndex + offset >= cachedTail) {
+            cachedTail = tail.get();
+            if (consumerIndex + offset >= cachedTail) {
+                return null;
+            }
+        }
+        return slot(consumerIndex + offset);
+    }
+
+    /** Consumer: published slots waiting to be consumed. */
+    public int available() {
+        cachedTail = tail.get();
+        return (int) (cachedTail - consumerIndex);
+    }
+
+    /** Consumer: hands the {@code count} oldest slots back to the producer. */
+    public void release(int count) {
+        consumerIndex += count;
+        head.lazySet(consumerIndex);
+    }
+
+    /** Slots published and not yet released; approximate when read from a third thread. */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private T slot(long index) {
+        return (T) slots[(int) index & mask];
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.asl.core;
+
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-stage latency histograms for the analyzer pipeline.
+ *
+ * <p>Stages are timed with a tick counter ({@code Core.getTickCount} in the app) by chaining
+ * laps: {@link #start()} returns the current tick and each {@link #lap} records the time since
+ * the previous tick under a stage and returns the new one. Nothing is allocated per frame, and
+ * while profiling is disabled the clock is not read at all, so the instrumentation can stay in
+ * place in release builds and be switched on from the UI.
+ */
+public final class StageProfiler {
+
+    public enum Stage {
+        GATE("gate"),
+        HAND_ROI("hand_roi"),
+        CASCADE("cascade"),
+        CONVERT("convert"),
+        INFERENCE("inference"),
+        POSTPROCESS("postprocess"),
+        FRAME("frame");
+
+        final String jsonName;
+
+        Stage(String jsonName) {
+            this.jsonName = jsonName;
+        }
+    }
+
+    private final LongSupplier ticks;
+    private final double nsPerTick;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private volatile boolean enabled;
+
+    public StageProfiler(LongSupplier ticks, double ticksPerSecond, boolean enabled) {
+        this.ticks = ticks;
+        this.nsPerTick = 1e9 / ticksPerSecond;
+        this.enabled = enabled;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** Returns the current tick, or 0 while profiling is disabled. */
+    public long start() {
+        return enabled ? ticks.getAsLong() : 0;
+    }
+
+    /**
+     * Records the time since {@code sinceTick} under {@code stage} and returns the current tick,
+     * ready for the next stage. Does nothing while disabled or if {@code sinceTick} came from a
+     * disabled {@link #start()}.
+     */
+    public long lap(Stage stage, long sinceTick) {
+        if (!enabled || sinceTick == 0) {
+            return 0;
+        }
+        long now = ticks.getAsLong();
+        histograms[stage.ordinal()].record((long) ((now - sinceTick) * nsPerTick));
+        return now;
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /** One line per stage that has samples: count, mean and p50/p95/p99 in milliseconds. */
+    public String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = histograms[stage.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            if (summary.length() > 0) {
+                summary.append('\n');
+            }
+            summary.append(String.format(Locale.US, "%s: %d, mean %.2f, p50 %.2f, p95 %.2f, p99 %.2f ms",
+                    stage.jsonName, histogram.getCount(), histogram.getMeanNs() / 1e6,
+                    histogram.getPercentileNs(50) / 1e6, histogram.getPercentileNs(95) / 1e6,
+                    histogram.getPercentileNs(99) / 1e6));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Dumps every stage as a JSON object keyed by stage name. {@code device} is written as-is
+     * into a top-level "device" field to tell lab devices apart.
+     */
+    public String toJson(String device) {
+        StringBuilder json = new StringBuilder("{\"device\":\"").append(escape(device)).append("\",\"stages\":{");
+        Stage[] stages = Stage.values();
+        for (int i = 0; i < stages.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.US,
+                    "\"%s\":{\"count\":%d,\"mean_ms\":%.3f,\"min_ms\":%.3f,\"p50_ms\":%.3f,\"p95_ms\":%.3f,\"p99_ms\":%.3f,\"max_ms\":%.3f}",
+                    stages[i].jsonName, histogram.getCount(), histogram.getMeanNs() / 1e6, histogram.getMinNs() / 1e6,
+                    histogram.getPercentileNs(50) / 1e6, histogram.getPercentileNs(95) / 1e6,
+                    histogram.getPercentileNs(99) / 1e6, histogram.getMaxNs() / 1e6));
+        }
+        return json.append("}}").toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
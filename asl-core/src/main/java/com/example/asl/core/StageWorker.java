@@ -0,0 +1,147 @@
+package com.example.asl.core;
+
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread that runs one pipeline stage's step in a loop and measures how busy it is.
+ *
+ * <p>The step returns whether it did any work. After a run of idle steps the thread backs off
+ * from spinning to yielding to short parks, so an idle stage costs little CPU while a busy one
+ * reacts within microseconds. A step that throws is counted, reported to the
+ * {@link ErrorListener} (the first failure, then at most once per
+ * {@value #ERROR_REPORT_INTERVAL_MS} ms with the number of failures since), and the loop
+ * carries on; a failed step counts as idle, so a stage that keeps failing backs off too.
+ */
+public final class StageWorker {
+
+    public interface Step {
+        /** Does one unit of work if there is any; returns false when there was nothing to do. */
+        boolean step();
+    }
+
+    public interface ErrorListener {
+        /** Called on the stage's thread; {@code failures} counts the errors since the last report. */
+        void onStageError(String stage, RuntimeException error, long failures);
+    }
+
+    private static final int SPIN_STEPS = 64;
+    private static final int YIELD_STEPS = 128;
+    private static final long PARK_NS = 100_000L;
+    private static final long ERROR_REPORT_INTERVAL_MS = 1000;
+
+    private final String name;
+    private final Step step;
+    private final ErrorListener errorListener;
+    private volatile boolean running;
+    private Thread thread;
+
+    private volatile long statsStartNs;
+    private volatile long busyNs;
+    private volatile long items;
+    private volatile long errors;
+    private volatile RuntimeException lastError;
+    private long lastReportNs;
+    private long unreportedErrors;
+
+    public StageWorker(String name, Step step, ErrorListener errorListener) {
+        this.name = name;
+        this.step = step;
+        this.errorListener = errorListener;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        resetStats();
+        thread = new Thread(this::loop, name);
+        thread.start();
+    }
+
+    /** Stops the thread after its current step and waits for it. */
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    private void loop() {
+        int idle = 0;
+        while (running) {
+            long start = System.nanoTime();
+            boolean worked;
+            try {
+                worked = step.step();
+            } catch (RuntimeException e) {
+                onError(e, start);
+                worked = false;
+            }
+            if (worked) {
+                busyNs += System.nanoTime() - start;
+                items++;
+                idle = 0;
+            } else if (++idle <= SPIN_STEPS) {
+                // Spin briefly; the next item is usually only a frame away
+            } else if (idle <= SPIN_STEPS + YIELD_STEPS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NS);
+            }
+        }
+    }
+
+    private void onError(RuntimeException e, long nowNs) {
+        errors++;
+        lastError = e;
+        unreportedErrors++;
+        if (errors == 1 || nowNs - lastReportNs >= ERROR_REPORT_INTERVAL_MS * 1_000_000L) {
+            errorListener.onStageError(name, e, unreportedErrors);
+            lastReportNs = nowNs;
+            unreportedErrors = 0;
+        }
+    }
+
+    /** Fraction of the time since the stats were reset that the step spent doing work. */
+    public float getUtilization() {
+        long elapsed = System.nanoTime() - statsStartNs;
+        return elapsed <= 0 ? 0f : Math.min(1f, (float) busyNs / elapsed);
+    }
+
+    public long getItems() {
+        return items;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /** The most recent exception thrown by the step, or null. */
+    public RuntimeException getLastError() {
+        return lastError;
+    }
+
+    public void resetStats() {
+        busyNs = 0;
+        items = 0;
+        statsStartNs = System.nanoTime();
+    }
+
+    public String summary() {
+        return String.format(Locale.US, "%s %.0f%% busy, %d items%s", name, getUtilization() * 100, items,
+                errors > 0 ? ", " + errors + " errors" : "");
+    }
+}
@@ -0,0 +1,630 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link RecognitionPipeline} split into stages on their own threads. Preprocessing the next
+ * frames then overlaps inference on the current batch, and voting, capture sampling and
+ * result delivery never hold up either.
+ *
+ * <p>The frame thread is the capture stage: it copies the frame's planes into a preallocated
+ * slot and returns at once. Preprocess (motion gate, hand ROI, early-exit cascade, conversion),
+ * inference (batching) and sink (vote, capture sampling, results) each run on a
+ * {@link StageWorker}. Stages are connected by {@link SpscRing}s of preallocated slots, so the
+ * steady state allocates nothing but capture records. A stage whose output ring is full waits;
+ * the capture stage drops the new frame instead, as the camera does under its keep-latest
+ * policy. Frames the cascade answers go straight from preprocess to sink on a ring of their own,
+ * and the sink merges the two rings back into frame order. A partial batch runs once its oldest
+ * frame has waited {@link #setMaxBatchWaitNs long enough}, so the last frames of a burst are
+ * classified even when no more arrive.
+ *
+ * <p>Configure with the setters, then {@link #start()}; {@link #close()} stops the threads.
+ * {@link #onFrame} and {@link #reset()} must be called from the frame thread.
+ */
+public final class StagedRecognitionPipeline implements FramePipeline {
+
+    private static final int INPUT_SIZE = 64;
+    private static final long DEFAULT_MAX_BATCH_WAIT_NS = 100_000_000L;
+    private static final int CAPTURE_PIXELS_IDLE = 8;
+
+    /** A copy of one camera frame, made on the capture thread. */
+    private static final class FrameSlot {
+        final YuvFrame frame = new YuvFrame();
+        ByteBuffer y;
+        ByteBuffer u;
+        ByteBuffer v;
+        long arrivalNs;
+        long frameIndex;
+        int generation;
+        int session;
+
+        void copyFrom(YuvFrame src) {
+            y = copy(src.y, y);
+            u = copy(src.u, u);
+            v = copy(src.v, v);
+            frame.set(src.width, src.height, src.rotationDegrees, src.timestampNs,
+                    y, src.yRowStride, src.yPixelStride, u, v, src.uvRowStride, src.uvPixelStride);
+        }
+
+        private static ByteBuffer copy(ByteBuffer src, ByteBuffer dst) {
+            int bytes = src.limit();
+            if (dst == null || dst.capacity() < bytes) {
+                dst = ByteBuffer.allocateDirect(bytes);
+            }
+            ByteBuffer from = src.duplicate();
+            from.position(0);
+            dst.clear();
+            dst.put(from);
+            dst.flip();
+            return dst;
+        }
+    }
+
+    /** One preprocessed frame: the model input and its pixels. */
+    private static final class TensorSlot {
+        final ByteBuffer tensor;
+        final FloatBuffer floats;
+        final int[] argb = new int[INPUT_SIZE * INPUT_SIZE];
+        long arrivalNs;
+        long frameIndex;
+        int generation;
+        int session;
+        int auditClass;
+
+        TensorSlot(int bytes) {
+            tensor = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+            floats = tensor.asFloatBuffer();
+        }
+    }
+
+    /** One classified frame on its way to the sink. */
+    private static final class ResultSlot {
+        final int[] argb = new int[INPUT_SIZE * INPUT_SIZE];
+        boolean hasPixels;
+        int classIndex;
+        float confidence;
+        long arrivalNs;
+        long frameIndex;
+        /** Tensors published before this early result; they must reach the sink first. */
+        long tensorsBefore;
+        int generation;
+        int session;
+    }
+
+    private final InferenceBackend backend;
+    private final List<String> classLabels;
+    private final BatchSizeController batchController;
+    private final TemporalVoter voter;
+    private final StageProfiler profiler;
+    private final ResultSink sink;
+
+    private final SpscRing<FrameSlot> frames;
+    private final SpscRing<TensorSlot> tensors;
+    private final SpscRing<ResultSlot> results;
+    private final SpscRing<ResultSlot> earlyResults;
+    private final StageWorker preprocessWorker = new StageWorker("Preprocess", this::preprocess, this::onStageError);
+    private final StageWorker inferenceWorker = new StageWorker("Inference", this::infer, this::onStageError);
+    private final StageWorker sinkWorker = new StageWorker("Sink", this::deliver, this::onStageError);
+    private volatile StageWorker.ErrorListener errorListener;
+
+    private final StreamStats streamStats = new StreamStats();
+    private volatile int session;
+    private volatile long captureStartNs = System.nanoTime();
+    private volatile long captureBusyNs;
+    private volatile long captureDropped;
+    // Written by the preprocess stage only
+    private long tensorsPublished;
+    // Written by the inference stage only; read by the sink to order early results
+    private volatile long tensorsRetired;
+    private long droppedAtLastBatch;
+    private volatile long lastInferenceNsPerFrame;
+
+    // Owned by the preprocess thread
+    private final YuvTensorConverter converter = new YuvTensorConverter(INPUT_SIZE, INPUT_SIZE);
+    private final int[] roi = new int[4];
+    private int preprocessSession;
+    // What the gate and cascade decided for the frame at the head of the frame ring
+    private boolean decided;
+    private long decidedWorkStart;
+    private int decidedEarlyClass;
+    private float decidedEarlyConfidence;
+    private int decidedAuditClass;
+
+    // Owned by the sink thread
+    private int sinkSession;
+    private final BufferPool<int[]> capturePixels = CaptureRecord.pixelPool(CAPTURE_PIXELS_IDLE);
+
+    private MotionGate motionGate;
+    private HandLocator handLocator;
+    private SamplingPolicy samplingPolicy = SamplingPolicy.none();
+    private PersistenceQueue<CaptureRecord> captureQueue;
+    private FrameRateScheduler scheduler;
+    private EarlyExitCascade cascade;
+    private FrameCoordinator coordinator;
+    private volatile long maxBatchWaitNs = DEFAULT_MAX_BATCH_WAIT_NS;
+
+    /**
+     * @param ringCapacity slots between each pair of stages; at least the backend's largest
+     *                     batch, so the inference stage can always gather a full one
+     */
+    public StagedRecognitionPipeline(InferenceBackend backend, List<String> classLabels,
+                                     BatchSizeController batchController, int voteWindow, StageProfiler profiler,
+                                     ResultSink sink, int ringCapacity) {
+        this.backend = backend;
+        this.classLabels = classLabels;
+        this.batchController = batchController;
+        this.voter = new TemporalVoter(classLabels.size(), voteWindow);
+        this.profiler = profiler;
+        this.sink = sink;
+
+        int capacity = Math.max(ringCapacity, backend.getMaxBatchSize());
+        int frameBytes = backend.getFrameInputBytes();
+        frames = new SpscRing<>(2, FrameSlot::new);
+        tensors = new SpscRing<>(capacity, () -> new TensorSlot(frameBytes));
+        results = new SpscRing<>(capacity, ResultSlot::new);
+        earlyResults = new SpscRing<>(capacity, ResultSlot::new);
+    }
+
+    /** Skips frames where nothing moved; null processes every frame. */
+    @Override
+    public void setMotionGate(MotionGate motionGate) {
+        this.motionGate = motionGate;
+    }
+
+    /** Crops to the located hand; null always uses the centred square. */
+    @Override
+    public void setHandLocator(HandLocator handLocator) {
+        this.handLocator = handLocator;
+    }
+
+    /** Queues the 64x64 input of the frames {@code policy} selects; a null queue saves nothing. */
+    @Override
+    public void setCapture(SamplingPolicy policy, PersistenceQueue<CaptureRecord> queue) {
+        this.samplingPolicy = policy;
+        this.captureQueue = queue;
+    }
+
+    /** Analyzes frames at the rate {@code scheduler} chooses; null analyzes every frame. */
+    @Override
+    public void setScheduler(FrameRateScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /** Lets a small model answer the frames it is sure about; null sends every frame to the full model. */
+    @Override
+    public void setCascade(EarlyExitCascade cascade) {
+        this.cascade = cascade;
+    }
+
+    /** Bounds the frames in flight across all stages and withholds the results of cancelled sessions. */
+    @Override
+    public void setCoordinator(FrameCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    /**
+     * Runs a partial batch once its oldest frame has waited {@code ns}, with or without a
+     * coordinator; 100 ms by default.
+     */
+    public void setMaxBatchWaitNs(long ns) {
+        this.maxBatchWaitNs = ns;
+    }
+
+    /**
+     * Receives the exceptions the stages throw, rate limited per stage; the sequential pipeline
+     * lets them reach the frame thread's caller instead.
+     */
+    public void setErrorListener(StageWorker.ErrorListener listener) {
+        this.errorListener = listener;
+    }
+
+    private void onStageError(String stage, RuntimeException error, long failures) {
+        StageWorker.ErrorListener listener = errorListener;
+        if (listener != null) {
+            listener.onStageError(stage, error, failures);
+        }
+    }
+
+    @Override
+    public void start() {
+        preprocessWorker.start();
+        inferenceWorker.start();
+        sinkWorker.start();
+    }
+
+    /** Stops the stage threads, then drops every frame left in the rings; call from the frame thread. */
+    @Override
+    public void close() {
+        preprocessWorker.stop();
+        inferenceWorker.stop();
+        sinkWorker.stop();
+        dropAll(frames);
+        dropAll(tensors);
+        dropAll(results);
+        dropAll(earlyResults);
+    }
+
+    private void dropAll(SpscRing<?> ring) {
+        int count = ring.available();
+        for (int i = 0; i < count; i++) {
+            drop(FrameCoordinator.DropReason.CANCELLED);
+        }
+        ring.release(count);
+    }
+
+    @Override
+    public StreamStats getStreamStats() {
+        return streamStats;
+    }
+
+    @Override
+    public float getLastInferenceMsPerFrame() {
+        return lastInferenceNsPerFrame / 1e6f;
+    }
+
+    /**
+     * Starts a new session. Frames already in the rings belong to the old one and are dropped
+     * by whichever stage meets them next.
+     */
+    @Override
+    public void reset() {
+        session++;
+        streamStats.reset();
+        if (scheduler != null) {
+            scheduler.reset(System.nanoTime());
+        }
+        if (cascade != null) {
+            cascade.reset();
+        }
+        if (coordinator != null) {
+            coordinator.reset();
+        }
+        captureStartNs = System.nanoTime();
+        captureBusyNs = 0;
+        captureDropped = 0;
+        preprocessWorker.resetStats();
+        inferenceWorker.resetStats();
+        sinkWorker.resetStats();
+    }
+
+    // Capture stage, on the frame thread
+
+    @Override
+    public void onFrame(YuvFrame frame) {
+        long start = System.nanoTime();
+        streamStats.onFrame(frame.timestampNs);
+        if (scheduler != null && !scheduler.admit(frame.timestampNs)) {
+            return;
+        }
+        int generation = 0;
+        if (coordinator != null) {
+            generation = coordinator.begin();
+            if (generation < 0) {
+                return;
+            }
+        }
+
+        FrameSlot slot = frames.claim();
+        if (slot == null) {
+            // Preprocessing is behind; the camera keeps only its latest frame, so do the same
+            if (coordinator != null) {
+                coordinator.drop(FrameCoordinator.DropReason.BUSY);
+            }
+            captureDropped++;
+            return;
+        }
+        slot.copyFrom(frame);
+        slot.arrivalNs = start;
+        slot.frameIndex = streamStats.getAnalyzedFrames();
+        slot.generation = generation;
+        slot.session = session;
+        frames.publish();
+        captureBusyNs += System.nanoTime() - start;
+    }
+
+    // Preprocess stage
+
+    private boolean preprocess() {
+        FrameSlot in = frames.peek(0);
+        if (in == null) {
+            return false;
+        }
+        if (preprocessSession != session) {
+            preprocessSession = session;
+            if (motionGate != null) {
+                motionGate.reset();
+            }
+            if (handLocator != null) {
+                handLocator.reset();
+            }
+        }
+        if (in.session != preprocessSession) {
+            drop(FrameCoordinator.DropReason.CANCELLED);
+            frames.release(1);
+            decided = false;
+            return true;
+        }
+
+        // The gate, tracker and cascade must see each frame only once, so their decision is kept
+        // while the output ring it needs is full
+        long tick = profiler.start();
+        if (!decided) {
+            // Keep the last prediction when nothing moved since it was made
+            boolean moved = motionGate == null || motionGate.shouldProcess(in.frame);
+            tick = profiler.lap(StageProfiler.Stage.GATE, tick);
+            if (!moved) {
+                drop(FrameCoordinator.DropReason.SKIPPED);
+                frames.release(1);
+                return true;
+            }
+            decidedWorkStart = System.nanoTime();
+
+            // Crop to the tracked hand, or to the centred square while no hand is found
+            boolean located = handLocator != null && handLocator.locate(in.frame, roi);
+            if (located) {
+                converter.setCrop(roi[0], roi[1], roi[2], roi[3]);
+            } else {
+                converter.clearCrop();
+            }
+            tick = profiler.lap(StageProfiler.Stage.HAND_ROI, tick);
+
+            // Answer from the small model when it is sure; everything else goes on to the full model
+            decidedEarlyClass = -1;
+            decidedAuditClass = -1;
+            if (cascade != null) {
+                decidedEarlyClass = cascade.classify(in.frame, located ? roi : null);
+                decidedEarlyConfidence = cascade.getLastConfidence();
+                decidedAuditClass = cascade.getAuditClass();
+                tick = profiler.lap(StageProfiler.Stage.CASCADE, tick);
+            }
+            decided = true;
+        }
+
+        if (decidedEarlyClass >= 0) {
+            ResultSlot early = earlyResults.claim();
+            if (early == null) {
+                return false;
+            }
+            early.hasPixels = false;
+            early.classIndex = decidedEarlyClass;
+            early.confidence = decidedEarlyConfidence;
+            early.arrivalNs = in.arrivalNs;
+            early.frameIndex = in.frameIndex;
+            early.tensorsBefore = tensorsPublished;
+            early.generation = in.generation;
+            early.session = in.session;
+            earlyResults.publish();
+            frames.release(1);
+            decided = false;
+            recordWork(decidedWorkStart);
+            return true;
+        }
+
+        // Convert into the slot; the inference stage copies it into the batch input
+        TensorSlot out = tensors.claim();
+        if (out == null) {
+            return false;
+        }
+        if (backend.isQuantizedInput()) {
+            out.tensor.clear();
+            converter.toRgb(in.frame, out.tensor, backend.isSignedInput(), out.argb);
+        } else {
+            out.floats.clear();
+            converter.toFloat(in.frame, out.floats, out.argb);
+        }
+        out.arrivalNs = in.arrivalNs;
+        out.frameIndex = in.frameIndex;
+        out.generation = in.generation;
+        out.session = in.session;
+        out.auditClass = decidedAuditClass;
+        tensors.publish();
+        tensorsPublished++;
+        frames.release(1);
+        decided = false;
+        batchController.onFrameArrival(decidedWorkStart);
+        profiler.lap(StageProfiler.Stage.CONVERT, tick);
+        recordWork(decidedWorkStart);
+        return true;
+    }
+
+    private void recordWork(long workStart) {
+        if (motionGate != null) {
+            motionGate.recordWorkNs(System.nanoTime() - workStart);
+        }
+    }
+
+    // Inference stage
+
+    private boolean infer() {
+        // Drop frames at the head that were cancelled while waiting for a batch
+        TensorSlot head = tensors.peek(0);
+        if (head == null) {
+            return false;
+        }
+        if (head.session != session || (coordinator != null && !coordinator.isCurrent(head.generation))) {
+            drop(FrameCoordinator.DropReason.CANCELLED);
+            tensors.release(1);
+            tensorsRetired++;
+            return true;
+        }
+
+        // Run a full batch, or as many frames as the controller now wants because they arrive
+        // more slowly; once the oldest frame has waited too long, run whatever has arrived, so
+        // the end of a burst is classified even if no more frames come
+        int wanted = Math.min(backend.getMaxBatchSize(), batchController.getBatchSize());
+        int ready = Math.min(tensors.available(), wanted);
+        if (ready < wanted) {
+            long now = System.nanoTime();
+            boolean stale = coordinator != null && coordinator.isStale(head.arrivalNs, now);
+            if (!stale && now - head.arrivalNs < maxBatchWaitNs) {
+                return false;
+            }
+        }
+        int batchSize = ready;
+        if (results.remainingCapacity() < batchSize) {
+            return false;
+        }
+        if (batchSize != backend.getBatchSize()) {
+            backend.setBatchSize(batchSize);
+        }
+
+        // Gather the batch into the backend's input and classify it
+        ByteBuffer input = backend.getInputBuffer();
+        for (int i = 0; i < batchSize; i++) {
+            ByteBuffer tensor = tensors.peek(i).tensor;
+            tensor.clear();
+            input.put(tensor);
+        }
+        long runStart = System.nanoTime();
+        long queueDelayNs = runStart - head.arrivalNs;
+        long tick = profiler.start();
+        float[] scores = backend.run();
+        long inferenceNs = System.nanoTime() - runStart;
+        profiler.lap(StageProfiler.Stage.INFERENCE, tick);
+        lastInferenceNsPerFrame = inferenceNs / batchSize;
+
+        int numClasses = backend.getNumClasses();
+        for (int i = 0; i < batchSize; i++) {
+            TensorSlot in = tensors.peek(i);
+            int offset = i * numClasses;
+            int maxIndex = RecognitionPipeline.argmax(scores, offset, numClasses);
+            if (cascade != null && in.auditClass >= 0) {
+                cascade.onAudit(in.auditClass, maxIndex);
+            }
+
+            ResultSlot out = results.claim();
+            System.arraycopy(in.argb, 0, out.argb, 0, out.argb.length);
+            out.hasPixels = true;
+            out.classIndex = maxIndex;
+            out.confidence = scores[offset + maxIndex];
+            out.arrivalNs = in.arrivalNs;
+            out.frameIndex = in.frameIndex;
+            out.generation = in.generation;
+            out.session = in.session;
+            results.publish();
+        }
+        tensors.release(batchSize);
+        tensorsRetired += batchSize;
+
+        if (cascade != null) {
+            cascade.recordFullInference(inferenceNs, batchSize);
+        }
+        if (scheduler != null) {
+            // Frames the camera or the capture stage dropped since the last batch; the count
+            // restarts with each session
+            long dropped = streamStats.getDroppedFrames() + captureDropped;
+            scheduler.recordFrame(System.nanoTime(), inferenceNs / batchSize, (int) Math.max(0, dropped - droppedAtLastBatch));
+            droppedAtLastBatch = dropped;
+        }
+        backend.setBatchSize(batchController.onBatchComplete(batchSize, inferenceNs, queueDelayNs));
+        return true;
+    }
+
+    // Sink stage
+
+    private boolean deliver() {
+        // Vote in frame order: an early result waits for the full-model frames before it,
+        // which are still being batched until the inference stage has retired them
+        ResultSlot early = earlyResults.peek(0);
+        ResultSlot full = results.peek(0);
+        if (early != null && (tensorsRetired < early.tensorsBefore
+                || (full != null && full.frameIndex < early.frameIndex))) {
+            early = null;
+        }
+        SpscRing<ResultSlot> ring = early != null ? earlyResults : results;
+        ResultSlot in = early != null ? early : full;
+        if (in == null) {
+            return false;
+        }
+        if (sinkSession != session) {
+            sinkSession = session;
+            voter.reset();
+        }
+        if (in.session != sinkSession || (coordinator != null && !coordinator.isCurrent(in.generation))) {
+            drop(FrameCoordinator.DropReason.CANCELLED);
+            ring.release(1);
+            return true;
+        }
+
+        long tick = profiler.start();
+        voter.add(in.classIndex, in.confidence);
+        if (in.hasPixels && captureQueue != null && samplingPolicy.shouldSave(in.frameIndex, in.confidence)) {
+            int[] pixels = CaptureRecord.leasePixels(capturePixels, INPUT_SIZE, INPUT_SIZE);
+            System.arraycopy(in.argb, 0, pixels, 0, pixels.length);
+            CaptureRecord record = new CaptureRecord(pixels, capturePixels, INPUT_SIZE, INPUT_SIZE,
+                    classLabels.get(in.classIndex), in.confidence, in.frameIndex, System.currentTimeMillis());
+            if (!captureQueue.offer(record)) {
+                record.recycle();
+            }
+        }
+        if (coordinator != null) {
+            coordinator.complete(in.arrivalNs, System.nanoTime());
+        }
+        ring.release(1);
+        profiler.lap(StageProfiler.Stage.POSTPROCESS, tick);
+
+        // Report once per burst rather than once per frame of a batch
+        if (earlyResults.available() == 0 && results.available() == 0) {
+            sink.onResult(classLabels.get(voter.getWinner()), voter.getWinnerConfidence(), details());
+        }
+        return true;
+    }
+
+    private void drop(FrameCoordinator.DropReason reason) {
+        if (coordinator != null) {
+            coordinator.drop(reason);
+        }
+    }
+
+    private String details() {
+        return streamStats.summary()
+                + String.format(Locale.US, ", %.1f ms inference", backend.getLastInferenceMs())
+                + "\n" + batchController.summary()
+                + "\n" + stagesSummary()
+                + (captureQueue != null ? "\n" + captureQueue.summary() : "")
+                + (motionGate != null ? "\n" + motionGate.summary() : "")
+                + (cascade != null ? "\n" + cascade.summary() : "");
+    }
+
+    /** Fraction of the session the capture stage spent copying frames. */
+    public float getCaptureUtilization() {
+        long elapsed = System.nanoTime() - captureStartNs;
+        return elapsed <= 0 ? 0f : Math.min(1f, (float) captureBusyNs / elapsed);
+    }
+
+    /** Name of the busiest stage, which limits the pipeline's throughput. */
+    public String getBottleneck() {
+        String bottleneck = "Capture";
+        float busiest = getCaptureUtilization();
+        for (StageWorker worker : new StageWorker[]{preprocessWorker, inferenceWorker, sinkWorker}) {
+            if (worker.getUtilization() > busiest) {
+                busiest = worker.getUtilization();
+                bottleneck = worker.getName();
+            }
+        }
+        return bottleneck;
+    }
+
+    private String stagesSummary() {
+        return String.format(Locale.US, "Capture %.0f%% busy, %d dropped; ", getCaptureUtilization() * 100, captureDropped)
+                + preprocessWorker.summary() + "; " + inferenceWorker.summary() + "; " + sinkWorker.summary()
+                + String.format(Locale.US, "; queued %d/%d/%d; bottleneck %s",
+                frames.size(), tensors.size(), results.size() + earlyResults.size(), getBottleneck());
+    }
+
+    @Override
+    public String summary() {
+        return "Stream: " + streamStats.summary()
+                + "\nBatching: " + batchController.summary()
+                + "\nStages: " + stagesSummary()
+                + (scheduler != null ? "\nScheduler: " + scheduler.summary() : "")
+                + (cascade != null ? "\nCascade: " + cascade.summary() : "")
+                + (coordinator != null ? "\nIn flight: " + coordinator.summary() : "")
+                + (captureQueue != null ? "\nCaptures: " + captureQueue.summary() : "")
+                + (motionGate != null ? "\nMotion gate: " + motionGate.summary() + ", " + motionGate.getGateCostMs() + " ms in gate" : "");
+    }
+}
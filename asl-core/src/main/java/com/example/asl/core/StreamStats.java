@@ -0,0 +1,78 @@
+package com.example.asl.core;
+
+import java.util.Locale;
+
+/**
+ * Throughput counters for the streaming analyzer.
+ *
+ * <p>Frames are reported with their sensor timestamp. The smallest gap seen between two
+ * consecutive frames is taken as the camera's frame period, so any larger gap is counted as
+ * frames the keep-only-latest backpressure strategy dropped while the analyzer was busy.
+ */
+public final class StreamStats {
+
+    private static final long FPS_WINDOW_NS = 1_000_000_000L;
+
+    private long analyzedFrames;
+    private long droppedFrames;
+    private long lastTimestampNs = -1;
+    private long framePeriodNs = Long.MAX_VALUE;
+
+    private long windowStartNs = -1;
+    private int windowFrames;
+    private float fps;
+
+    public synchronized void reset() {
+        analyzedFrames = 0;
+        droppedFrames = 0;
+        lastTimestampNs = -1;
+        framePeriodNs = Long.MAX_VALUE;
+        windowStartNs = -1;
+        windowFrames = 0;
+        fps = 0f;
+    }
+
+    public synchronized void onFrame(long sensorTimestampNs) {
+        analyzedFrames++;
+
+        if (lastTimestampNs >= 0) {
+            long delta = sensorTimestampNs - lastTimestampNs;
+            if (delta > 0) {
+                framePeriodNs = Math.min(framePeriodNs, delta);
+                long skipped = Math.round((double) delta / framePeriodNs) - 1;
+                if (skipped > 0) {
+                    droppedFrames += skipped;
+                }
+            }
+        }
+        lastTimestampNs = sensorTimestampNs;
+
+        if (windowStartNs < 0) {
+            windowStartNs = sensorTimestampNs;
+            return;
+        }
+        windowFrames++;
+        long elapsed = sensorTimestampNs - windowStartNs;
+        if (elapsed >= FPS_WINDOW_NS) {
+            fps = windowFrames * 1e9f / elapsed;
+            windowStartNs = sensorTimestampNs;
+            windowFrames = 0;
+        }
+    }
+
+    public synchronized float getFps() {
+        return fps;
+    }
+
+    public synchronized long getAnalyzedFrames() {
+        return analyzedFrames;
+    }
+
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public synchronized String summary() {
+        return String.format(Locale.US, "%.1f FPS, %d analyzed, %d dropped", fps, analyzedFrames, droppedFrames);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.asl.core;
+
+import java.util.Arrays;
+
+/**
+ * Smooths per-frame predictions with a confidence-weighted vote over the last {@code window}
+ * frames, so a single misclassified frame does not flip the displayed letter.
+ */
+public final class TemporalVoter {
+
+    private final int window;
+    private final int[] classes;
+    private final float[] confidences;
+    private final float[] scores;
+    private final int[] votes;
+    private int next;
+    private int size;
+
+    private int winner = -1;
+    private float winnerConfidence;
+
+    public TemporalVoter(int numClasses, int window) {
+        this.window = window;
+        this.classes = new int[window];
+        this.confidences = new float[window];
+        this.scores = new float[numClasses];
+        this.votes = new int[numClasses];
+    }
+
+    /** Adds one frame's top-1 prediction and returns the winning class of the window. */
+    public int add(int classIndex, float confidence) {
+        classes[next] = classIndex;
+        confidences[next] = confidence;
+        next = (next + 1) % window;
+        if (size < window) {
+            size++;
+        }
+
+        Arrays.fill(scores, 0f);
+        Arrays.fill(votes, 0);
+        for (int i = 0; i < size; i++) {
+            scores[classes[i]] += confidences[i];
+            votes[classes[i]]++;
+        }
+        // Ties go to the class of the newest frame
+        winner = classIndex;
+        for (int c = 0; c < scores.length; c++) {
+            if (scores[c] > scores[winner]) {
+                winner = c;
+            }
+        }
+        winnerConfidence = scores[winner] / votes[winner];
+        return winner;
+    }
+
+    /** The winning class, or -1 before the first frame. */
+    public int getWinner() {
+        return winner;
+    }
+
+    /** Mean confidence of the frames that voted for the winner. */
+    public float getWinnerConfidence() {
+        return winnerConfidence;
+    }
+
+    public void reset() {
+        next = 0;
+        size = 0;
+        winner = -1;
+        winnerConfidence = 0f;
+    }
+}
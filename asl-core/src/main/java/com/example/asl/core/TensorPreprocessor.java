@@ -0,0 +1,67 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Normalizes ARGB pixels into the classifier's RGB float input, [0, 1] per channel.
+ *
+ * <p>The pixel and float scratch arrays are allocated once; each frame is normalized into the
+ * float array and copied into the destination with a single bulk {@link FloatBuffer#put}, so
+ * the steady state does not allocate.
+ */
+public final class TensorPreprocessor {
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private final float[] values;
+
+    public TensorPreprocessor(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        this.values = new float[width * height * 3];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Scratch array the caller fills with packed ARGB pixels, row-major, before normalizing. */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /** Writes the current pixels into {@code dst} at its position as interleaved R, G, B floats. */
+    public void normalizeInto(FloatBuffer dst) {
+        final float scale = 1f / 255f;
+        int[] src = pixels;
+        float[] out = values;
+        for (int i = 0, j = 0; i < src.length; i++, j += 3) {
+            int pixel = src[i];
+            out[j] = ((pixel >> 16) & 0xFF) * scale;
+            out[j + 1] = ((pixel >> 8) & 0xFF) * scale;
+            out[j + 2] = (pixel & 0xFF) * scale;
+        }
+        dst.put(out);
+    }
+
+    /**
+     * Writes the current pixels into {@code dst} at its position as interleaved R, G, B bytes
+     * for quantized models; {@code signed} stores each value minus 128, for int8 inputs.
+     */
+    public void packInto(ByteBuffer dst, boolean signed) {
+        int flip = signed ? 0x808080 : 0;
+        for (int pixel : pixels) {
+            pixel ^= flip;
+            dst.put((byte) (pixel >> 16));
+            dst.put((byte) (pixel >> 8));
+            dst.put((byte) pixel);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.asl.core;
+
+import java.util.Locale;
+
+/**
+ * One runtime configuration the auto-tuner can choose: inference engine, interpreter and OpenCV
+ * thread counts, with the time per frame measured for it.
+ * Profiles round-trip through a short {@code key=value} string for storage.
+ */
+public final class TuningProfile {
+
+    public final String backend;
+    public final int inferenceThreads;
+    public final int cvThreads;
+    /** Measured conversion plus inference time per frame, or 0 when not measured yet. */
+    public final float msPerFrame;
+
+    public TuningProfile(String backend, int inferenceThreads, int cvThreads, float msPerFrame) {
+        this.backend = backend;
+        this.inferenceThreads = inferenceThreads;
+        this.cvThreads = cvThreads;
+        this.msPerFrame = msPerFrame;
+    }
+
+    public TuningProfile withMsPerFrame(float msPerFrame) {
+        return new TuningProfile(backend, inferenceThreads, cvThreads, msPerFrame);
+    }
+
+    public String encode() {
+        return String.format(Locale.US, "backend=%s;threads=%d;cv_threads=%d;ms=%.3f",
+                backend, inferenceThreads, cvThreads, msPerFrame);
+    }
+
+    /**
+     * Parses {@link #encode()} output; returns null for anything malformed. Fields it does not
+     * know, such as the resolution older versions stored, are ignored.
+     */
+    public static TuningProfile decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        String backend = null;
+        int threads = 0;
+        int cvThreads = 0;
+        float ms = 0f;
+        try {
+            for (String field : encoded.split(";")) {
+                int split = field.indexOf('=');
+                if (split < 0) {
+                    return null;
+                }
+                String value = field.substring(split + 1);
+                switch (field.substring(0, split)) {
+                    case "backend": backend = value; break;
+                    case "threads": threads = Integer.parseInt(value); break;
+                    case "cv_threads": cvThreads = Integer.parseInt(value); break;
+                    case "ms": ms = Float.parseFloat(value); break;
+                    default: break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (backend == null || threads < 1 || cvThreads < 1) {
+            return null;
+        }
+        return new TuningProfile(backend, threads, cvThreads, ms);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s, %d threads, %d cv threads, %.2f ms/frame",
+                backend, inferenceThreads, cvThreads, msPerFrame);
+    }
+}
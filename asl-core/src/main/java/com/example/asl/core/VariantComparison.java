@@ -0,0 +1,104 @@
+package com.example.asl.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Side-by-side latency and accuracy of two model variants run over the same frames.
+ *
+ * <p>Accuracy is reported for labeled frames; top-1 agreement between the variants is reported
+ * for every frame, so unlabeled live frames still show how far the cheaper variant drifts from
+ * the reference one.
+ */
+public final class VariantComparison {
+
+    private final String referenceName;
+    private final String candidateName;
+    private final List<String> classLabels;
+
+    private long[] referenceNs = new long[64];
+    private long[] candidateNs = new long[64];
+    private int samples;
+    private int labeled;
+    private int referenceCorrect;
+    private int candidateCorrect;
+    private int agreements;
+
+    public VariantComparison(String referenceName, String candidateName, List<String> classLabels) {
+        this.referenceName = referenceName;
+        this.candidateName = candidateName;
+        this.classLabels = classLabels;
+    }
+
+    /** Records one frame; {@code expected} is the true class index, or -1 when unknown. */
+    public void add(int expected, int referencePrediction, long referenceLatencyNs, int candidatePrediction, long candidateLatencyNs) {
+        if (samples == referenceNs.length) {
+            referenceNs = Arrays.copyOf(referenceNs, samples * 2);
+            candidateNs = Arrays.copyOf(candidateNs, samples * 2);
+        }
+        referenceNs[samples] = referenceLatencyNs;
+        candidateNs[samples] = candidateLatencyNs;
+        samples++;
+
+        if (referencePrediction == candidatePrediction) {
+            agreements++;
+        }
+        if (expected >= 0) {
+            labeled++;
+            if (referencePrediction == expected) {
+                referenceCorrect++;
+            }
+            if (candidatePrediction == expected) {
+                candidateCorrect++;
+            }
+        }
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.US, "%d frames (%d labeled, %d classes)%n", samples, labeled, classLabels.size()));
+        appendVariant(out, referenceName, referenceNs, referenceCorrect);
+        appendVariant(out, candidateName, candidateNs, candidateCorrect);
+        if (samples > 0) {
+            out.append(String.format(Locale.US, "top-1 agreement %.2f%%, %s speedup %.2fx (mean)%n",
+                    100.0 * agreements / samples, candidateName, mean(referenceNs) / mean(candidateNs)));
+        }
+        if (labeled > 0) {
+            out.append(String.format(Locale.US, "accuracy delta %+.2f points%n",
+                    100.0 * (candidateCorrect - referenceCorrect) / labeled));
+        }
+        return out.toString();
+    }
+
+    private void appendVariant(StringBuilder out, String name, long[] latencies, int correct) {
+        if (samples == 0) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        out.append(String.format(Locale.US, "%-8s mean %.2f ms, p50 %.2f ms, p95 %.2f ms",
+                name, mean(latencies) / 1e6, percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.95) / 1e6));
+        if (labeled > 0) {
+            out.append(String.format(Locale.US, ", accuracy %.2f%%", 100.0 * correct / labeled));
+        }
+        out.append(String.format("%n"));
+    }
+
+    private double mean(long[] latencies) {
+        long total = 0;
+        for (int i = 0; i < samples; i++) {
+            total += latencies[i];
+        }
+        return (double) total / samples;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
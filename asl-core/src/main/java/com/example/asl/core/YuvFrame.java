@@ -0,0 +1,41 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Plane buffers and strides of one YUV_420_888 frame, without any Android types so the
+ * conversion code can run on a plain JVM. Instances are reused from frame to frame.
+ */
+public final class YuvFrame {
+
+    public int width;
+    public int height;
+    public int rotationDegrees;
+    public long timestampNs;
+
+    public ByteBuffer y;
+    public int yRowStride;
+    public int yPixelStride;
+
+    public ByteBuffer u;
+    public ByteBuffer v;
+    public int uvRowStride;
+    public int uvPixelStride;
+
+    public YuvFrame set(int width, int height, int rotationDegrees, long timestampNs,
+                 ByteBuffer y, int yRowStride, int yPixelStride,
+                 ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride) {
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = rotationDegrees;
+        this.timestampNs = timestampNs;
+        this.y = y;
+        this.yRowStride = yRowStride;
+        this.yPixelStride = yPixelStride;
+        this.u = u;
+        this.v = v;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        return this;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.asl.core;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Converts a YUV_420_888 frame straight into the classifier's input. Cropping, rotation to
+ * upright, nearest-neighbour downsampling, YUV to RGB (BT.601 full range, as in JPEG) and
+ * normalization happen in one pass over the output pixels, so no JPEG, Bitmap or full-size
+ * intermediate is ever produced.
+ *
+ * <p>Plane strides are honoured the way {@code JavaCamera2View.JavaCamera2Frame.rgba()} does,
+ * for both interleaved (pixel stride 2) and planar (pixel stride 1) chroma. The crop is given
+ * in sensor coordinates and defaults to the centred square of the frame. All lookup tables and
+ * row scratch are allocated up front, so converting does not allocate.
+ */
+public final class YuvTensorConverter {
+
+    private final int outWidth;
+    private final int outHeight;
+
+    // Source offsets contributed by each output column and row; see computeOffsets
+    private final int[] colY;
+    private final int[] colUv;
+    private final int[] rowY;
+    private final int[] rowUv;
+
+    private final int[] rowArgb;
+    private final float[] rowFloats;
+    private final byte[] rowBytes;
+
+    private boolean hasCrop;
+    private int cropLeft;
+    private int cropTop;
+    private int cropWidth;
+    private int cropHeight;
+
+    public YuvTensorConverter(int outWidth, int outHeight) {
+        this.outWidth = outWidth;
+        this.outHeight = outHeight;
+        colY = new int[outWidth];
+        colUv = new int[outWidth];
+        rowY = new int[outHeight];
+        rowUv = new int[outHeight];
+        rowArgb = new int[outWidth];
+        rowFloats = new float[outWidth * 3];
+        rowBytes = new byte[outWidth * 3];
+    }
+
+    public int getOutWidth() {
+        return outWidth;
+    }
+
+    public int getOutHeight() {
+        return outHeight;
+    }
+
+    /** Restricts conversion to a region of the frame, in unrotated sensor coordinates. */
+    public void setCrop(int left, int top, int width, int height) {
+        hasCrop = true;
+        cropLeft = left;
+        cropTop = top;
+        cropWidth = width;
+        cropHeight = height;
+    }
+
+    /** Goes back to converting the centred square of the frame. */
+    public void clearCrop() {
+        hasCrop = false;
+    }
+
+    /** Writes normalized interleaved R, G, B floats into {@code dst} at its position. */
+    public void toFloat(YuvFrame frame, FloatBuffer dst) {
+        convert(frame, dst, null, false, null);
+    }
+
+    /** Like {@link #toFloat(YuvFrame, FloatBuffer)}, also copying the ARGB pixels into {@code argb}. */
+    public void toFloat(YuvFrame frame, FloatBuffer dst, int[] argb) {
+        convert(frame, dst, null, false, argb);
+    }
+
+    /** Writes interleaved R, G, B bytes into {@code dst} at its position, for uint8 models. */
+    public void toRgb(YuvFrame frame, ByteBuffer dst) {
+        convert(frame, null, dst, false, null);
+    }
+
+    /**
+     * Like {@link #toRgb(YuvFrame, ByteBuffer)}; {@code signed} stores each value minus 128, for
+     * int8 models, and the ARGB pixels are also copied into {@code argb}.
+     */
+    public void toRgb(YuvFrame frame, ByteBuffer dst, boolean signed, int[] argb) {
+        convert(frame, null, dst, signed, argb);
+    }
+
+    /** Writes packed ARGB pixels, row-major, into {@code dst}. */
+    public void toArgb(YuvFrame frame, int[] dst) {
+        convert(frame, null, null, false, dst);
+    }
+
+    /** Writes normalized luma floats, one per pixel, into {@code dst} at its position, for grayscale models. */
+    public void toGrayFloat(YuvFrame frame, FloatBuffer dst) {
+        convertGray(frame, dst, null, false);
+    }
+
+    /** Writes luma bytes, one per pixel, into {@code dst} at its position; {@code signed} as for {@link #toRgb}. */
+    public void toGray(YuvFrame frame, ByteBuffer dst, boolean signed) {
+        convertGray(frame, null, dst, signed);
+    }
+
+    private void convertGray(YuvFrame frame, FloatBuffer floats, ByteBuffer bytes, boolean signed) {
+        computeOffsets(frame);
+
+        final float scale = 1f / 255f;
+        int flip = signed ? 0x80 : 0;
+        ByteBuffer yPlane = frame.y;
+        for (int oy = 0; oy < outHeight; oy++) {
+            int ry = rowY[oy];
+            if (floats != null) {
+                for (int ox = 0; ox < outWidth; ox++) {
+                    rowFloats[ox] = (yPlane.get(ry + colY[ox]) & 0xFF) * scale;
+                }
+                floats.put(rowFloats, 0, outWidth);
+            } else {
+                for (int ox = 0; ox < outWidth; ox++) {
+                    rowBytes[ox] = (byte) (yPlane.get(ry + colY[ox]) ^ flip);
+                }
+                bytes.put(rowBytes, 0, outWidth);
+            }
+        }
+    }
+
+    private void convert(YuvFrame frame, FloatBuffer floats, ByteBuffer bytes, boolean signed, int[] argb) {
+        computeOffsets(frame);
+
+        final float scale = 1f / 255f;
+        ByteBuffer yPlane = frame.y;
+        ByteBuffer uPlane = frame.u;
+        ByteBuffer vPlane = frame.v;
+
+        for (int oy = 0; oy < outHeight; oy++) {
+            int ry = rowY[oy];
+            int ruv = rowUv[oy];
+            for (int ox = 0; ox < outWidth; ox++) {
+                int luma = yPlane.get(ry + colY[ox]) & 0xFF;
+                int uv = ruv + colUv[ox];
+                int cb = (uPlane.get(uv) & 0xFF) - 128;
+                int cr = (vPlane.get(uv) & 0xFF) - 128;
+
+                int r = clamp(luma + ((91881 * cr + 32768) >> 16));
+                int g = clamp(luma - ((22554 * cb + 46802 * cr + 32768) >> 16));
+                int b = clamp(luma + ((116130 * cb + 32768) >> 16));
+                rowArgb[ox] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+
+            if (floats != null) {
+                for (int ox = 0, j = 0; ox < outWidth; ox++, j += 3) {
+                    int pixel = rowArgb[ox];
+                    rowFloats[j] = ((pixel >> 16) & 0xFF) * scale;
+                    rowFloats[j + 1] = ((pixel >> 8) & 0xFF) * scale;
+                    rowFloats[j + 2] = (pixel & 0xFF) * scale;
+                }
+                floats.put(rowFloats);
+            }
+            if (bytes != null) {
+                int flip = signed ? 0x808080 : 0;
+                for (int ox = 0, j = 0; ox < outWidth; ox++, j += 3) {
+                    int pixel = rowArgb[ox] ^ flip;
+                    rowBytes[j] = (byte) (pixel >> 16);
+                    rowBytes[j + 1] = (byte) (pixel >> 8);
+                    rowBytes[j + 2] = (byte) pixel;
+                }
+                bytes.put(rowBytes);
+            }
+            if (argb != null) {
+                System.arraycopy(rowArgb, 0, argb, oy * outWidth, outWidth);
+            }
+        }
+    }
+
+    /**
+     * Fills the per-column and per-row offset tables for the current frame geometry. An output
+     * pixel (ox, oy) samples the upright crop at (u, v); depending on the rotation, u and v each
+     * move along exactly one sensor axis, so the plane offsets split into a column part and a
+     * row part that are simply added in the inner loop.
+     */
+    private void computeOffsets(YuvFrame frame) {
+        int left;
+        int top;
+        int width;
+        int height;
+        if (hasCrop) {
+            left = Math.max(0, Math.min(cropLeft, frame.width - 1));
+            top = Math.max(0, Math.min(cropTop, frame.height - 1));
+            width = Math.max(1, Math.min(cropWidth, frame.width - left));
+            height = Math.max(1, Math.min(cropHeight, frame.height - top));
+        } else {
+            int side = Math.min(frame.width, frame.height);
+            left = (frame.width - side) / 2;
+            top = (frame.height - side) / 2;
+            width = side;
+            height = side;
+        }
+
+        int rotation = ((frame.rotationDegrees % 360) + 360) % 360;
+        boolean transposed = rotation == 90 || rotation == 270;
+        int uprightWidth = transposed ? height : width;
+        int uprightHeight = transposed ? width : height;
+
+        for (int ox = 0; ox < outWidth; ox++) {
+            int u = (int) ((2L * ox + 1) * uprightWidth / (2L * outWidth));
+            switch (rotation) {
+                case 90:
+                    setY(colY, colUv, ox, top + height - 1 - u, frame);
+                    break;
+                case 180:
+                    setX(colY, colUv, ox, left + width - 1 - u, frame);
+                    break;
+                case 270:
+                    setY(colY, colUv, ox, top + u, frame);
+                    break;
+                default:
+                    setX(colY, colUv, ox, left + u, frame);
+                    break;
+            }
+        }
+        for (int oy = 0; oy < outHeight; oy++) {
+            int v = (int) ((2L * oy + 1) * uprightHeight / (2L * outHeight));
+            switch (rotation) {
+                case 90:
+                    setX(rowY, rowUv, oy, left + v, frame);
+                    break;
+                case 180:
+                    setY(rowY, rowUv, oy, top + height - 1 - v, frame);
+                    break;
+                case 270:
+                    setX(rowY, rowUv, oy, left + width - 1 - v, frame);
+                    break;
+                default:
+                    setY(rowY, rowUv, oy, top + v, frame);
+                    break;
+            }
+        }
+    }
+
+    private static void setX(int[] yOffsets, int[] uvOffsets, int i, int sensorX, YuvFrame frame) {
+        yOffsets[i] = sensorX * frame.yPixelStride;
+        uvOffsets[i] = (sensorX >> 1) * frame.uvPixelStride;
+    }
+
+    private static void setY(int[] yOffsets, int[] uvOffsets, int i, int sensorY, YuvFrame frame) {
+        yOffsets[i] = sensorY * frame.yRowStride;
+        uvOffsets[i] = (sensorY >> 1) * frame.uvRowStride;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AutoTunerTest {
+
+    /** Busy-waits for a time per frame that shrinks with the thread count. */
+    private static final class ThreadedBackend implements InferenceBackend {
+        private final long frameNs;
+        private final ByteBuffer input = ByteBuffer.allocateDirect(64 * 64 * 3 * 4).order(ByteOrder.nativeOrder());
+        boolean closed;
+
+        ThreadedBackend(int threads) {
+            frameNs = 2_000_000L / threads;
+        }
+
+        @Override public boolean isQuantizedInput() { return false; }
+        @Override public boolean isSignedInput() { return false; }
+        @Override public int getNumClasses() { return 29; }
+        @Override public int getMaxBatchSize() { return 1; }
+        @Override public int getBatchSize() { return 1; }
+        @Override public void setBatchSize(int size) { }
+        @Override public int getFrameInputBytes() { return 64 * 64 * 3 * 4; }
+        @Override public ByteBuffer getInputBuffer() { input.clear(); return input; }
+        @Override public FloatBuffer getInputFloatBuffer() { return getInputBuffer().asFloatBuffer(); }
+        @Override public float getLastInferenceMs() { return 0f; }
+        @Override public String summary() { return ""; }
+        @Override public void close() { closed = true; }
+
+        @Override
+        public float[] run() {
+            long end = System.nanoTime() + frameNs;
+            while (System.nanoTime() < end) {
+                // Spin so the timing does not depend on the scheduler
+            }
+            return new float[29];
+        }
+    }
+
+    @Test
+    public void keepsTheFastestCandidateAndSkipsBrokenOnes() {
+        List<TuningProfile> candidates = Arrays.asList(
+                new TuningProfile("fake", 1, 1, 0f),
+                new TuningProfile("broken", 2, 2, 0f),
+                new TuningProfile("fake", 4, 1, 0f));
+        ThreadedBackend[] created = new ThreadedBackend[1];
+        AutoTuner tuner = new AutoTuner(2, 10);
+
+        TuningProfile best = tuner.tune(candidates, profile -> {
+            if (profile.backend.equals("broken")) {
+                throw new IllegalStateException("cannot load");
+            }
+            created[0] = new ThreadedBackend(profile.inferenceThreads);
+            return created[0];
+        });
+
+        assertEquals(4, best.inferenceThreads);
+        assertTrue(best.msPerFrame >= 0.5f);
+        assertTrue(created[0].closed);
+        assertTrue(tuner.report().contains("skipped broken"));
+    }
+
+    @Test
+    public void profileRoundTripsThroughItsEncoding() {
+        TuningProfile profile = new TuningProfile("opencv_dnn", 2, 3, 12.5f);
+        TuningProfile decoded = TuningProfile.decode(profile.encode());
+
+        assertEquals("opencv_dnn", decoded.backend);
+        assertEquals(2, decoded.inferenceThreads);
+        assertEquals(3, decoded.cvThreads);
+        assertEquals(12.5f, decoded.msPerFrame, 1e-3f);
+        assertEquals(3, TuningProfile.decode("backend=tflite;threads=2;cv_threads=3;width=640;height=480;ms=9.000").cvThreads);
+        assertNull(TuningProfile.decode("backend=tflite;threads=x"));
+        assertNull(TuningProfile.decode(null));
+    }
+
+    @Test
+    public void driftIsReportedOnceAfterTheAverageSlowsDown() {
+        AutoTuner.DriftMonitor monitor = new AutoTuner.DriftMonitor(10f, 0.5f);
+        for (int i = 0; i < 200; i++) {
+            assertFalse(monitor.record(12f));
+        }
+        boolean reported = false;
+        for (int i = 0; i < 200; i++) {
+            if (monitor.record(20f)) {
+                assertFalse(reported);
+                reported = true;
+            }
+        }
+        assertTrue(reported);
+    }
+}
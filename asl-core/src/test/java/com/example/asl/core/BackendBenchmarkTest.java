@@ -0,0 +1,75 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class BackendBenchmarkTest {
+
+    /** Busy-waits for a fixed time per batch plus a time per frame. */
+    private static final class SleepyBackend implements InferenceBackend {
+        private final long batchNs;
+        private final long frameNs;
+        private final ByteBuffer input = ByteBuffer.allocateDirect(4 * 64 * 64 * 3 * 4).order(ByteOrder.nativeOrder());
+        private int batchSize = 1;
+        int runs;
+
+        SleepyBackend(long batchNs, long frameNs) {
+            this.batchNs = batchNs;
+            this.frameNs = frameNs;
+        }
+
+        @Override public boolean isQuantizedInput() { return false; }
+        @Override public boolean isSignedInput() { return false; }
+        @Override public int getNumClasses() { return 29; }
+        @Override public int getMaxBatchSize() { return 4; }
+        @Override public int getBatchSize() { return batchSize; }
+        @Override public void setBatchSize(int size) { batchSize = size; }
+        @Override public int getFrameInputBytes() { return 64 * 64 * 3 * 4; }
+        @Override public float getLastInferenceMs() { return 0f; }
+        @Override public String summary() { return ""; }
+        @Override public void close() { }
+
+        @Override
+        public ByteBuffer getInputBuffer() {
+            input.clear().limit(batchSize * getFrameInputBytes());
+            return input;
+        }
+
+        @Override
+        public FloatBuffer getInputFloatBuffer() {
+            return getInputBuffer().asFloatBuffer();
+        }
+
+        @Override
+        public float[] run() {
+            runs++;
+            long end = System.nanoTime() + batchNs + batchSize * frameNs;
+            while (System.nanoTime() < end) {
+                // Spin so the timing does not depend on the scheduler
+            }
+            return new float[29 * batchSize];
+        }
+    }
+
+    @Test
+    public void picksTheBackendWithTheLowestTimePerFrame() {
+        SleepyBackend slow = new SleepyBackend(2_000_000L, 200_000L);
+        SleepyBackend fast = new SleepyBackend(100_000L, 50_000L);
+        BackendBenchmark benchmark = new BackendBenchmark(2, 10);
+
+        benchmark.run("slow", slow, 1);
+        benchmark.run("fast", fast, 1);
+        benchmark.run("slow", slow, 4);
+
+        assertEquals(24, slow.runs);
+        assertEquals(1, slow.getBatchSize());
+        assertEquals("fast", benchmark.fastest().name);
+        assertEquals(3, benchmark.getResults().size());
+        assertTrue(benchmark.report().contains("slow"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BatchSizeControllerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static void frames(BatchSizeController controller, long startMs, int count, long intervalMs) {
+        for (int i = 0; i < count; i++) {
+            controller.onFrameArrival((startMs + i * intervalMs) * MS);
+        }
+    }
+
+    @Test
+    public void staysUnbatchedWhenInferenceKeepsUp() {
+        BatchSizeController controller = new BatchSizeController(4, 200 * MS);
+        frames(controller, 0, 10, 33);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, controller.onBatchComplete(1, 10 * MS, 0));
+        }
+    }
+
+    @Test
+    public void growsBatchWhenFallingBehindWithinBudget() {
+        BatchSizeController controller = new BatchSizeController(4, 200 * MS);
+        frames(controller, 0, 10, 33);
+
+        // 50 ms for one frame cannot keep up with 33 ms frames; two frames cost 60 ms
+        assertEquals(2, controller.onBatchComplete(1, 50 * MS, 0));
+        assertEquals(2, controller.onBatchComplete(2, 60 * MS, 33 * MS));
+        assertEquals(2, controller.getBatchSize());
+        assertEquals(33f, controller.getQueueDelayMs(), 1e-3f);
+    }
+
+    @Test
+    public void respectsLatencyBudget() {
+        BatchSizeController controller = new BatchSizeController(4, 80 * MS);
+        frames(controller, 0, 10, 33);
+
+        // Two frames would take 50 ms of inference plus 33 ms of waiting, over the budget
+        assertEquals(1, controller.onBatchComplete(1, 50 * MS, 0));
+    }
+
+    @Test
+    public void shrinksWhenFramesArriveTooSlowlyToFillTheBatch() {
+        BatchSizeController controller = new BatchSizeController(4, 150 * MS);
+        frames(controller, 0, 10, 33);
+        assertEquals(2, controller.onBatchComplete(1, 50 * MS, 0));
+
+        // Frames 500 ms apart: waiting for a second one alone blows the budget
+        assertEquals(1, controller.onFrameArrival(1_000 * MS));
+        assertEquals(1, controller.getBatchSize());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BufferPoolTest {
+
+    private static final class Image {
+        final int width;
+        final int height;
+        final int format;
+        boolean freed;
+
+        Image(int width, int height, int format) {
+            this.width = width;
+            this.height = height;
+            this.format = format;
+        }
+    }
+
+    private static final BufferPool.Allocator<Image> IMAGES = new BufferPool.Allocator<Image>() {
+        @Override
+        public Image allocate(int width, int height, int format) {
+            return new Image(width, height, format);
+        }
+
+        @Override
+        public int width(Image buffer) {
+            return buffer.width;
+        }
+
+        @Override
+        public int height(Image buffer) {
+            return buffer.height;
+        }
+
+        @Override
+        public int format(Image buffer) {
+            return buffer.format;
+        }
+
+        @Override
+        public void free(Image buffer) {
+            buffer.freed = true;
+        }
+    };
+
+    @Test
+    public void reusesBuffersOfTheSameShapeOnly() {
+        BufferPool<Image> pool = new BufferPool<>("test", IMAGES, 2);
+
+        Image first = pool.lease(64, 64, 16);
+        pool.giveBack(first);
+        assertSame(first, pool.lease(64, 64, 16));
+        Image other = pool.lease(64, 64, 0);
+        assertNotSame(first, other);
+
+        for (int i = 0; i < 100; i++) {
+            pool.giveBack(pool.lease(64, 64, 0));
+        }
+        assertEquals(3, pool.getAllocations());
+        assertEquals(2, pool.getLeased());
+        assertEquals(3, pool.getPeakLeased());
+        assertTrue(pool.summary().contains("64x64/16: peak 1"));
+    }
+
+    @Test
+    public void freesExtraIdleBuffersAndEverythingOnClose() {
+        BufferPool<Image> pool = new BufferPool<>("test", IMAGES, 1);
+        Image a = pool.lease(32, 32, 0);
+        Image b = pool.lease(32, 32, 0);
+        Image c = pool.lease(32, 32, 0);
+
+        pool.giveBack(a);
+        pool.giveBack(b);
+        assertFalse(a.freed);
+        assertTrue(b.freed);
+
+        pool.close();
+        assertTrue(a.freed);
+        assertFalse(c.freed);
+        pool.giveBack(c);
+        assertTrue(c.freed);
+        assertEquals(0, pool.getLeased());
+    }
+
+    @Test
+    public void captureRecordsHandTheirPixelsBack() {
+        BufferPool<int[]> pool = CaptureRecord.pixelPool(2);
+        int[] pixels = CaptureRecord.leasePixels(pool, 64, 64);
+        assertEquals(64 * 64, pixels.length);
+
+        new CaptureRecord(pixels, pool, 64, 64, "A", 0.9f, 1, 0L).recycle();
+        assertEquals(0, pool.getLeased());
+        assertSame(pixels, CaptureRecord.leasePixels(pool, 64, 64));
+        assertEquals(1, pool.getAllocations());
+
+        // Records built around their own arrays have nothing to give back
+        new CaptureRecord(new int[4], 2, 2, "B", 0.5f, 2, 0L).recycle();
+        assertEquals(1, pool.getLeased());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBuffersItDidNotLease() {
+        new BufferPool<>("test", IMAGES, 1).giveBack(new Image(8, 8, 0));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class EarlyExitCascadeTest {
+
+    /** 32x32 grayscale model that returns whatever scores the test sets. */
+    private static final class ScriptedBackend implements InferenceBackend {
+        private final ByteBuffer input = ByteBuffer.allocateDirect(32 * 32 * 4).order(ByteOrder.nativeOrder());
+        float[] scores = new float[3];
+        int runs;
+
+        @Override public boolean isQuantizedInput() { return false; }
+        @Override public boolean isSignedInput() { return false; }
+        @Override public int getNumClasses() { return 3; }
+        @Override public int getMaxBatchSize() { return 1; }
+        @Override public int getBatchSize() { return 1; }
+        @Override public void setBatchSize(int size) { }
+        @Override public int getFrameInputBytes() { return 32 * 32 * 4; }
+        @Override public ByteBuffer getInputBuffer() { input.rewind(); return input; }
+        @Override public FloatBuffer getInputFloatBuffer() { return getInputBuffer().asFloatBuffer(); }
+        @Override public float getLastInferenceMs() { return 0f; }
+        @Override public String summary() { return ""; }
+        @Override public void close() { }
+
+        @Override
+        public float[] run() {
+            runs++;
+            return scores;
+        }
+    }
+
+    private static YuvFrame frame() {
+        ByteBuffer y = ByteBuffer.allocate(64 * 64);
+        ByteBuffer uv = ByteBuffer.allocate(32 * 32);
+        return new YuvFrame().set(64, 64, 0, 0L, y, 64, 1, uv, uv, 32, 1);
+    }
+
+    @Test
+    public void exitsOnlyWhenConfidentWithAClearMargin() {
+        ScriptedBackend small = new ScriptedBackend();
+        EarlyExitCascade cascade = new EarlyExitCascade(small, 0.8f, 0.3f, 0.01f, 0);
+        YuvFrame frame = frame();
+
+        small.scores = new float[]{0.05f, 0.9f, 0.05f};
+        assertEquals(1, cascade.classify(frame, null));
+
+        small.scores = new float[]{0.3f, 0.6f, 0.1f};
+        assertEquals(-1, cascade.classify(frame, null));
+
+        small.scores = new float[]{0.1f, 0.45f, 0.45f};
+        assertEquals(-1, cascade.classify(frame, new int[]{8, 8, 32, 32}));
+
+        assertEquals(2f / 3f, cascade.getEscalationRate(), 1e-6f);
+        cascade.recordFullInference(30_000_000L, 3);
+        assertTrue(cascade.getSavedMsPerFrame() > 0f);
+        assertTrue(cascade.summary().contains("escalated"));
+    }
+
+    @Test
+    public void raisesTheThresholdWhenAuditsDisagreeTooOften() {
+        ScriptedBackend small = new ScriptedBackend();
+        small.scores = new float[]{0.95f, 0.03f, 0.02f};
+        EarlyExitCascade cascade = new EarlyExitCascade(small, 0.8f, 0.3f, 0.01f, 2);
+        YuvFrame frame = frame();
+
+        int audited = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cascade.classify(frame, null) < 0) {
+                assertEquals(0, cascade.getAuditClass());
+                cascade.onAudit(cascade.getAuditClass(), 2);
+                audited++;
+            }
+        }
+
+        assertEquals(50, audited);
+        assertTrue(cascade.getThreshold() > 0.8f);
+    }
+
+    @Test
+    public void lowersTheThresholdAgainWhenAuditsAgreeAndResetsIt() {
+        ScriptedBackend small = new ScriptedBackend();
+        small.scores = new float[]{0.95f, 0.03f, 0.02f};
+        EarlyExitCascade cascade = new EarlyExitCascade(small, 0.8f, 0.3f, 0.01f, 2);
+        YuvFrame frame = frame();
+
+        // Disagree until no frame exits any more; audits go on for the escalated frames
+        for (int i = 0; i < 400; i++) {
+            if (cascade.classify(frame, null) < 0) {
+                cascade.onAudit(cascade.getAuditClass(), 2);
+            }
+        }
+        assertTrue(cascade.getThreshold() > 0.95f);
+        assertEquals(-1, cascade.classify(frame, null));
+        assertEquals(0, cascade.getAuditClass());
+
+        for (int i = 0; i < 1000; i++) {
+            if (cascade.classify(frame, null) < 0) {
+                cascade.onAudit(cascade.getAuditClass(), 0);
+            }
+        }
+        assertEquals(0.8f, cascade.getThreshold(), 1e-6f);
+
+        for (int i = 0; i < 40; i++) {
+            if (cascade.classify(frame, null) < 0) {
+                cascade.onAudit(cascade.getAuditClass(), 2);
+            }
+        }
+        assertTrue(cascade.getThreshold() > 0.8f);
+        cascade.reset();
+        assertEquals(0.8f, cascade.getThreshold(), 1e-6f);
+        assertTrue(cascade.summary().contains("0/0 audits"));
+    }
+}
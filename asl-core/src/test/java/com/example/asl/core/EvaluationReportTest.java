@@ -0,0 +1,27 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class EvaluationReportTest {
+
+    @Test
+    public void countsAccuracyRecallAndThroughput() {
+        EvaluationReport report = new EvaluationReport(Arrays.asList("A", "B"));
+        report.add(0, 0, 1_000_000L, 2_000_000L);
+        report.add(0, 1, 1_000_000L, 2_000_000L);
+        report.add(1, 1, 1_000_000L, 2_000_000L);
+        report.add(1, 1, 1_000_000L, 2_000_000L);
+        report.setWallTimeNs(2_000_000_000L);
+
+        assertEquals(0.75, report.getAccuracy(), 1e-9);
+        assertEquals(0.5, report.getRecall(0), 1e-9);
+        assertEquals(1.0, report.getRecall(1), 1e-9);
+        assertEquals(1, report.getCount(0, 1));
+        assertEquals(2.0, report.getImagesPerSecond(), 1e-9);
+        assertTrue(report.toJson().contains("\"confusion\":[[1,1],[0,2]]"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameCoordinatorTest {
+
+    @Test
+    public void boundsFramesInFlightAndRecordsTheirAge() {
+        FrameCoordinator coordinator = new FrameCoordinator(2, 100_000_000L);
+
+        assertEquals(0, coordinator.begin());
+        assertEquals(0, coordinator.begin());
+        assertTrue(coordinator.isFull());
+        assertEquals(-1, coordinator.begin());
+        assertEquals(1, coordinator.getDropped(FrameCoordinator.DropReason.BUSY));
+
+        coordinator.complete(0L, 30_000_000L);
+        coordinator.drop(FrameCoordinator.DropReason.SKIPPED);
+        assertEquals(0, coordinator.getInFlight());
+        assertEquals(2, coordinator.getPeakInFlight());
+        assertEquals(1, coordinator.getStaleness().getCount());
+        assertTrue(coordinator.isStale(0L, 150_000_000L));
+        assertFalse(coordinator.isStale(0L, 50_000_000L));
+    }
+
+    @Test
+    public void cancellingStartsANewGeneration() {
+        FrameCoordinator coordinator = new FrameCoordinator(4, 100_000_000L);
+        int before = coordinator.begin();
+
+        coordinator.cancel();
+
+        assertFalse(coordinator.isCurrent(before));
+        assertTrue(coordinator.isCurrent(coordinator.begin()));
+        assertTrue(coordinator.summary().contains("2 in flight"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameRateSchedulerTest {
+
+    private static final long FRAME_NS = 33_333_333L;
+
+    @Test
+    public void lowersTheRateBeforeTheResolutionAndRecoversSlowly() {
+        List<FrameRateScheduler.RateChange> changes = new ArrayList<>();
+        FrameRateScheduler scheduler = new FrameRateScheduler(30, 10, changes::add);
+        scheduler.reset(0);
+
+        // 60 ms of work per frame cannot keep up with 30 fps or the steps above 15 fps
+        long now = 0;
+        for (int i = 0; i < 300; i++, now += FRAME_NS) {
+            if (scheduler.admit(now)) {
+                scheduler.recordFrame(now, 60_000_000L, 0);
+            }
+        }
+        assertTrue(scheduler.getFps() < 1000 / 60f);
+        assertTrue(scheduler.getFps() >= 10);
+        assertEquals(1f, scheduler.getResolutionScale(), 0f);
+        for (FrameRateScheduler.RateChange change : changes) {
+            assertEquals(FrameRateScheduler.Reason.LATENCY, change.reason);
+            assertEquals(change.fromLevel + 1, change.toLevel);
+        }
+
+        // Once the work gets cheap the rate climbs back, one level per hold period
+        int lowest = scheduler.getLevel();
+        changes.clear();
+        for (int i = 0; i < 30 * 30; i++, now += FRAME_NS) {
+            if (scheduler.admit(now)) {
+                scheduler.recordFrame(now, 5_000_000L, 0);
+            }
+        }
+        assertEquals(0, scheduler.getLevel());
+        assertEquals(lowest, changes.size());
+        assertEquals(FrameRateScheduler.Reason.RECOVERED, changes.get(0).reason);
+    }
+
+    @Test
+    public void admitsEveryOtherFrameAtHalfTheCameraRate() {
+        FrameRateScheduler scheduler = new FrameRateScheduler(15, 10, null);
+        int admitted = 0;
+        for (int i = 0; i < 30; i++) {
+            if (scheduler.admit(i * FRAME_NS)) {
+                admitted++;
+            }
+        }
+        assertEquals(15, admitted);
+    }
+
+    @Test
+    public void heatAndBacklogForceLowerLevels() {
+        List<FrameRateScheduler.RateChange> changes = new ArrayList<>();
+        FrameRateScheduler scheduler = new FrameRateScheduler(30, 10, changes::add);
+        scheduler.reset(0);
+
+        scheduler.setThermalStatus(FrameRateScheduler.THERMAL_CRITICAL, 1);
+        assertEquals(scheduler.getLevelCount() - 1, scheduler.getLevel());
+        assertEquals(0.5f, scheduler.getResolutionScale(), 0f);
+        assertEquals(FrameRateScheduler.Reason.THERMAL, changes.get(0).reason);
+
+        scheduler.setThermalStatus(FrameRateScheduler.THERMAL_NONE, 2);
+        scheduler.reset(0);
+        scheduler.recordFrame(2_000_000_000L, 1_000_000L, 3);
+        assertEquals(1, scheduler.getLevel());
+        assertEquals(FrameRateScheduler.Reason.QUEUE, changes.get(changes.size() - 1).reason);
+    }
+}
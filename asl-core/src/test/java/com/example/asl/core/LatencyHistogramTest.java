@@ -0,0 +1,32 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long value = 0; value < 1 << 16; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value);
+            assertTrue(value < LatencyHistogram.lowerBound(bucket + 1));
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500_000L, histogram.getMeanNs());
+        assertEquals(500e6, histogram.getPercentileNs(50), 500e6 * 0.125);
+        assertEquals(950e6, histogram.getPercentileNs(95), 950e6 * 0.125);
+        assertEquals(990e6, histogram.getPercentileNs(99), 990e6 * 0.125);
+        assertEquals(1000_000_000L, histogram.getMaxNs());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class MotionGateTest {
+
+    private static YuvFrame grayFrame(int width, int height, int luma) {
+        ByteBuffer y = ByteBuffer.allocate(width * height);
+        for (int i = 0; i < width * height; i++) {
+            y.put(i, (byte) luma);
+        }
+        ByteBuffer uv = ByteBuffer.allocate(width * height / 4);
+        return new YuvFrame().set(width, height, 0, 0L, y, width, 1, uv, uv, width / 2, 1);
+    }
+
+    @Test
+    public void skipsStillFramesUntilSomethingChanges() {
+        MotionGate gate = new MotionGate(8, 6, 10, 0.1f, 100);
+        YuvFrame still = grayFrame(64, 48, 100);
+
+        assertTrue(gate.shouldProcess(still));
+        assertFalse(gate.shouldProcess(still));
+        assertFalse(gate.shouldProcess(grayFrame(64, 48, 105)));
+
+        // Half the frame brightens well past the threshold
+        YuvFrame moved = grayFrame(64, 48, 100);
+        for (int i = 0; i < 64 * 24; i++) {
+            moved.y.put(i, (byte) 200);
+        }
+        assertTrue(gate.shouldProcess(moved));
+        assertFalse(gate.shouldProcess(moved));
+
+        assertEquals(3, gate.getSkipped());
+        assertEquals(0.6f, gate.getSkipRatio(), 1e-6f);
+    }
+
+    @Test
+    public void forcesRefreshAfterMaxSkippedFrames() {
+        MotionGate gate = new MotionGate(4, 4, 10, 0.5f, 2);
+        YuvFrame still = grayFrame(16, 16, 50);
+
+        assertTrue(gate.shouldProcess(still));
+        assertFalse(gate.shouldProcess(still));
+        assertFalse(gate.shouldProcess(still));
+        assertTrue(gate.shouldProcess(still));
+
+        gate.reset();
+        assertTrue(gate.shouldProcess(still));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PersistenceQueueTest {
+
+    @Test
+    public void dropsWhenFullAndWritesInBatches() throws InterruptedException {
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new ArrayList<>();
+        PersistenceQueue<Integer> queue = new PersistenceQueue<>("test-writer", 4, 3, batch -> {
+            writerBusy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (batchSizes) {
+                batchSizes.add(batch.size());
+            }
+            return batch.size();
+        });
+
+        // The first item is taken by the writer, which then blocks, so four more fill the queue
+        assertTrue(queue.offer(0));
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(5));
+        assertFalse(queue.offer(6));
+
+        release.countDown();
+        queue.close(5000);
+
+        assertEquals(7, queue.getOffered());
+        assertEquals(2, queue.getDropped());
+        assertEquals(5, queue.getWritten());
+        assertEquals(0, queue.getFailed());
+        synchronized (batchSizes) {
+            assertEquals(3, batchSizes.size());
+            assertEquals(Integer.valueOf(1), batchSizes.get(0));
+            assertEquals(Integer.valueOf(3), batchSizes.get(1));
+            assertEquals(Integer.valueOf(1), batchSizes.get(2));
+        }
+    }
+
+    @Test
+    public void countsFailedWrites() {
+        PersistenceQueue<Integer> queue = new PersistenceQueue<>("test-writer", 4, 4, batch -> {
+            throw new IllegalStateException("disk full");
+        });
+
+        queue.offer(1);
+        queue.close(5000);
+
+        assertEquals(0, queue.getWritten());
+        assertEquals(1, queue.getFailed());
+    }
+
+    @Test
+    public void runsTheCloseCallbackOnTheWriterThreadAfterTheLastBatch() throws InterruptedException {
+        List<Integer> writes = new ArrayList<>();
+        PersistenceQueue<Integer> queue = new PersistenceQueue<>("test-writer", 8, 8, batch -> {
+            synchronized (writes) {
+                writes.addAll(batch);
+            }
+            return batch.size();
+        });
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+
+        CountDownLatch drained = new CountDownLatch(1);
+        Thread[] callbackThread = new Thread[1];
+        int[] writtenBeforeCallback = new int[1];
+        queue.close(() -> {
+            callbackThread[0] = Thread.currentThread();
+            synchronized (writes) {
+                writtenBeforeCallback[0] = writes.size();
+            }
+            drained.countDown();
+        });
+        assertFalse(queue.offer(5));
+
+        assertTrue(drained.await(5, TimeUnit.SECONDS));
+        assertEquals("test-writer", callbackThread[0].getName());
+        assertEquals(5, writtenBeforeCallback[0]);
+
+        // Once the writer has stopped, the callback runs on the caller
+        CountDownLatch again = new CountDownLatch(1);
+        queue.close(again::countDown);
+        assertEquals(0, again.getCount());
+    }
+
+    @Test
+    public void samplingPolicies() {
+        SamplingPolicy everyThird = SamplingPolicy.fromConfig("every_nth", 3, 0f);
+        assertTrue(everyThird.shouldSave(0, 0.99f));
+        assertFalse(everyThird.shouldSave(1, 0.10f));
+        assertTrue(everyThird.shouldSave(3, 0.50f));
+
+        SamplingPolicy unsure = SamplingPolicy.fromConfig("low_confidence", 1, 0.6f);
+        assertTrue(unsure.shouldSave(7, 0.59f));
+        assertFalse(unsure.shouldSave(7, 0.6f));
+    }
+}
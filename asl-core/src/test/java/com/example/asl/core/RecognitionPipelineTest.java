@@ -0,0 +1,249 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecognitionPipelineTest {
+
+    private static final List<String> LABELS = Arrays.asList("A", "B", "C");
+
+    /** Predicts class 1 for every frame and records how many frames each run saw. */
+    private static final class FakeBackend implements InferenceBackend {
+        private final ByteBuffer input = ByteBuffer.allocateDirect(2 * 64 * 64 * 3 * 4).order(ByteOrder.nativeOrder());
+        private final List<Integer> runs = new ArrayList<>();
+        private int batchSize = 2;
+        private int resizes;
+
+        @Override public boolean isQuantizedInput() { return false; }
+        @Override public boolean isSignedInput() { return false; }
+        @Override public int getNumClasses() { return LABELS.size(); }
+        @Override public int getMaxBatchSize() { return 2; }
+        @Override public int getBatchSize() { return batchSize; }
+        @Override public int getFrameInputBytes() { return 64 * 64 * 3 * 4; }
+        @Override public ByteBuffer getInputBuffer() { input.rewind(); return input; }
+
+        @Override
+        public void setBatchSize(int size) {
+            if (size != batchSize) {
+                resizes++;
+            }
+            batchSize = size;
+        }
+        @Override public FloatBuffer getInputFloatBuffer() { return getInputBuffer().asFloatBuffer(); }
+        @Override public float getLastInferenceMs() { return 0f; }
+        @Override public String summary() { return "fake"; }
+        @Override public void close() { }
+
+        @Override
+        public float[] run() {
+            runs.add(batchSize);
+            float[] scores = new float[batchSize * LABELS.size()];
+            for (int i = 0; i < batchSize; i++) {
+                scores[i * LABELS.size() + 1] = 0.9f;
+            }
+            return scores;
+        }
+    }
+
+    /** 32x32 grayscale model that is sure of class 0 on every other frame, starting with the first. */
+    private static final class AlternatingSmallBackend implements InferenceBackend {
+        private final ByteBuffer input = ByteBuffer.allocateDirect(32 * 32 * 4).order(ByteOrder.nativeOrder());
+        private int runs;
+
+        @Override public boolean isQuantizedInput() { return false; }
+        @Override public boolean isSignedInput() { return false; }
+        @Override public int getNumClasses() { return LABELS.size(); }
+        @Override public int getMaxBatchSize() { return 1; }
+        @Override public int getBatchSize() { return 1; }
+        @Override public void setBatchSize(int size) { }
+        @Override public int getFrameInputBytes() { return 32 * 32 * 4; }
+        @Override public ByteBuffer getInputBuffer() { input.clear(); return input; }
+        @Override public FloatBuffer getInputFloatBuffer() { return getInputBuffer().asFloatBuffer(); }
+        @Override public float getLastInferenceMs() { return 0f; }
+        @Override public String summary() { return "small"; }
+        @Override public void close() { }
+
+        @Override
+        public float[] run() {
+            return runs++ % 2 == 0 ? new float[]{0.95f, 0.03f, 0.02f} : new float[]{0.4f, 0.3f, 0.3f};
+        }
+    }
+
+    /** A controller that has already settled on batches of two. */
+    private static BatchSizeController batchingController() {
+        BatchSizeController controller = new BatchSizeController(2, 1_000_000_000L);
+        long now = System.nanoTime();
+        controller.onFrameArrival(now - 66_000_000L);
+        controller.onFrameArrival(now - 33_000_000L);
+        assertEquals(2, controller.onBatchComplete(1, 50_000_000L, 0));
+        return controller;
+    }
+
+    @Test
+    public void classifiesFullBatchesAndReportsTheVote() {
+        FakeBackend backend = new FakeBackend();
+        List<String> results = new ArrayList<>();
+        StageProfiler profiler = new StageProfiler(System::nanoTime, 1e9, true);
+        RecognitionPipeline pipeline = new RecognitionPipeline(backend, LABELS,
+                batchingController(), 3, profiler,
+                (label, confidence, details) -> results.add(label));
+
+        ByteBuffer y = ByteBuffer.allocate(16 * 16);
+        ByteBuffer uv = ByteBuffer.allocate(8 * 8);
+        YuvFrame frame = new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1);
+        for (int i = 0; i < 4; i++) {
+            frame.timestampNs = i * 33_000_000L;
+            pipeline.onFrame(frame);
+        }
+
+        assertEquals(Arrays.asList(2, 2), backend.runs);
+        assertEquals(0, backend.resizes);
+        assertFalse(results.isEmpty());
+        assertEquals("B", results.get(0));
+        assertEquals(4, pipeline.getStreamStats().getAnalyzedFrames());
+        assertEquals(1, RecognitionPipeline.argmax(new float[]{0f, 0f, 0.2f, 0.7f, 0.1f}, 2, 3));
+    }
+
+    @Test
+    public void withholdsResultsOfACancelledSession() {
+        FakeBackend backend = new FakeBackend();
+        List<String> results = new ArrayList<>();
+        FrameCoordinator coordinator = new FrameCoordinator(3, 1_000_000_000L);
+        RecognitionPipeline pipeline = new RecognitionPipeline(backend, LABELS,
+                batchingController(), 3, new StageProfiler(System::nanoTime, 1e9, false),
+                (label, confidence, details) -> results.add(label));
+        pipeline.setCoordinator(coordinator);
+
+        ByteBuffer y = ByteBuffer.allocate(16 * 16);
+        ByteBuffer uv = ByteBuffer.allocate(8 * 8);
+        YuvFrame frame = new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1);
+        pipeline.onFrame(frame);
+        coordinator.cancel();
+        frame.timestampNs = 33_000_000L;
+        pipeline.onFrame(frame);
+        assertTrue(results.isEmpty());
+        assertEquals(1, coordinator.getDropped(FrameCoordinator.DropReason.CANCELLED));
+
+        frame.timestampNs = 66_000_000L;
+        pipeline.onFrame(frame);
+        assertEquals(1, results.size());
+        assertEquals(0, coordinator.getInFlight());
+        assertEquals(2, coordinator.getStaleness().getCount());
+    }
+
+    @Test
+    public void capturesCarryTheIndexOfTheirOwnFrame() {
+        FakeBackend backend = new FakeBackend();
+        List<Long> captured = new ArrayList<>();
+        PersistenceQueue<CaptureRecord> queue = new PersistenceQueue<>("test-captures", 8, 8, batch -> {
+            synchronized (captured) {
+                for (CaptureRecord record : batch) {
+                    captured.add(record.frameIndex);
+                    record.recycle();
+                }
+            }
+            return batch.size();
+        });
+        RecognitionPipeline pipeline = new RecognitionPipeline(backend, LABELS,
+                batchingController(), 3, new StageProfiler(System::nanoTime, 1e9, false),
+                (label, confidence, details) -> { });
+        pipeline.setCascade(new EarlyExitCascade(new AlternatingSmallBackend(), 0.8f, 0.3f, 0.5f, 0));
+        pipeline.setCapture(SamplingPolicy.fromConfig("every_nth", 1, 0f), queue);
+
+        // Frames 1 and 3 exit early, so the full model's batch holds frames 2 and 4
+        ByteBuffer y = ByteBuffer.allocate(16 * 16);
+        ByteBuffer uv = ByteBuffer.allocate(8 * 8);
+        YuvFrame frame = new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1);
+        for (int i = 0; i < 4; i++) {
+            frame.timestampNs = i * 33_000_000L;
+            pipeline.onFrame(frame);
+        }
+        queue.close(5000);
+
+        assertEquals(Arrays.asList(2L, 4L), captured);
+        assertEquals(2, backend.runs.get(0).intValue());
+    }
+
+    @Test
+    public void votesEarlyExitsInFrameOrderWithThePendingBatch() {
+        FakeBackend backend = new FakeBackend();
+        List<String> results = new ArrayList<>();
+        FrameCoordinator coordinator = new FrameCoordinator(8, 60_000_000_000L);
+        // A vote window of one makes the result the last frame voted
+        RecognitionPipeline pipeline = new RecognitionPipeline(backend, LABELS,
+                batchingController(), 1, new StageProfiler(System::nanoTime, 1e9, false),
+                (label, confidence, details) -> results.add(label));
+        pipeline.setCascade(new EarlyExitCascade(new AlternatingSmallBackend(), 0.8f, 0.3f, 0.5f, 0));
+        pipeline.setCoordinator(coordinator);
+
+        // Frames 1 and 3 exit early as A; frames 2 and 4 are B from the full model. Frame 3
+        // must wait for frame 2, and frame 4 is the last to vote
+        ByteBuffer y = ByteBuffer.allocate(16 * 16);
+        ByteBuffer uv = ByteBuffer.allocate(8 * 8);
+        YuvFrame frame = new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1);
+        for (int i = 0; i < 4; i++) {
+            frame.timestampNs = i * 33_000_000L;
+            pipeline.onFrame(frame);
+        }
+
+        assertEquals(Arrays.asList("A", "B"), results);
+        assertEquals(0, coordinator.getInFlight());
+        assertEquals(4, coordinator.getStaleness().getCount());
+    }
+
+    @Test
+    public void closingMidBatchGivesTheCoordinatorItsSlotsBack() {
+        FakeBackend backend = new FakeBackend();
+        FrameCoordinator coordinator = new FrameCoordinator(5, 1_000_000_000L);
+        RecognitionPipeline pipeline = new RecognitionPipeline(backend, LABELS,
+                batchingController(), 3, new StageProfiler(System::nanoTime, 1e9, false),
+                (label, confidence, details) -> { });
+        pipeline.setCoordinator(coordinator);
+
+        ByteBuffer y = ByteBuffer.allocate(16 * 16);
+        ByteBuffer uv = ByteBuffer.allocate(8 * 8);
+        pipeline.onFrame(new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1));
+        assertEquals(1, coordinator.getInFlight());
+
+        pipeline.close();
+        assertEquals(0, coordinator.getInFlight());
+        assertEquals(1, coordinator.getDropped(FrameCoordinator.DropReason.CANCELLED));
+        assertTrue(backend.runs.isEmpty());
+    }
+
+    @Test
+    public void classifiesPartialBatchesWhenFramesArriveSlowly() throws InterruptedException {
+        FakeBackend backend = new FakeBackend();
+        List<String> results = new ArrayList<>();
+        FrameCoordinator coordinator = new FrameCoordinator(5, 2_000_000L);
+        RecognitionPipeline pipeline = new RecognitionPipeline(backend, LABELS,
+                batchingController(), 3, new StageProfiler(System::nanoTime, 1e9, false),
+                (label, confidence, details) -> results.add(label));
+        pipeline.setCoordinator(coordinator);
+
+        ByteBuffer y = ByteBuffer.allocate(16 * 16);
+        ByteBuffer uv = ByteBuffer.allocate(8 * 8);
+        YuvFrame frame = new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1);
+        for (int i = 0; i < 8; i++) {
+            frame.timestampNs = i * 500_000_000L;
+            pipeline.onFrame(frame);
+            Thread.sleep(5);
+        }
+
+        // The first frame waited past the age limit and ran on its own; the controller then
+        // stayed at single frames, so none was thrown away
+        assertEquals(8, results.size());
+        assertEquals(0, coordinator.getDropped(FrameCoordinator.DropReason.STALE));
+        assertEquals(1, backend.runs.get(0).intValue());
+        // Resized once, for the first partial batch, not again after every run
+        assertEquals(1, backend.resizes);
+    }
+}
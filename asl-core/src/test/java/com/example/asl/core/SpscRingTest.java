@@ -0,0 +1,70 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpscRingTest {
+
+    private static final class Slot {
+        long value;
+    }
+
+    @Test
+    public void reusesSlotsAndRefusesWhenFull() {
+        SpscRing<Slot> ring = new SpscRing<>(3, Slot::new);
+        assertEquals(4, ring.capacity());
+
+        for (int i = 0; i < 4; i++) {
+            ring.claim().value = i;
+            ring.publish();
+        }
+        assertNull(ring.claim());
+        assertEquals(4, ring.available());
+        assertEquals(2, ring.peek(2).value);
+
+        Slot first = ring.peek(0);
+        ring.release(1);
+        assertSame(first, ring.claim());
+        assertEquals(1, ring.peek(0).value);
+    }
+
+    @Test
+    public void passesValuesInOrderBetweenThreads() throws InterruptedException {
+        SpscRing<Slot> ring = new SpscRing<>(8, Slot::new);
+        int count = 50_000;
+        long[] sum = new long[1];
+        boolean[] ordered = {true};
+
+        Thread consumer = new Thread(() -> {
+            long expected = 0;
+            while (expected < count) {
+                Slot slot = ring.peek(0);
+                if (slot == null) {
+                    Thread.yield();
+                    continue;
+                }
+                if (slot.value != expected) {
+                    ordered[0] = false;
+                }
+                sum[0] += slot.value;
+                ring.release(1);
+                expected++;
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < count; i++) {
+            Slot slot;
+            while ((slot = ring.claim()) == null) {
+                Thread.yield();
+            }
+            slot.value = i;
+            ring.publish();
+        }
+        consumer.join(10_000);
+
+        assertFalse(consumer.isAlive());
+        assertTrue(ordered[0]);
+        assertEquals((long) count * (count - 1) / 2, sum[0]);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StageProfilerTest {
+
+    private long tick = 1;
+
+    @Test
+    public void lapsRecordEachStage() {
+        StageProfiler profiler = new StageProfiler(() -> tick, 1000.0, true);
+
+        long t = profiler.start();
+        tick += 4;
+        t = profiler.lap(StageProfiler.Stage.CONVERT, t);
+        tick += 20;
+        profiler.lap(StageProfiler.Stage.INFERENCE, t);
+
+        assertEquals(4_000_000L, profiler.getHistogram(StageProfiler.Stage.CONVERT).getMaxNs());
+        assertEquals(20_000_000L, profiler.getHistogram(StageProfiler.Stage.INFERENCE).getMaxNs());
+        assertTrue(profiler.toJson("test").contains("\"inference\":{\"count\":1,"));
+    }
+
+    @Test
+    public void disabledProfilerRecordsNothing() {
+        StageProfiler profiler = new StageProfiler(() -> tick, 1000.0, false);
+
+        long t = profiler.start();
+        tick += 4;
+        profiler.lap(StageProfiler.Stage.CONVERT, t);
+        assertEquals(0, profiler.getHistogram(StageProfiler.Stage.CONVERT).getCount());
+
+        // A lap started while disabled is ignored even if profiling is switched on meanwhile
+        profiler.setEnabled(true);
+        profiler.lap(StageProfiler.Stage.CONVERT, t);
+        assertEquals(0, profiler.getHistogram(StageProfiler.Stage.CONVERT).getCount());
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class StagedRecognitionPipelineTest {
+
+    private static final List<String> LABELS = Arrays.asList("A", "B", "C");
+
+    /** Predicts class 2 for every frame and counts the frames it classified. */
+    private static final class FakeBackend implements InferenceBackend {
+        private final ByteBuffer input = ByteBuffer.allocateDirect(2 * 64 * 64 * 3 * 4).order(ByteOrder.nativeOrder());
+        private final AtomicInteger frames = new AtomicInteger();
+        private int batchSize = 2;
+
+        @Override public boolean isQuantizedInput() { return false; }
+        @Override public boolean isSignedInput() { return false; }
+        @Override public int getNumClasses() { return LABELS.size(); }
+        @Override public int getMaxBatchSize() { return 2; }
+        @Override public int getBatchSize() { return batchSize; }
+        @Override public void setBatchSize(int size) { batchSize = size; }
+        @Override public int getFrameInputBytes() { return 64 * 64 * 3 * 4; }
+        @Override public ByteBuffer getInputBuffer() { input.clear().limit(batchSize * getFrameInputBytes()); return input; }
+        @Override public FloatBuffer getInputFloatBuffer() { return getInputBuffer().asFloatBuffer(); }
+        @Override public float getLastInferenceMs() { return 0f; }
+        @Override public String summary() { return "fake"; }
+        @Override public void close() { }
+
+        @Override
+        public float[] run() {
+            frames.addAndGet(batchSize);
+            float[] scores = new float[batchSize * LABELS.size()];
+            for (int i = 0; i < batchSize; i++) {
+                scores[i * LABELS.size() + 2] = 0.8f;
+            }
+            return scores;
+        }
+    }
+
+    /** 32x32 grayscale model that is sure of class 0 on every other frame. */
+    private static final class AlternatingSmallBackend implements InferenceBackend {
+        private final ByteBuffer input = ByteBuffer.allocateDirect(32 * 32 * 4).order(ByteOrder.nativeOrder());
+        private int runs;
+
+        @Override public boolean isQuantizedInput() { return false; }
+        @Override public boolean isSignedInput() { return false; }
+        @Override public int getNumClasses() { return LABELS.size(); }
+        @Override public int getMaxBatchSize() { return 1; }
+        @Override public int getBatchSize() { return 1; }
+        @Override public void setBatchSize(int size) { }
+        @Override public int getFrameInputBytes() { return 32 * 32 * 4; }
+        @Override public ByteBuffer getInputBuffer() { input.clear(); return input; }
+        @Override public FloatBuffer getInputFloatBuffer() { return getInputBuffer().asFloatBuffer(); }
+        @Override public float getLastInferenceMs() { return 0f; }
+        @Override public String summary() { return "small"; }
+        @Override public void close() { }
+
+        @Override
+        public float[] run() {
+            return runs++ % 2 == 0 ? new float[]{0.95f, 0.03f, 0.02f} : new float[]{0.4f, 0.3f, 0.3f};
+        }
+    }
+
+    /** A controller that has already settled on batches of two. */
+    private static BatchSizeController batchingController() {
+        BatchSizeController controller = new BatchSizeController(2, 1_000_000_000L);
+        long now = System.nanoTime();
+        controller.onFrameArrival(now - 66_000_000L);
+        controller.onFrameArrival(now - 33_000_000L);
+        controller.onBatchComplete(1, 50_000_000L, 0);
+        return controller;
+    }
+
+    @Test
+    public void classifiesFramesAcrossStageThreads() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(1);
+        String[] label = new String[1];
+        FrameCoordinator coordinator = new FrameCoordinator(16, 1_000_000_000L);
+        // Settled on batches of two, so the first result needs two frames
+        StagedRecognitionPipeline pipeline = new StagedRecognitionPipeline(new FakeBackend(), LABELS,
+                batchingController(), 3, new StageProfiler(System::nanoTime, 1e9, false),
+                (prediction, confidence, details) -> {
+                    label[0] = prediction;
+                    delivered.countDown();
+                }, 4);
+        pipeline.setCoordinator(coordinator);
+        pipeline.start();
+        try {
+            ByteBuffer y = ByteBuffer.allocateDirect(16 * 16);
+            ByteBuffer uv = ByteBuffer.allocateDirect(8 * 8);
+            YuvFrame frame = new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1);
+            for (int i = 0; i < 20 && delivered.getCount() > 0; i++) {
+                frame.timestampNs = i * 33_000_000L;
+                pipeline.onFrame(frame);
+                Thread.sleep(5);
+            }
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals("C", label[0]);
+            assertTrue(pipeline.getStreamStats().getAnalyzedFrames() >= 2);
+            assertTrue(pipeline.summary().contains("bottleneck"));
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void closingMidBatchGivesTheCoordinatorItsSlotsBack() throws InterruptedException {
+        FrameCoordinator coordinator = new FrameCoordinator(5, 60_000_000_000L);
+        StagedRecognitionPipeline pipeline = new StagedRecognitionPipeline(new FakeBackend(), LABELS,
+                batchingController(), 3, new StageProfiler(System::nanoTime, 1e9, false),
+                (prediction, confidence, details) -> { }, 4);
+        pipeline.setCoordinator(coordinator);
+        pipeline.setMaxBatchWaitNs(60_000_000_000L);
+        pipeline.start();
+
+        // One frame of a batch of two waits in the tensor ring; the age limit is far away
+        ByteBuffer y = ByteBuffer.allocateDirect(16 * 16);
+        ByteBuffer uv = ByteBuffer.allocateDirect(8 * 8);
+        pipeline.onFrame(new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1));
+        Thread.sleep(50);
+        assertEquals(1, coordinator.getInFlight());
+
+        pipeline.close();
+        assertEquals(0, coordinator.getInFlight());
+        assertEquals(1, coordinator.getDropped(FrameCoordinator.DropReason.CANCELLED));
+    }
+
+    @Test
+    public void flushesTheEndOfACascadeStreamWithoutACoordinator() throws InterruptedException {
+        FakeBackend full = new FakeBackend();
+        EarlyExitCascade cascade = new EarlyExitCascade(new AlternatingSmallBackend(), 0.8f, 0.3f, 0.5f, 0);
+        List<String> labels = new CopyOnWriteArrayList<>();
+        StagedRecognitionPipeline pipeline = new StagedRecognitionPipeline(full, LABELS,
+                batchingController(), 1, new StageProfiler(System::nanoTime, 1e9, false),
+                (prediction, confidence, details) -> labels.add(prediction), 2);
+        pipeline.setCascade(cascade);
+        pipeline.setMaxBatchWaitNs(20_000_000L);
+        pipeline.start();
+        try {
+            // Frames 0, 2, 4 and 6 exit early; 1, 3 and 5 need the full model, which leaves a
+            // partial batch at the end that early result 6 has to wait behind
+            ByteBuffer y = ByteBuffer.allocateDirect(16 * 16);
+            ByteBuffer uv = ByteBuffer.allocateDirect(8 * 8);
+            YuvFrame frame = new YuvFrame().set(16, 16, 0, 0L, y, 16, 1, uv, uv, 8, 1);
+            for (int i = 0; i < 7; i++) {
+                frame.timestampNs = i * 33_000_000L;
+                pipeline.onFrame(frame);
+                Thread.sleep(10);
+            }
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (full.frames.get() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(100);
+            assertEquals(3, full.frames.get());
+            assertEquals(4f / 7f, cascade.getExitRate(), 1e-6f);
+            // The vote window is one frame, so the last result is the last frame's, from the small model
+            assertEquals("A", labels.get(labels.size() - 1));
+        } finally {
+            pipeline.close();
+        }
+    }
+}
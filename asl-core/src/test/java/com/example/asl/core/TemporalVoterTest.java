@@ -0,0 +1,31 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TemporalVoterTest {
+
+    @Test
+    public void singleOutlierDoesNotFlipTheWinner() {
+        TemporalVoter voter = new TemporalVoter(5, 4);
+        voter.add(2, 0.9f);
+        voter.add(2, 0.8f);
+        assertEquals(2, voter.add(4, 0.95f));
+        assertEquals(0.85f, voter.getWinnerConfidence(), 1e-6f);
+    }
+
+    @Test
+    public void oldVotesLeaveTheWindow() {
+        TemporalVoter voter = new TemporalVoter(5, 3);
+        voter.add(1, 0.9f);
+        voter.add(1, 0.9f);
+        voter.add(3, 0.9f);
+        voter.add(3, 0.9f);
+        assertEquals(3, voter.add(3, 0.9f));
+
+        voter.reset();
+        assertEquals(-1, voter.getWinner());
+        assertEquals(0, voter.add(0, 0.5f));
+    }
+}
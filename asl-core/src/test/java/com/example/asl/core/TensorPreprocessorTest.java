@@ -0,0 +1,73 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class TensorPreprocessorTest {
+
+    @Test
+    public void normalizesInterleavedRgb() {
+        TensorPreprocessor preprocessor = new TensorPreprocessor(2, 1);
+        preprocessor.getPixels()[0] = 0xFFFF8000;
+        preprocessor.getPixels()[1] = 0x00000033;
+        FloatBuffer dst = FloatBuffer.allocate(6);
+
+        preprocessor.normalizeInto(dst);
+
+        assertArrayEquals(new float[]{1f, 128 / 255f, 0f, 0f, 0f, 51 / 255f}, dst.array(), 1e-6f);
+    }
+
+    @Test
+    public void packsUnsignedAndSignedBytes() {
+        TensorPreprocessor preprocessor = new TensorPreprocessor(1, 1);
+        preprocessor.getPixels()[0] = 0xFFFF8000;
+        ByteBuffer dst = ByteBuffer.allocate(6);
+
+        preprocessor.packInto(dst, false);
+        preprocessor.packInto(dst, true);
+
+        assertArrayEquals(new byte[]{(byte) 255, (byte) 128, 0, 127, 0, -128}, dst.array());
+    }
+
+    @Test
+    public void steadyStateDoesNotAllocate() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        TensorPreprocessor preprocessor = new TensorPreprocessor(64, 64);
+        FloatBuffer input = ByteBuffer.allocateDirect(64 * 64 * 3 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        int[] pixels = preprocessor.getPixels();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i * 0x010203;
+        }
+
+        // Warm up so the loop is compiled before measuring
+        for (int i = 0; i < 20_000; i++) {
+            input.rewind();
+            preprocessor.normalizeInto(input);
+        }
+
+        int frames = 10_000;
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < frames; i++) {
+            input.rewind();
+            preprocessor.normalizeInto(input);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        // Allow for the measurement call itself, but not a single byte per frame
+        assertTrue("allocated " + allocated + " bytes over " + frames + " frames", allocated < frames);
+    }
+}
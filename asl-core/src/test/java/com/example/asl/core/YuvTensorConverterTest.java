@@ -0,0 +1,140 @@
+package com.example.asl.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class YuvTensorConverterTest {
+
+    /** Planar I420 frame with padded rows whose luma encodes the pixel position as 16 * y + x. */
+    private static YuvFrame positionFrame(int width, int height, int rotation) {
+        int rowStride = width + 3;
+        ByteBuffer y = ByteBuffer.allocateDirect(rowStride * height);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                y.put(row * rowStride + col, (byte) (16 * row + col));
+            }
+        }
+        int chromaStride = width / 2 + 5;
+        ByteBuffer u = filled(chromaStride * height / 2, 128);
+        ByteBuffer v = filled(chromaStride * height / 2, 128);
+        return new YuvFrame().set(width, height, rotation, 0L, y, rowStride, 1, u, v, chromaStride, 1);
+    }
+
+    private static ByteBuffer filled(int size, int value) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        for (int i = 0; i < size; i++) {
+            buffer.put(i, (byte) value);
+        }
+        return buffer;
+    }
+
+    private static int[] luma(YuvTensorConverter converter, YuvFrame frame) {
+        int[] argb = new int[converter.getOutWidth() * converter.getOutHeight()];
+        converter.toArgb(frame, argb);
+        int[] luma = new int[argb.length];
+        for (int i = 0; i < argb.length; i++) {
+            luma[i] = argb[i] & 0xFF;
+        }
+        return luma;
+    }
+
+    @Test
+    public void cropsCentredSquareByDefault() {
+        YuvTensorConverter converter = new YuvTensorConverter(4, 4);
+
+        int[] out = luma(converter, positionFrame(8, 4, 0));
+
+        assertArrayEquals(new int[]{
+                2, 3, 4, 5,
+                18, 19, 20, 21,
+                34, 35, 36, 37,
+                50, 51, 52, 53}, out);
+    }
+
+    @Test
+    public void rotatesClockwiseToUpright() {
+        YuvTensorConverter converter = new YuvTensorConverter(4, 4);
+
+        // Upright (u, v) comes from sensor (x = left + v, y = height - 1 - u)
+        assertArrayEquals(new int[]{
+                50, 34, 18, 2,
+                51, 35, 19, 3,
+                52, 36, 20, 4,
+                53, 37, 21, 5}, luma(converter, positionFrame(8, 4, 90)));
+        assertArrayEquals(new int[]{
+                53, 52, 51, 50,
+                37, 36, 35, 34,
+                21, 20, 19, 18,
+                5, 4, 3, 2}, luma(converter, positionFrame(8, 4, 180)));
+        assertArrayEquals(new int[]{
+                5, 21, 37, 53,
+                4, 20, 36, 52,
+                3, 19, 35, 51,
+                2, 18, 34, 50}, luma(converter, positionFrame(8, 4, 270)));
+    }
+
+    @Test
+    public void downsamplesExplicitCrop() {
+        YuvTensorConverter converter = new YuvTensorConverter(2, 1);
+        converter.setCrop(0, 2, 8, 2);
+
+        // Centres of the two halves of rows 2..3 are sampled at x = 2 and x = 6, y = 3
+        assertArrayEquals(new int[]{50, 54}, luma(converter, positionFrame(8, 4, 0)));
+    }
+
+    @Test
+    public void convertsInterleavedChromaToNormalizedRgb() {
+        int width = 4;
+        int height = 2;
+        ByteBuffer y = filled(width * height, 81);
+        // NV21 layout: V and U alternate, so the U plane starts one byte after the V plane
+        ByteBuffer vu = ByteBuffer.allocateDirect(width * height / 2);
+        for (int i = 0; i < width * height / 2; i += 2) {
+            vu.put(i, (byte) 240);
+            vu.put(i + 1, (byte) 90);
+        }
+        vu.position(1);
+        ByteBuffer u = vu.slice();
+        vu.position(0);
+        ByteBuffer v = vu.slice();
+        YuvFrame frame = new YuvFrame().set(width, height, 0, 0L, y, width, 1, u, v, width, 2);
+
+        YuvTensorConverter converter = new YuvTensorConverter(1, 1);
+        FloatBuffer floats = FloatBuffer.allocate(3);
+        converter.toFloat(frame, floats);
+
+        assertArrayEquals(new float[]{238 / 255f, 14 / 255f, 14 / 255f}, floats.array(), 1.5f / 255f);
+    }
+
+    @Test
+    public void writesUint8Rgb() {
+        YuvTensorConverter converter = new YuvTensorConverter(2, 2);
+        ByteBuffer rgb = ByteBuffer.allocate(2 * 2 * 3);
+
+        converter.toRgb(positionFrame(4, 4, 0), rgb);
+
+        // Each output pixel samples the centre of its 2x2 block: (1, 1), (3, 1), (1, 3), (3, 3)
+        assertEquals(12, rgb.position());
+        assertEquals(17, rgb.get(0));
+        assertEquals(19, rgb.get(4));
+        assertEquals(49, rgb.get(8));
+        assertEquals(51, rgb.get(11));
+    }
+
+    @Test
+    public void writesInt8RgbAndArgb() {
+        YuvTensorConverter converter = new YuvTensorConverter(2, 2);
+        ByteBuffer rgb = ByteBuffer.allocate(2 * 2 * 3);
+        int[] argb = new int[4];
+
+        converter.toRgb(positionFrame(4, 4, 0), rgb, true, argb);
+
+        assertEquals(17 - 128, rgb.get(0));
+        assertEquals(51 - 128, rgb.get(11));
+        assertEquals(0xFF333333, argb[3]);
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.asl.dnn;
+
+import com.example.asl.core.InferenceBackend;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfInt;
+import org.opencv.dnn.Dnn;
+import org.opencv.dnn.Net;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Locale;
+
+/**
+ * Runs a TFLite or ONNX build of the classifier with OpenCV's DNN module, on the CPU or on one
+ * of the GPU targets OpenCV was built with.
+ *
+ * <p>Frames are written as NHWC floats, like for the TFLite interpreter, into a direct buffer
+ * that a Mat wraps without copying. The TFLite importer exposes its input as NCHW, so for those
+ * models the batch is transposed before {@code setInput}; ONNX exports of the Keras model keep
+ * their NHWC input and are fed as they are.
+ */
+public final class OpenCvDnnBackend implements InferenceBackend {
+
+    private static final int SIZE = 64;
+    private static final int CHANNELS = 3;
+    private static final int FRAME_FLOATS = SIZE * SIZE * CHANNELS;
+
+    private final String name;
+    private final Net net;
+    private final boolean nchwInput;
+    private final int maxBatchSize;
+    private int batchSize = 1;
+
+    private final ByteBuffer inputStorage;
+    private final ByteBuffer[] inputViews;
+    private final FloatBuffer[] inputFloatViews;
+    private final Mat[] inputMats;
+    private final MatOfInt nhwcToNchw = new MatOfInt(0, 3, 1, 2);
+    private final Mat transposed = new Mat();
+    private final int numClasses;
+    private final float[][] scores;
+
+    // Written by the inference thread only; read by whichever thread reports
+    private volatile long lastInferenceNs;
+    private volatile long totalInferenceNs;
+    private volatile long inferenceCount;
+
+    /** Loads a model file; the format and input layout follow from its extension. */
+    public static OpenCvDnnBackend fromFile(String modelPath, int maxBatchSize, int target) {
+        String fileName = modelPath.substring(modelPath.lastIndexOf('/') + 1);
+        return new OpenCvDnnBackend(fileName, Dnn.readNet(modelPath), maxBatchSize, isTfLite(fileName), target);
+    }
+
+    /** Loads a model from memory, e.g. an app asset; {@code fileName} gives its format. */
+    public static OpenCvDnnBackend fromBuffer(String fileName, byte[] model, int maxBatchSize, int target) {
+        MatOfByte buffer = new MatOfByte(model);
+        Net net = isTfLite(fileName) ? Dnn.readNetFromTFLite(buffer) : Dnn.readNetFromONNX(buffer);
+        buffer.close();
+        return new OpenCvDnnBackend(fileName, net, maxBatchSize, isTfLite(fileName), target);
+    }
+
+    private static boolean isTfLite(String fileName) {
+        return fileName.endsWith(".tflite");
+    }
+
+    /**
+     * Maps a target name (cpu, opencl, opencl_fp16 or vulkan) to OpenCV's DNN target constant.
+     * Unknown names fall back to the CPU.
+     */
+    public static int targetFromConfig(String name) {
+        switch (name) {
+            case "opencl":
+                return Dnn.DNN_TARGET_OPENCL;
+            case "opencl_fp16":
+                return Dnn.DNN_TARGET_OPENCL_FP16;
+            case "vulkan":
+                return Dnn.DNN_TARGET_VULKAN;
+            default:
+                return Dnn.DNN_TARGET_CPU;
+        }
+    }
+
+    /**
+     * @param nchwInput whether the network takes NCHW blobs (the TFLite importer) rather than
+     *                  the NHWC frames written into the input buffer
+     * @param target    one of the {@code Dnn.DNN_TARGET_*} constants
+     */
+    public OpenCvDnnBackend(String name, Net net, int maxBatchSize, boolean nchwInput, int target) {
+        this.name = "opencv-dnn " + name;
+        this.net = net;
+        this.net.setPreferableBackend(target == Dnn.DNN_TARGET_VULKAN ? Dnn.DNN_BACKEND_VKCOM : Dnn.DNN_BACKEND_OPENCV);
+        this.net.setPreferableTarget(target);
+        this.nchwInput = nchwInput;
+        this.maxBatchSize = maxBatchSize;
+
+        inputStorage = ByteBuffer.allocateDirect(FRAME_FLOATS * 4 * maxBatchSize).order(ByteOrder.nativeOrder());
+        inputViews = new ByteBuffer[maxBatchSize + 1];
+        inputFloatViews = new FloatBuffer[maxBatchSize + 1];
+        inputMats = new Mat[maxBatchSize + 1];
+        scores = new float[maxBatchSize + 1][];
+        createViews(1);
+
+        // One forward pass on a blank frame sizes the output and warms up the network
+        Mat output = forward();
+        numClasses = (int) output.total();
+        output.close();
+        scores[1] = new float[numClasses];
+    }
+
+    private void createViews(int size) {
+        if (inputViews[size] != null) {
+            return;
+        }
+        ByteBuffer view = inputStorage.duplicate();
+        view.position(0);
+        view.limit(FRAME_FLOATS * 4 * size);
+        inputViews[size] = view.slice().order(ByteOrder.nativeOrder());
+        inputFloatViews[size] = inputViews[size].asFloatBuffer();
+        Mat rows = new Mat(size, FRAME_FLOATS, CvType.CV_32F, inputViews[size]);
+        inputMats[size] = rows.reshape(1, new int[]{size, SIZE, SIZE, CHANNELS});
+        rows.close();
+        if (numClasses > 0) {
+            scores[size] = new float[numClasses * size];
+        }
+    }
+
+    private Mat forward() {
+        Mat input = inputMats[batchSize];
+        if (nchwInput) {
+            Core.transposeND(input, nhwcToNchw, transposed);
+            input = transposed;
+        }
+        net.setInput(input);
+        return net.forward();
+    }
+
+    @Override
+    public boolean isQuantizedInput() {
+        return false;
+    }
+
+    @Override
+    public boolean isSignedInput() {
+        return false;
+    }
+
+    @Override
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void setBatchSize(int size) {
+        if (size < 1 || size > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size " + size + " outside 1.." + maxBatchSize);
+        }
+        createViews(size);
+        batchSize = size;
+    }
+
+    @Override
+    public int getFrameInputBytes() {
+        return FRAME_FLOATS * 4;
+    }
+
+    @Override
+    public ByteBuffer getInputBuffer() {
+        ByteBuffer input = inputViews[batchSize];
+        input.rewind();
+        return input;
+    }
+
+    @Override
+    public FloatBuffer getInputFloatBuffer() {
+        FloatBuffer input = inputFloatViews[batchSize];
+        input.rewind();
+        return input;
+    }
+
+    @Override
+    public float[] run() {
+        long start = System.nanoTime();
+        Mat output = forward();
+        float[] result = scores[batchSize];
+        output.get(0, 0, result);
+        output.close();
+
+        long ns = System.nanoTime() - start;
+        lastInferenceNs = ns;
+        totalInferenceNs += ns;
+        inferenceCount++;
+        return result;
+    }
+
+    @Override
+    public float getLastInferenceMs() {
+        return lastInferenceNs / 1e6f;
+    }
+
+    @Override
+    public String summary() {
+        long count = inferenceCount;
+        long total = totalInferenceNs;
+        return String.format(Locale.US, "%s: %.2f ms/inference over %d batches",
+                name, count == 0 ? 0f : total / 1e6f / count, count);
+    }
+
+    @Override
+    public void close() {
+        for (Mat mat : inputMats) {
+            if (mat != null) {
+                mat.close();
+            }
+        }
+        transposed.close();
+        nhwcToNchw.close();
+        net.close();
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.asl.eval;
+
+import com.example.asl.core.AslClasses;
+import com.example.asl.core.EvaluationReport;
+import com.example.asl.core.InferenceBackend;
+import com.example.asl.core.RecognitionPipeline;
+import com.example.asl.core.TensorPreprocessor;
+import com.example.asl.dnn.OpenCvDnnBackend;
+
+import org.opencv.core.Core;
+import org.opencv.dnn.Dnn;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Command-line evaluation of a classifier build over a labeled image tree.
+ *
+ * <p>Each worker thread owns its own backend and preprocessor, claims the next batch of image
+ * paths, decodes and normalizes them into the backend's input and classifies them. The report
+ * (accuracy, per-class recall, confusion matrix, images per second and latency percentiles) is
+ * printed when every image has been seen, and optionally written as JSON.
+ */
+public final class EvalMain {
+
+    private static final int SIZE = 64;
+    private static final String USAGE = "usage: asl-eval --model <model.tflite|model.onnx> --images <dir>"
+            + " [--threads N] [--batch N] [--layout nchw|nhwc] [--json <file>]";
+
+    private EvalMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String model = null;
+        String images = null;
+        String json = null;
+        String layout = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batch = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--model": model = args[i + 1]; break;
+                case "--images": images = args[i + 1]; break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--batch": batch = Integer.parseInt(args[i + 1]); break;
+                case "--layout": layout = args[i + 1]; break;
+                case "--json": json = args[i + 1]; break;
+                default:
+                    System.err.println(USAGE);
+                    System.exit(2);
+            }
+        }
+        if (model == null || images == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        // The TFLite importer takes NCHW blobs, ONNX exports of the Keras model keep NHWC
+        boolean nchw = layout != null ? layout.equals("nchw") : model.endsWith(".tflite");
+
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+        // Parallelism comes from the worker threads; keep OpenCV from oversubscribing the cores
+        Core.setNumThreads(threads > 1 ? 1 : Runtime.getRuntime().availableProcessors());
+
+        List<ImageFolderDataset.Sample> samples = ImageFolderDataset.scan(Paths.get(images), AslClasses.LABELS);
+        System.out.printf("%d images, %d threads, batch %d, %s%n", samples.size(), threads, batch, model);
+
+        EvaluationReport report = evaluate(samples, model, threads, batch, nchw);
+        System.out.print(report.report());
+        if (json != null) {
+            Files.write(Paths.get(json), report.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static EvaluationReport evaluate(List<ImageFolderDataset.Sample> samples, String model, int threads, int batch,
+                                     boolean nchw) throws InterruptedException {
+        EvaluationReport report = new EvaluationReport(AslClasses.LABELS);
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong unreadable = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try (InferenceBackend backend = new OpenCvDnnBackend(model, Dnn.readNet(model), batch, nchw, Dnn.DNN_TARGET_CPU)) {
+                    runWorker(backend, samples, next, batch, report, unreadable);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "eval-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report.setWallTimeNs(System.nanoTime() - start);
+
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Evaluation worker failed", failures.get(0));
+        }
+        if (unreadable.get() > 0) {
+            System.err.printf("skipped %d unreadable images%n", unreadable.get());
+        }
+        return report;
+    }
+
+    private static void runWorker(InferenceBackend backend, List<ImageFolderDataset.Sample> samples, AtomicInteger next,
+                                  int batch, EvaluationReport report, AtomicLong unreadable) throws IOException {
+        TensorPreprocessor preprocessor = new TensorPreprocessor(SIZE, SIZE);
+        int[] labels = new int[batch];
+        long[] preprocessNs = new long[batch];
+        int numClasses = backend.getNumClasses();
+
+        for (int first = next.getAndAdd(batch); first < samples.size(); first = next.getAndAdd(batch)) {
+            int last = Math.min(first + batch, samples.size());
+            int filled = 0;
+            backend.setBatchSize(last - first);
+            FloatBuffer input = backend.getInputFloatBuffer();
+            for (int i = first; i < last; i++) {
+                long preprocessStart = System.nanoTime();
+                BufferedImage image = ImageIO.read(samples.get(i).path.toFile());
+                if (image == null) {
+                    unreadable.incrementAndGet();
+                    continue;
+                }
+                loadPixels(image, preprocessor.getPixels());
+                preprocessor.normalizeInto(input);
+                labels[filled] = samples.get(i).label;
+                preprocessNs[filled] = System.nanoTime() - preprocessStart;
+                filled++;
+            }
+            if (filled == 0) {
+                continue;
+            }
+            if (filled < backend.getBatchSize()) {
+                backend.setBatchSize(filled);
+            }
+
+            float[] scores = backend.run();
+            long inferenceNs = (long) (backend.getLastInferenceMs() * 1e6f) / filled;
+            for (int slot = 0; slot < filled; slot++) {
+                int predicted = RecognitionPipeline.argmax(scores, slot * numClasses, numClasses);
+                report.add(labels[slot], predicted, preprocessNs[slot], inferenceNs);
+            }
+        }
+    }
+
+    /** Copies the image as ARGB into {@code pixels}, scaling it to 64x64 first if needed. */
+    private static void loadPixels(BufferedImage image, int[] pixels) {
+        if (image.getWidth() != SIZE || image.getHeight() != SIZE) {
+            BufferedImage scaled = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = scaled.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, SIZE, SIZE, null);
+            graphics.dispose();
+            image = scaled;
+        }
+        image.getRGB(0, 0, SIZE, SIZE, pixels, 0, SIZE);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.asl.eval;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A labeled image tree: every image below {@code <root>/<label>/} belongs to that class. Only
+ * the paths are listed up front; images are decoded by the workers as they go.
+ */
+final class ImageFolderDataset {
+
+    static final class Sample {
+        final Path path;
+        final int label;
+
+        Sample(Path path, int label) {
+            this.path = path;
+            this.label = label;
+        }
+    }
+
+    private ImageFolderDataset() {
+    }
+
+    /** Lists the images of every class folder present under {@code root}, in a stable order. */
+    static List<Sample> scan(Path root, List<String> classLabels) throws IOException {
+        List<Sample> samples = new ArrayList<>();
+        for (int label = 0; label < classLabels.size(); label++) {
+            Path folder = root.resolve(classLabels.get(label));
+            if (!Files.isDirectory(folder)) {
+                continue;
+            }
+            List<Path> images;
+            try (Stream<Path> files = Files.walk(folder)) {
+                images = files.filter(Files::isRegularFile).filter(ImageFolderDataset::isImage).collect(Collectors.toList());
+            }
+            Collections.sort(images);
+            for (Path image : images) {
+                samples.add(new Sample(image, label));
+            }
+        }
+        return samples;
+    }
+
+    private static boolean isImage(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.US);
+        return name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".bmp");
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.asl.benchmark;
+
+import com.example.asl.core.RecognitionPipeline;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-1 search over the classifier output, for every frame of a batch of 29-class scores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgmaxBenchmark {
+
+    private static final int NUM_CLASSES = 29;
+
+    @Param({"1", "4"})
+    public int batchSize;
+
+    private float[] scores;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        scores = new float[batchSize * NUM_CLASSES];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextFloat();
+        }
+    }
+
+    @Benchmark
+    public void argmax(Blackhole blackhole) {
+        for (int slot = 0; slot < batchSize; slot++) {
+            blackhole.consume(RecognitionPipeline.argmax(scores, slot * NUM_CLASSES, NUM_CLASSES));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.asl.benchmark;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.utils.Converters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Converters} round trips between {@code List<Point>} and a Mat, dominated by the boxing
+ * loops that copy every point through a primitive array. These create Mats, so they need the
+ * desktop OpenCV library on {@code java.library.path} (pass {@code -PopencvLibDir}); without it
+ * the setup fails and JMH reports this benchmark as errored while the others still run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertersBenchmark {
+
+    @Param({"64", "4096"})
+    public int count;
+
+    private List<Point> points;
+    private List<Point> output;
+    private Mat pointMat;
+
+    @Setup
+    public void setUp() {
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+        points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new Point(i % 640, i / 640));
+        }
+        output = new ArrayList<>(count);
+        pointMat = Converters.vector_Point_to_Mat(points);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pointMat != null) {
+            pointMat.release();
+        }
+    }
+
+    @Benchmark
+    public Mat vectorPointToMat() {
+        Mat mat = Converters.vector_Point_to_Mat(points);
+        mat.release();
+        return mat;
+    }
+
+    @Benchmark
+    public List<Point> matToVectorPoint() {
+        Converters.Mat_to_vector_Point(pointMat, output);
+        return output;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.asl.benchmark;
+
+import com.example.asl.core.TensorPreprocessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ARGB pixels to the 64x64x3 model input: the original per-pixel {@code putFloat} loop into a
+ * freshly allocated buffer, against the preprocessor's bulk float and uint8 paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizationBenchmark {
+
+    private static final int SIZE = 64;
+
+    private TensorPreprocessor preprocessor;
+    private FloatBuffer floats;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setUp() {
+        preprocessor = new TensorPreprocessor(SIZE, SIZE);
+        Random random = new Random(42);
+        int[] pixels = preprocessor.getPixels();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        floats = ByteBuffer.allocateDirect(SIZE * SIZE * 3 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        bytes = ByteBuffer.allocateDirect(SIZE * SIZE * 3);
+    }
+
+    /** The original preprocessImage: new direct buffer per frame, one putFloat per channel. */
+    @Benchmark
+    public ByteBuffer legacyPutFloat() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(SIZE * SIZE * 3 * 4);
+        buffer.order(ByteOrder.nativeOrder());
+        for (int pixel : preprocessor.getPixels()) {
+            buffer.putFloat(((pixel >> 16) & 0xFF) / 255.0f);
+            buffer.putFloat(((pixel >> 8) & 0xFF) / 255.0f);
+            buffer.putFloat((pixel & 0xFF) / 255.0f);
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    public FloatBuffer normalizeInto() {
+        floats.rewind();
+        preprocessor.normalizeInto(floats);
+        return floats;
+    }
+
+    @Benchmark
+    public ByteBuffer packUint8() {
+        bytes.rewind();
+        preprocessor.packInto(bytes, false);
+        return bytes;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.asl.benchmark;
+
+import com.example.asl.core.YuvFrame;
+import com.example.asl.core.YuvTensorConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unpacking a padded, non-interleaved (I420) YUV_420_888 frame: the row-by-row copy that
+ * {@code JavaCamera2View} does before handing the bytes to OpenCV, against the fused converter
+ * going straight to the 64x64 model input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YuvUnpackBenchmark {
+
+    private static final int ROW_PADDING = 64;
+
+    @Param({"640x480", "1280x720"})
+    public String resolution;
+
+    private int width;
+    private int height;
+    private ByteBuffer yPlane;
+    private ByteBuffer uPlane;
+    private ByteBuffer vPlane;
+    private int yRowStride;
+    private int chromaRowStride;
+
+    private final YuvFrame frame = new YuvFrame();
+    private final YuvTensorConverter converter = new YuvTensorConverter(64, 64);
+    private final FloatBuffer floats = ByteBuffer.allocateDirect(64 * 64 * 3 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    private final ByteBuffer rgb = ByteBuffer.allocateDirect(64 * 64 * 3);
+
+    @Setup
+    public void setUp() {
+        String[] size = resolution.split("x");
+        width = Integer.parseInt(size[0]);
+        height = Integer.parseInt(size[1]);
+        yRowStride = width + ROW_PADDING;
+        chromaRowStride = width / 2 + ROW_PADDING / 2;
+        yPlane = filledPlane(yRowStride * height);
+        uPlane = filledPlane(chromaRowStride * height / 2);
+        vPlane = filledPlane(chromaRowStride * height / 2);
+        frame.set(width, height, 90, 0L, yPlane, yRowStride, 1, uPlane, vPlane, chromaRowStride, 1);
+    }
+
+    private static ByteBuffer filledPlane(int bytes) {
+        ByteBuffer plane = ByteBuffer.allocateDirect(bytes);
+        for (int i = 0; i < bytes; i++) {
+            plane.put(i, (byte) (i * 31));
+        }
+        return plane;
+    }
+
+    /** JavaCamera2View's non-interleaved branch, up to the point where it calls Mat.put. */
+    @Benchmark
+    public byte[] javaCamera2ViewUnpack() {
+        int w = width;
+        int h = height;
+        byte[] yuvBytes = new byte[w * (h + h / 2)];
+        ByteBuffer y = yPlane.duplicate();
+        ByteBuffer u = uPlane.duplicate();
+        ByteBuffer v = vPlane.duplicate();
+
+        int offset = 0;
+        int padding = yRowStride - w;
+        for (int i = 0; i < h; i++) {
+            y.get(yuvBytes, offset, w);
+            offset += w;
+            if (i < h - 1) {
+                y.position(y.position() + padding);
+            }
+        }
+
+        int chromaRowPadding = chromaRowStride - w / 2;
+        for (int i = 0; i < h / 2; i++) {
+            u.get(yuvBytes, offset, w / 2);
+            offset += w / 2;
+            if (i < h / 2 - 1) {
+                u.position(u.position() + chromaRowPadding);
+            }
+        }
+        for (int i = 0; i < h / 2; i++) {
+            v.get(yuvBytes, offset, w / 2);
+            offset += w / 2;
+            if (i < h / 2 - 1) {
+                v.position(v.position() + chromaRowPadding);
+            }
+        }
+        return yuvBytes;
+    }
+
+    @Benchmark
+    public FloatBuffer fusedToFloat() {
+        floats.rewind();
+        converter.toFloat(frame, floats);
+        return floats;
+    }
+
+    @Benchmark
+    public ByteBuffer fusedToRgb() {
+        rgb.rewind();
+        converter.toRgb(frame, rgb);
+        return rgb;
+    }
+}
@@ -0,0 +1,66 @@
+package org.opencv.core;
+
+/**
+ * Read-only view of the keypoints in a {@link MatOfKeyPoint} that needs no KeyPoint per
+ * element, unlike {@code toArray()} and {@code toList()}. Works like {@link PointCursor}: one
+ * bulk fetch per {@link #reset}, then a reused flyweight per step.
+ */
+public final class KeyPointCursor {
+
+    private static final int FIELDS = 7;
+
+    private float[] values = new float[0];
+    private int count;
+    private int index = -1;
+    private final KeyPoint keyPoint = new KeyPoint();
+
+    /** Loads the keypoints of {@code m} and moves before the first one. */
+    public KeyPointCursor reset(MatOfKeyPoint m) {
+        count = (int) m.total();
+        index = -1;
+        if (count == 0)
+            return this;
+        int needed = count * FIELDS;
+        if (values.length < needed)
+            values = new float[Math.max(needed, values.length * 2)];
+        m.get(0, 0, values);
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Advances to the next keypoint; false once all have been visited. */
+    public boolean next() {
+        if (index + 1 >= count)
+            return false;
+        index++;
+        int i = index * FIELDS;
+        keyPoint.pt.x = values[i];
+        keyPoint.pt.y = values[i + 1];
+        keyPoint.size = values[i + 2];
+        keyPoint.angle = values[i + 3];
+        keyPoint.response = values[i + 4];
+        keyPoint.octave = (int) values[i + 5];
+        keyPoint.class_id = (int) values[i + 6];
+        return true;
+    }
+
+    /** The current keypoint; a flyweight overwritten by {@link #next()}, so copy it to keep it. */
+    public KeyPoint keyPoint() {
+        return keyPoint;
+    }
+
+    public float x(int i) {
+        return values[i * FIELDS];
+    }
+
+    public float y(int i) {
+        return values[i * FIELDS + 1];
+    }
+
+    public float response(int i) {
+        return values[i * FIELDS + 4];
+    }
+}
@@ -1,17 +1,40 @@
 package org.opencv.core;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 // C++: class Mat
 //javadoc: Mat
-public class Mat {
+public class Mat implements AutoCloseable {
 
     public final long nativeObj;
 
+    // Set once the native object has been deleted by close(); read by the finalizer thread
+    private volatile boolean closed;
+
+    // Set once a constructor has succeeded and counted this Mat
+    private boolean registered;
+
+    // Where this Mat was created, recorded only while leak reporting or tracking is on
+    Throwable allocationSite;
+
+    // Java buffer holding the data of a Mat that wraps one, kept reachable for the Mat's lifetime
+    private ByteBuffer directData;
+    private long directDataAddr;
+
+    // Called at the end of every constructor, once nativeObj is valid; a constructor that
+    // throws leaves nothing to count or track
+    private void register() {
+        registered = true;
+        MatRegistry.onCreate(this);
+        MatArena.onCreate(this);
+    }
+
     public Mat(long addr) {
         if (addr == 0)
             throw new UnsupportedOperationException("Native object address is NULL");
         nativeObj = addr;
+        register();
     }
 
     //
@@ -21,6 +44,7 @@ public class Mat {
     // javadoc: Mat::Mat()
     public Mat() {
         nativeObj = n_Mat();
+        register();
     }
 
     //
@@ -30,6 +54,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type)
     public Mat(int rows, int cols, int type) {
         nativeObj = n_Mat(rows, cols, type);
+        register();
     }
 
     //
@@ -39,6 +64,8 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, data)
     public Mat(int rows, int cols, int type, ByteBuffer data) {
         nativeObj = n_Mat(rows, cols, type, data);
+        register();
+        wrapped(data);
     }
 
     //
@@ -48,6 +75,13 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, data, step)
     public Mat(int rows, int cols, int type, ByteBuffer data, long step) {
         nativeObj = n_Mat(rows, cols, type, data, step);
+        register();
+        wrapped(data);
+    }
+
+    private void wrapped(ByteBuffer data) {
+        directData = data;
+        directDataAddr = n_dataAddr(nativeObj);
     }
 
     //
@@ -57,6 +91,7 @@ public class Mat {
     // javadoc: Mat::Mat(size, type)
     public Mat(Size size, int type) {
         nativeObj = n_Mat(size.width, size.height, type);
+        register();
     }
 
     //
@@ -66,6 +101,7 @@ public class Mat {
     // javadoc: Mat::Mat(sizes, type)
     public Mat(int[] sizes, int type) {
         nativeObj = n_Mat(sizes.length, sizes, type);
+        register();
     }
 
     //
@@ -75,6 +111,7 @@ public class Mat {
     // javadoc: Mat::Mat(rows, cols, type, s)
     public Mat(int rows, int cols, int type, Scalar s) {
         nativeObj = n_Mat(rows, cols, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        register();
     }
 
     //
@@ -84,6 +121,7 @@ public class Mat {
     // javadoc: Mat::Mat(size, type, s)
     public Mat(Size size, int type, Scalar s) {
         nativeObj = n_Mat(size.width, size.height, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        register();
     }
 
     //
@@ -93,6 +131,7 @@ public class Mat {
     // javadoc: Mat::Mat(sizes, type, s)
     public Mat(int[] sizes, int type, Scalar s) {
         nativeObj = n_Mat(sizes.length, sizes, type, s.val[0], s.val[1], s.val[2], s.val[3]);
+        register();
     }
 
     //
@@ -102,11 +141,13 @@ public class Mat {
     // javadoc: Mat::Mat(m, rowRange, colRange)
     public Mat(Mat m, Range rowRange, Range colRange) {
         nativeObj = n_Mat(m.nativeObj, rowRange.start, rowRange.end, colRange.start, colRange.end);
+        register();
     }
 
     // javadoc: Mat::Mat(m, rowRange)
     public Mat(Mat m, Range rowRange) {
         nativeObj = n_Mat(m.nativeObj, rowRange.start, rowRange.end);
+        register();
     }
 
     //
@@ -116,6 +157,7 @@ public class Mat {
     // javadoc: Mat::Mat(m, ranges)
     public Mat(Mat m, Range[] ranges) {
         nativeObj = n_Mat(m.nativeObj, ranges);
+        register();
     }
 
     //
@@ -125,6 +167,7 @@ public class Mat {
     // javadoc: Mat::Mat(m, roi)
     public Mat(Mat m, Rect roi) {
         nativeObj = n_Mat(m.nativeObj, roi.y, roi.y + roi.height, roi.x, roi.x + roi.width);
+        register();
     }
 
     //
@@ -540,6 +583,26 @@ public class Mat {
         n_release(nativeObj);
     }
 
+    /**
+     * Deletes the native object now instead of in the finalizer: the data reference is
+     * released and the header itself is freed. The Mat must not be used afterwards; calling
+     * close again does nothing. This makes every Mat, including the MatOf* types, usable
+     * with try-with-resources.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed || !registered)
+            return;
+        closed = true;
+        MatRegistry.onClose(this);
+        n_delete(nativeObj);
+    }
+
+    /** Whether {@link #close()} has deleted the native object. */
+    public boolean isClosed() {
+        return closed;
+    }
+
     //
     // C++: Mat Mat::reshape(int cn, int rows = 0)
     //
@@ -756,7 +819,11 @@ public class Mat {
 
     @Override
     protected void finalize() throws Throwable {
-        n_delete(nativeObj);
+        if (!closed && registered) {
+            MatRegistry.onFinalize(this);
+            MatArena.onFinalize(this);
+            n_delete(nativeObj);
+        }
         super.finalize();
     }
 
@@ -1137,6 +1204,103 @@ public class Mat {
         return nGetIdx(nativeObj, idx);
     }
 
+    /**
+     * Creates a continuous rows x cols Mat whose data lives in a new direct ByteBuffer, so
+     * {@link #getDirectBuffer()} can hand it to other native consumers, such as an inference
+     * engine, without copying.
+     */
+    public static Mat allocateDirect(int rows, int cols, int type) {
+        int bytes = rows * cols * CvType.ELEM_SIZE(type);
+        return new Mat(rows, cols, type, ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder()));
+    }
+
+    /**
+     * A native-order view of the data of a Mat created over a direct ByteBuffer, positioned at
+     * its first byte. The view stays valid while the Mat is open. Returns null if this Mat owns
+     * its own data, or an operation has since reallocated it, e.g. because it was used as the
+     * output of a different size or type.
+     */
+    public ByteBuffer getDirectBuffer() {
+        if (directData == null || isClosed() || n_dataAddr(nativeObj) != directDataAddr)
+            return null;
+        ByteBuffer view = directData.duplicate().order(ByteOrder.nativeOrder());
+        view.rewind();
+        return view;
+    }
+
+    /**
+     * Copies the whole Mat, tightly packed row by row, into the direct buffer {@code dst} at its
+     * position and advances the position. The copy is done natively, with no Java array in
+     * between and no Java Mat created, so it costs nothing in the {@link MatRegistry} or an open
+     * {@link MatArena}; a buffer positioned at 0 is used as is, any other position costs one
+     * slice. A direct FloatBuffer view cannot be passed to OpenCV, so callers holding one pass
+     * the ByteBuffer it was created from. Returns the number of bytes copied.
+     */
+    public int get(ByteBuffer dst) {
+        return copyRegion(0, 0, cols(), rows(), dst, true);
+    }
+
+    /**
+     * Like {@link #get(ByteBuffer)}, for the {@code roi} region only. The region need not be
+     * contiguous in this Mat; its rows are packed one after another in {@code dst}.
+     */
+    public int get(Rect roi, ByteBuffer dst) {
+        return copyRegion(roi.x, roi.y, roi.width, roi.height, dst, true);
+    }
+
+    /**
+     * Fills the whole Mat from tightly packed rows in the direct buffer {@code src}, starting at
+     * its position, and advances the position. Like {@link #get(ByteBuffer)}, no Java Mat is
+     * created. Returns the number of bytes copied.
+     */
+    public int put(ByteBuffer src) {
+        return copyRegion(0, 0, cols(), rows(), src, false);
+    }
+
+    /** Like {@link #put(ByteBuffer)}, for the {@code roi} region only. */
+    public int put(Rect roi, ByteBuffer src) {
+        return copyRegion(roi.x, roi.y, roi.width, roi.height, src, false);
+    }
+
+    // Copies between a region of this Mat and packed rows in the buffer through native headers
+    // only: one over the buffer, and one over the region unless it is the whole Mat. Both
+    // headers share data with their owners, so copyTo never reallocates either side.
+    private int copyRegion(int x, int y, int width, int height, ByteBuffer buffer, boolean toBuffer) {
+        if (dims() > 2)
+            throw new UnsupportedOperationException("Only 2D Mats can be copied to a buffer");
+        if (x < 0 || y < 0 || x + width > cols() || y + height > rows())
+            throw new IllegalArgumentException("Region " + new Rect(x, y, width, height) + " outside the Mat");
+        int bytes = width * height * (int) elemSize();
+        long packed = n_Mat(height, width, type(), window(buffer, bytes));
+        boolean whole = x == 0 && y == 0 && width == cols() && height == rows();
+        long region = whole ? nativeObj : n_Mat(nativeObj, y, y + height, x, x + width);
+        try {
+            if (toBuffer)
+                n_copyTo(region, packed);
+            else
+                n_copyTo(packed, region);
+        } finally {
+            if (!whole)
+                n_delete(region);
+            n_delete(packed);
+        }
+        buffer.position(buffer.position() + bytes);
+        return bytes;
+    }
+
+    // OpenCV wraps a buffer from its start, so hand it a slice beginning at the position
+    private static ByteBuffer window(ByteBuffer buffer, int bytes) {
+        if (!buffer.isDirect())
+            throw new IllegalArgumentException("Buffer must be direct");
+        if (buffer.remaining() < bytes)
+            throw new IllegalArgumentException("Buffer has " + buffer.remaining() + " bytes left, " + bytes + " needed");
+        if (buffer.position() == 0)
+            return buffer;
+        ByteBuffer window = buffer.duplicate();
+        window.limit(window.position() + bytes);
+        return window.slice();
+    }
+
     // javadoc:Mat::height()
     public int height() {
         return rows();
@@ -0,0 +1,109 @@
+package org.opencv.core;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scope that closes every {@link Mat} created on its thread while it is open, including the
+ * temporaries the bindings return from calls such as {@code KalmanFilter.predict()}.
+ *
+ * <pre>
+ * try (MatArena scope = frameArena.open()) {
+ *     // Mats created here are closed when the scope ends, unless passed to keep()
+ * }
+ * </pre>
+ *
+ * An arena can be opened again after it is closed, so a per-frame scope allocates nothing
+ * once its list has grown. Arenas nest per thread; the innermost open one collects new Mats.
+ *
+ * <p>With a {@link LeakReporter} installed, every Mat records where it was created and the
+ * reporter is told about each one that reaches the finalizer without being closed. Recording
+ * the creation site is expensive, so reporting is meant for debug builds; the count of
+ * finalized Mats is always kept by {@link MatRegistry}.
+ */
+public final class MatArena implements AutoCloseable {
+
+    /** Told about Mats that were freed by the finalizer instead of being closed. */
+    public interface LeakReporter {
+        /** Called on the finalizer thread with the stack trace of the Mat's creation. */
+        void onLeak(Throwable allocationSite);
+    }
+
+    private static final ThreadLocal<MatArena> CURRENT = new ThreadLocal<>();
+    private static final AtomicInteger openArenas = new AtomicInteger();
+    private static volatile LeakReporter leakReporter;
+
+    private final ArrayList<Mat> mats = new ArrayList<>();
+    private MatArena parent;
+    private Thread owner;
+
+    /** Installs {@code reporter}, or turns leak reporting off with null. */
+    public static void setLeakReporter(LeakReporter reporter) {
+        leakReporter = reporter;
+    }
+
+    /** Mats freed by the finalizer instead of being closed, since the process started. */
+    public static long getFinalizedCount() {
+        return MatRegistry.getFinalizedCount();
+    }
+
+    static void onCreate(Mat mat) {
+        if (leakReporter != null && mat.allocationSite == null)
+            mat.allocationSite = new Throwable("Mat created here");
+        if (openArenas.get() > 0) {
+            MatArena arena = CURRENT.get();
+            if (arena != null)
+                arena.mats.add(mat);
+        }
+    }
+
+    static void onFinalize(Mat mat) {
+        LeakReporter reporter = leakReporter;
+        if (reporter != null && mat.allocationSite != null)
+            reporter.onLeak(mat.allocationSite);
+    }
+
+    /** Starts collecting the Mats this thread creates; returns this arena for try-with-resources. */
+    public MatArena open() {
+        if (owner != null)
+            throw new IllegalStateException("Arena is already open");
+        owner = Thread.currentThread();
+        parent = CURRENT.get();
+        CURRENT.set(this);
+        openArenas.incrementAndGet();
+        return this;
+    }
+
+    /** Takes {@code mat} out of the arena so it outlives the scope; the caller must close it. */
+    public <T extends Mat> T keep(T mat) {
+        for (int i = mats.size() - 1; i >= 0; i--) {
+            if (mats.get(i) == mat) {
+                mats.remove(i);
+                break;
+            }
+        }
+        return mat;
+    }
+
+    /** Mats collected so far in this scope. */
+    public int size() {
+        return mats.size();
+    }
+
+    /** Closes the collected Mats, newest first, and makes the enclosing arena current again. */
+    @Override
+    public void close() {
+        if (owner != Thread.currentThread() || CURRENT.get() != this)
+            throw new IllegalStateException("Arena is not the innermost open one on this thread");
+        for (int i = mats.size() - 1; i >= 0; i--)
+            mats.get(i).close();
+        mats.clear();
+        if (parent == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(parent);
+        parent = null;
+        owner = null;
+        openArenas.decrementAndGet();
+    }
+}
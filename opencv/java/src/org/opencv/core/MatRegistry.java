@@ -0,0 +1,187 @@
+package org.opencv.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide accounting of the native objects behind {@link Mat}s.
+ *
+ * <p>Created, closed and finalized Mats are always counted, so {@link #getLiveCount()} is cheap
+ * enough to poll. With {@link #setTracking tracking} on, every Mat created from then on is also
+ * remembered, weakly, together with where it was created, and {@link #snapshot()} breaks the
+ * live ones down by CvType and by creation site, with their current
+ * {@code total() * elemSize()} bytes. Comparing snapshots taken during a long session shows
+ * which stage keeps frames alive. Tracking records a stack trace per Mat, so it is meant for
+ * debug builds.
+ */
+public final class MatRegistry {
+
+    private static final AtomicLong created = new AtomicLong();
+    private static final AtomicLong closed = new AtomicLong();
+    private static final AtomicLong finalized = new AtomicLong();
+
+    private static volatile boolean tracking;
+    // Guarded by itself; a Mat leaves it before its native object is deleted
+    private static final Map<Mat, Boolean> tracked = new WeakHashMap<>();
+
+    private MatRegistry() {
+    }
+
+    /** Starts or stops remembering new Mats for {@link #snapshot()}. */
+    public static void setTracking(boolean enabled) {
+        tracking = enabled;
+        if (!enabled) {
+            synchronized (tracked) {
+                tracked.clear();
+            }
+        }
+    }
+
+    public static boolean isTracking() {
+        return tracking;
+    }
+
+    static void onCreate(Mat mat) {
+        created.incrementAndGet();
+        if (tracking) {
+            mat.allocationSite = new Throwable("Mat created here");
+            synchronized (tracked) {
+                tracked.put(mat, Boolean.TRUE);
+            }
+        }
+    }
+
+    static void onClose(Mat mat) {
+        closed.incrementAndGet();
+        if (mat.allocationSite != null) {
+            synchronized (tracked) {
+                tracked.remove(mat);
+            }
+        }
+    }
+
+    static void onFinalize(Mat mat) {
+        finalized.incrementAndGet();
+    }
+
+    public static long getCreatedCount() {
+        return created.get();
+    }
+
+    public static long getClosedCount() {
+        return closed.get();
+    }
+
+    /** Mats freed by the finalizer instead of being closed. */
+    public static long getFinalizedCount() {
+        return finalized.get();
+    }
+
+    /** Mats whose native object has not been deleted yet, tracked or not. */
+    public static long getLiveCount() {
+        return created.get() - closed.get() - finalized.get();
+    }
+
+    /** Live and tracked Mats grouped by CvType and by creation site. */
+    public static final class Snapshot {
+        public final long liveCount;
+        public final long trackedCount;
+        public final long trackedBytes;
+        /** CvType name to {count, bytes}. */
+        public final Map<String, long[]> byType;
+        /** First frame outside OpenCV's bindings to {count, bytes}. */
+        public final Map<String, long[]> bySite;
+
+        Snapshot(long liveCount, long trackedCount, long trackedBytes, Map<String, long[]> byType, Map<String, long[]> bySite) {
+            this.liveCount = liveCount;
+            this.trackedCount = trackedCount;
+            this.trackedBytes = trackedBytes;
+            this.byType = Collections.unmodifiableMap(byType);
+            this.bySite = Collections.unmodifiableMap(bySite);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append("Live Mats: ").append(liveCount)
+                    .append(", tracked: ").append(trackedCount)
+                    .append(" holding ").append(trackedBytes).append(" bytes\n");
+            append(out, "By type", byType);
+            append(out, "By creation site", bySite);
+            return out.toString();
+        }
+
+        private static void append(StringBuilder out, String title, Map<String, long[]> groups) {
+            out.append(title).append(":\n");
+            List<Map.Entry<String, long[]>> entries = new ArrayList<>(groups.entrySet());
+            // Largest first, so the leak is at the top
+            Collections.sort(entries, (a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+            for (Map.Entry<String, long[]> entry : entries) {
+                out.append("  ").append(entry.getKey())
+                        .append(": ").append(entry.getValue()[0])
+                        .append(" Mats, ").append(entry.getValue()[1]).append(" bytes\n");
+            }
+        }
+    }
+
+    /**
+     * Groups the tracked Mats that are still alive. Sizes are read while their owners may be
+     * using them, so a Mat being reallocated at that moment can be reported with either size.
+     */
+    public static Snapshot snapshot() {
+        Map<String, long[]> byType = new TreeMap<>();
+        Map<String, long[]> bySite = new TreeMap<>();
+        long count = 0;
+        long bytes = 0;
+        synchronized (tracked) {
+            for (Mat mat : tracked.keySet()) {
+                // Skip Mats closed meanwhile; registration happens only once nativeObj is set
+                if (mat == null || mat.nativeObj == 0 || mat.isClosed())
+                    continue;
+                long size = mat.total() * mat.elemSize();
+                add(byType, CvType.typeToString(mat.type()), size);
+                add(bySite, site(mat.allocationSite), size);
+                count++;
+                bytes += size;
+            }
+        }
+        return new Snapshot(getLiveCount(), count, bytes, byType, bySite);
+    }
+
+    /** Writes {@link #snapshot()} to {@code file} as text. */
+    public static void dump(File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(snapshot().toString().getBytes(Charset.forName("UTF-8")));
+        }
+    }
+
+    private static void add(Map<String, long[]> groups, String key, long bytes) {
+        long[] totals = groups.get(key);
+        if (totals == null) {
+            totals = new long[2];
+            groups.put(key, totals);
+        }
+        totals[0]++;
+        totals[1] += bytes;
+    }
+
+    private static String site(Throwable allocationSite) {
+        if (allocationSite == null)
+            return "unknown";
+        for (StackTraceElement frame : allocationSite.getStackTrace()) {
+            if (!frame.getClassName().startsWith("org.opencv."))
+                return frame.toString();
+        }
+        return "org.opencv";
+    }
+}
@@ -0,0 +1,82 @@
+package org.opencv.core;
+
+/**
+ * Read-only view of the points in a {@link MatOfPoint} or {@link MatOfPoint2f} that needs no
+ * Point per element, unlike {@code toArray()} and {@code toList()}.
+ *
+ * <pre>
+ * cursor.reset(contour);
+ * while (cursor.next()) {
+ *     Point p = cursor.point(); // the same instance on every step
+ * }
+ * </pre>
+ *
+ * {@link #reset} fetches all coordinates in one native call into a buffer the cursor keeps
+ * and grows as needed, so reusing one cursor across frames allocates nothing in steady state.
+ * The view is a copy: later changes to the Mat are not seen until the next reset.
+ */
+public final class PointCursor {
+
+    private int[] ints = new int[0];
+    private float[] floats = new float[0];
+    private boolean integer;
+    private int count;
+    private int index = -1;
+    private final Point point = new Point();
+
+    /** Loads the points of {@code m} and moves before the first one. */
+    public PointCursor reset(MatOfPoint m) {
+        return load(m, true);
+    }
+
+    /** Loads the points of {@code m} and moves before the first one. */
+    public PointCursor reset(MatOfPoint2f m) {
+        return load(m, false);
+    }
+
+    private PointCursor load(Mat m, boolean integer) {
+        this.integer = integer;
+        count = (int) m.total();
+        index = -1;
+        if (count == 0)
+            return this;
+        int needed = count * 2;
+        if (integer) {
+            if (ints.length < needed)
+                ints = new int[Math.max(needed, ints.length * 2)];
+            m.get(0, 0, ints);
+        } else {
+            if (floats.length < needed)
+                floats = new float[Math.max(needed, floats.length * 2)];
+            m.get(0, 0, floats);
+        }
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Advances to the next point; false once all have been visited. */
+    public boolean next() {
+        if (index + 1 >= count)
+            return false;
+        index++;
+        point.x = x(index);
+        point.y = y(index);
+        return true;
+    }
+
+    /** The current point; a flyweight overwritten by {@link #next()}, so copy it to keep it. */
+    public Point point() {
+        return point;
+    }
+
+    public double x(int i) {
+        return integer ? ints[2 * i] : floats[2 * i];
+    }
+
+    public double y(int i) {
+        return integer ? ints[2 * i + 1] : floats[2 * i + 1];
+    }
+}
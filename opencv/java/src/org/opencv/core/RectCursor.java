@@ -0,0 +1,49 @@
+package org.opencv.core;
+
+/**
+ * Read-only view of the rectangles in a {@link MatOfRect} that needs no Rect per element,
+ * unlike {@code toArray()} and {@code toList()}. Works like {@link PointCursor}: one bulk
+ * fetch per {@link #reset}, then a reused flyweight per step.
+ */
+public final class RectCursor {
+
+    private int[] values = new int[0];
+    private int count;
+    private int index = -1;
+    private final Rect rect = new Rect();
+
+    /** Loads the rectangles of {@code m} and moves before the first one. */
+    public RectCursor reset(MatOfRect m) {
+        count = (int) m.total();
+        index = -1;
+        if (count == 0)
+            return this;
+        int needed = count * 4;
+        if (values.length < needed)
+            values = new int[Math.max(needed, values.length * 2)];
+        m.get(0, 0, values);
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Advances to the next rectangle; false once all have been visited. */
+    public boolean next() {
+        if (index + 1 >= count)
+            return false;
+        index++;
+        int i = index * 4;
+        rect.x = values[i];
+        rect.y = values[i + 1];
+        rect.width = values[i + 2];
+        rect.height = values[i + 3];
+        return true;
+    }
+
+    /** The current rectangle; a flyweight overwritten by {@link #next()}, so copy it to keep it. */
+    public Rect rect() {
+        return rect;
+    }
+}
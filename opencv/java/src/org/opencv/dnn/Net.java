@@ -28,9 +28,12 @@ import org.opencv.utils.Converters;
  *
  * This class supports reference counting of its instances, i. e. copies point to the same instance.
  */
-public class Net {
+public class Net implements AutoCloseable {
 
     protected final long nativeObj;
+
+    // Set once the native object has been deleted by close(); read by the finalizer thread
+    private volatile boolean closed;
     protected Net(long addr) { nativeObj = addr; }
 
     public long getNativeObjAddr() { return nativeObj; }
@@ -800,11 +803,24 @@ public class Net {
     }
 
 
+    /**
+     * Deletes the native network now instead of in the finalizer. The Net must not be used
+     * afterwards; calling close again does nothing.
+     */
     @Override
-    protected void finalize() throws Throwable {
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
         delete(nativeObj);
     }
 
+    @Override
+    protected void finalize() throws Throwable {
+        if (!closed)
+            delete(nativeObj);
+    }
+
 
 
     // C++:   cv::dnn::Net::Net()
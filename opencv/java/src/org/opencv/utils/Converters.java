@@ -84,6 +84,45 @@ public class Converters {
         return res;
     }
 
+    /**
+     * Fills {@code res} with the first {@code count} points of {@code xy}, stored as interleaved
+     * x, y pairs, as a CV_32SC2 column, reallocating it only if its size changes, and returns
+     * it. {@code xy} must have an even length. No Point objects are created.
+     */
+    public static Mat vector_Point_to_Mat(int[] xy, int count, Mat res) {
+        checkPointCount(xy.length, count);
+        res.create(count, 1, CvType.CV_32SC2);
+        if (count > 0)
+            res.put(0, 0, xy);
+        return res;
+    }
+
+    /** Like {@link #vector_Point_to_Mat(int[], int, Mat)}, as a CV_32FC2 column. */
+    public static Mat vector_Point2f_to_Mat(float[] xy, int count, Mat res) {
+        checkPointCount(xy.length, count);
+        res.create(count, 1, CvType.CV_32FC2);
+        if (count > 0)
+            res.put(0, 0, xy);
+        return res;
+    }
+
+    /** Like {@link #vector_Point_to_Mat(int[], int, Mat)}, as a CV_64FC2 column. */
+    public static Mat vector_Point2d_to_Mat(double[] xy, int count, Mat res) {
+        checkPointCount(xy.length, count);
+        res.create(count, 1, CvType.CV_64FC2);
+        if (count > 0)
+            res.put(0, 0, xy);
+        return res;
+    }
+
+    // Mat.put and Mat.get move whole elements only, so xy must hold complete pairs
+    private static void checkPointCount(int length, int count) {
+        if (length % 2 != 0)
+            throw new IllegalArgumentException("xy.length is odd");
+        if (count * 2 > length)
+            throw new IllegalArgumentException("count * 2 > xy.length");
+    }
+
     public static Mat vector_Point3i_to_Mat(List<Point3> pts) {
         return vector_Point3_to_Mat(pts, CvType.CV_32S);
     }
@@ -190,6 +229,45 @@ public class Converters {
         }
     }
 
+    /**
+     * Copies a CV_32SC2 column into {@code xy} as interleaved x, y pairs; {@code xy} must have
+     * an even length of at least {@code 2 * m.rows()}. Returns the number of points copied.
+     */
+    public static int Mat_to_vector_Point(Mat m, int[] xy) {
+        int count = checkPoints(m, CvType.CV_32SC2, xy.length);
+        if (count > 0)
+            m.get(0, 0, xy);
+        return count;
+    }
+
+    /** Like {@link #Mat_to_vector_Point(Mat, int[])}, for a CV_32FC2 column. */
+    public static int Mat_to_vector_Point2f(Mat m, float[] xy) {
+        int count = checkPoints(m, CvType.CV_32FC2, xy.length);
+        if (count > 0)
+            m.get(0, 0, xy);
+        return count;
+    }
+
+    /** Like {@link #Mat_to_vector_Point(Mat, int[])}, for a CV_64FC2 column. */
+    public static int Mat_to_vector_Point2d(Mat m, double[] xy) {
+        int count = checkPoints(m, CvType.CV_64FC2, xy.length);
+        if (count > 0)
+            m.get(0, 0, xy);
+        return count;
+    }
+
+    private static int checkPoints(Mat m, int type, int length) {
+        int count = m.rows();
+        if (type != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "CvType." + CvType.typeToString(type) + " != m.type() ||  m.cols()!=1\n" + m);
+        if (length % 2 != 0)
+            throw new IllegalArgumentException("xy.length is odd");
+        if (length < 2 * count)
+            throw new IllegalArgumentException("xy.length < " + 2 * count);
+        return count;
+    }
+
     public static void Mat_to_vector_Point3i(Mat m, List<Point3> pts) {
         Mat_to_vector_Point3(m, pts);
     }
@@ -287,6 +365,20 @@ public class Converters {
         return res;
     }
 
+    /**
+     * Fills {@code res} with the first {@code count} values of {@code fs} as a CV_32FC1 column,
+     * reallocating it only if its size changes, and returns it. Unlike the List variant,
+     * nothing is boxed.
+     */
+    public static Mat vector_float_to_Mat(float[] fs, int count, Mat res) {
+        if (count > fs.length)
+            throw new IllegalArgumentException("count > fs.length");
+        res.create(count, 1, CvType.CV_32FC1);
+        if (count > 0)
+            res.put(0, 0, fs);
+        return res;
+    }
+
     public static void Mat_to_vector_float(Mat m, List<Float> fs) {
         if (fs == null)
             throw new IllegalArgumentException("fs == null");
@@ -303,6 +395,22 @@ public class Converters {
         }
     }
 
+    /**
+     * Copies a CV_32FC1 column into {@code fs}, which must hold at least {@code m.rows()}
+     * values, and returns the number of values copied.
+     */
+    public static int Mat_to_vector_float(Mat m, float[] fs) {
+        int count = m.rows();
+        if (CvType.CV_32FC1 != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "CvType.CV_32FC1 != m.type() ||  m.cols()!=1\n" + m);
+        if (fs.length < count)
+            throw new IllegalArgumentException("fs.length < " + count);
+        if (count > 0)
+            m.get(0, 0, fs);
+        return count;
+    }
+
     public static Mat vector_uchar_to_Mat(List<Byte> bs) {
         Mat res;
         int count = (bs != null) ? bs.size() : 0;
@@ -320,6 +428,20 @@ public class Converters {
         return res;
     }
 
+    /**
+     * Fills {@code res} with the first {@code count} values of {@code bs} as a CV_8UC1 column,
+     * reallocating it only if its size changes, and returns it. Unlike the List variant,
+     * nothing is boxed.
+     */
+    public static Mat vector_uchar_to_Mat(byte[] bs, int count, Mat res) {
+        if (count > bs.length)
+            throw new IllegalArgumentException("count > bs.length");
+        res.create(count, 1, CvType.CV_8UC1);
+        if (count > 0)
+            res.put(0, 0, bs);
+        return res;
+    }
+
     public static void Mat_to_vector_uchar(Mat m, List<Byte> us) {
         if (us == null)
             throw new IllegalArgumentException("Output List can't be null");
@@ -336,6 +458,22 @@ public class Converters {
         }
     }
 
+    /**
+     * Copies a CV_8UC1 column into {@code bs}, which must hold at least {@code m.rows()}
+     * values, and returns the number of values copied.
+     */
+    public static int Mat_to_vector_uchar(Mat m, byte[] bs) {
+        int count = m.rows();
+        if (CvType.CV_8UC1 != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "CvType.CV_8UC1 != m.type() ||  m.cols()!=1\n" + m);
+        if (bs.length < count)
+            throw new IllegalArgumentException("bs.length < " + count);
+        if (count > 0)
+            m.get(0, 0, bs);
+        return count;
+    }
+
     public static Mat vector_char_to_Mat(List<Byte> bs) {
         Mat res;
         int count = (bs != null) ? bs.size() : 0;
@@ -370,6 +508,20 @@ public class Converters {
         return res;
     }
 
+    /**
+     * Fills {@code res} with the first {@code count} values of {@code is} as a CV_32SC1 column,
+     * reallocating it only if its size changes, and returns it. Unlike the List variant,
+     * nothing is boxed.
+     */
+    public static Mat vector_int_to_Mat(int[] is, int count, Mat res) {
+        if (count > is.length)
+            throw new IllegalArgumentException("count > is.length");
+        res.create(count, 1, CvType.CV_32SC1);
+        if (count > 0)
+            res.put(0, 0, is);
+        return res;
+    }
+
     public static void Mat_to_vector_int(Mat m, List<Integer> is) {
         if (is == null)
             throw new IllegalArgumentException("is == null");
@@ -386,6 +538,22 @@ public class Converters {
         }
     }
 
+    /**
+     * Copies a CV_32SC1 column into {@code is}, which must hold at least {@code m.rows()}
+     * values, and returns the number of values copied.
+     */
+    public static int Mat_to_vector_int(Mat m, int[] is) {
+        int count = m.rows();
+        if (CvType.CV_32SC1 != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "CvType.CV_32SC1 != m.type() ||  m.cols()!=1\n" + m);
+        if (is.length < count)
+            throw new IllegalArgumentException("is.length < " + count);
+        if (count > 0)
+            m.get(0, 0, is);
+        return count;
+    }
+
     public static void Mat_to_vector_char(Mat m, List<Byte> bs) {
         if (bs == null)
             throw new IllegalArgumentException("Output List can't be null");
@@ -514,6 +682,26 @@ public class Converters {
         }
     }
 
+    /**
+     * Copies a CV_64FC(7) column into {@code values} as x, y, size, angle, response, octave and
+     * class_id per keypoint, without creating KeyPoint objects; {@code values} must have a
+     * length of at least {@code 7 * m.rows()} that is a multiple of 7. Returns the number of
+     * keypoints copied.
+     */
+    public static int Mat_to_vector_KeyPoint(Mat m, double[] values) {
+        int count = m.rows();
+        if (CvType.CV_64FC(7) != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "CvType.CV_64FC(7) != m.type() ||  m.cols()!=1\n" + m);
+        if (values.length % 7 != 0)
+            throw new IllegalArgumentException("values.length is not a multiple of 7");
+        if (values.length < 7 * count)
+            throw new IllegalArgumentException("values.length < " + 7 * count);
+        if (count > 0)
+            m.get(0, 0, values);
+        return count;
+    }
+
     // vector_vector_Point
     public static Mat vector_vector_Point_to_Mat(List<MatOfPoint> pts, List<Mat> mats) {
         Mat res;
@@ -653,6 +841,20 @@ public class Converters {
         return res;
     }
 
+    /**
+     * Fills {@code res} with the first {@code count} values of {@code ds} as a CV_64FC1 column,
+     * reallocating it only if its size changes, and returns it. Unlike the List variant,
+     * nothing is boxed.
+     */
+    public static Mat vector_double_to_Mat(double[] ds, int count, Mat res) {
+        if (count > ds.length)
+            throw new IllegalArgumentException("count > ds.length");
+        res.create(count, 1, CvType.CV_64FC1);
+        if (count > 0)
+            res.put(0, 0, ds);
+        return res;
+    }
+
     public static void Mat_to_vector_double(Mat m, List<Double> ds) {
         if (ds == null)
             throw new IllegalArgumentException("ds == null");
@@ -669,6 +871,22 @@ public class Converters {
         }
     }
 
+    /**
+     * Copies a CV_64FC1 column into {@code ds}, which must hold at least {@code m.rows()}
+     * values, and returns the number of values copied.
+     */
+    public static int Mat_to_vector_double(Mat m, double[] ds) {
+        int count = m.rows();
+        if (CvType.CV_64FC1 != m.type() || m.cols() != 1)
+            throw new IllegalArgumentException(
+                    "CvType.CV_64FC1 != m.type() ||  m.cols()!=1\n" + m);
+        if (ds.length < count)
+            throw new IllegalArgumentException("ds.length < " + count);
+        if (count > 0)
+            m.get(0, 0, ds);
+        return count;
+    }
+
     public static Mat vector_DMatch_to_Mat(List<DMatch> matches) {
         Mat res;
         int count = (matches != null) ? matches.size() : 0;